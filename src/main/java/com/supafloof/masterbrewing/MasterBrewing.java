@@ -13,7 +13,6 @@ import org.bukkit.block.BrewingStand;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
-import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -24,6 +23,8 @@ import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.inventory.BrewEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.inventory.InventoryPickupItemEvent;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerItemConsumeEvent;
@@ -42,6 +43,7 @@ import org.bukkit.potion.PotionType;
 import java.io.File;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import com.google.gson.Gson;
 
 /**
@@ -100,7 +102,7 @@ import com.google.gson.Gson;
  * 
  * HOW BREWING WORKS:
  * ------------------
- * 1. Obtain a Master Brewing Stand via /masterbrewing give stand <player>
+ * 1. Obtain a Master Brewing Stand via /masterbrewing give stand <target>
  * 2. Place the stand and insert any vanilla potion with an effect
  * 3. Add redstone dust to increase duration OR glowstone to increase power
  * 4. The brew completes instantly, consuming materials based on config tier
@@ -150,10 +152,12 @@ import com.google.gson.Gson;
  * ---------
  * /masterbrewing              - Open virtual Master Brewing Stand GUI
  * /masterbrewing help         - Show help menu with upgrade tier tables
- * /masterbrewing give stand <player>  - Give Master Brewing Stand item
- * /masterbrewing give potion <player> <type> [time] [power] - Give Master Potion
- * /masterbrewing give potion <player> <type> max - Give max-level potion
- * /masterbrewing give potion <player> random     - Give random potion type/levels
+ * /masterbrewing give stand <target> [tier] [amount] - Give Master Brewing Stand items
+ * /masterbrewing give potion <target> <type> [time] [power] [amount] - Give Master Potions
+ * /masterbrewing give potion <target> <type> max [amount] - Give max-level potions
+ * /masterbrewing give potion <target> random [amount] - Give a potion rolled from the loot table
+ *   (<target>: player name, entity selector such as @a[distance=..50], or group:<name>)
+ * /masterbrewing loot         - Show the random potion loot table
  * /masterbrewing reload       - Reload configuration from disk
  * 
  * INTEGRATION NOTES:
@@ -243,6 +247,27 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
     /** NBT key storing remaining fuel level (0-20) when stand is broken. Stored as INTEGER. */
     private NamespacedKey brewingFuelLevelKey;
     
+    /**
+     * NBT key marking a Master Brewing Stand as "brew to exhaustion" (BYTE=1).
+     * Stored on the placed block; copied to the item when broken and back when placed.
+     * Toggled with /masterbrewing bulk.
+     */
+    private NamespacedKey bulkBrewingKey;
+    
+    /**
+     * NBT key holding the world game time of a placed stand's last upgrade (LONG).
+     * Only written when stand-upgrade-cooldown is enabled. Lives on the block,
+     * so it goes away with the stand however it is removed.
+     */
+    private NamespacedKey lastStandUpgradeKey;
+    
+    /**
+     * NBT key for fuel charges left over from /masterbrewing brew.
+     * Stored on the player (INTEGER, 0-19) so a partly burned blaze powder
+     * isn't wasted between quick brews.
+     */
+    private NamespacedKey quickBrewFuelKey;
+    
     // ==================================================================================
     // RUNTIME DATA STRUCTURES - In-memory tracking for active sessions
     // ==================================================================================
@@ -267,90 +292,392 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      */
     private Map<UUID, List<ActiveMasterEffect>> activeMasterEffects = new HashMap<>();
     
+    /**
+     * Cached /effects output per player.
+     * Map structure: Player UUID -> EffectsRender (second it was built + component)
+     * 
+     * OPTIMIZATION: Scoreboard and menu plugins run /effects for players very
+     * often. Times are shown in whole seconds, so a render stays correct for
+     * the rest of the second it was built in. Entries are dropped as soon as
+     * the player's effects change (master potion drunk or expired, any vanilla
+     * effect added/removed/changed) and on quit.
+     * 
+     * Thread safety: main thread only
+     */
+    private final Map<UUID, EffectsRender> effectsRenderCache = new HashMap<>();
+    
     /**
      * Tracks currently open virtual Master Brewing Stand inventories.
-     * Map structure: Player UUID -> Bukkit Inventory object
+     * Map structure: Player UUID -> VirtualStand they have open
      * 
      * Virtual brewing stands are opened via /masterbrewing command without
      * requiring a physical block. This map tracks which players have them open
      * so we can process brewing operations on inventory click events.
      * 
      * Lifecycle:
-     * - Entry added when player runs /masterbrewing (opens GUI)
+     * - Entry added when player opens one of their stands
      * - Entry removed when player closes the inventory
-     * - Contents saved to playerdata file on close
+     * - The stand itself stays resident in virtualStandCache
+     */
+    private Map<UUID, VirtualStand> virtualBrewingStands = new HashMap<>();
+    
+    /**
+     * Resident virtual brewing stands for online players.
+     * Map structure: Player UUID -> (Stand number -> VirtualStand)
+     * 
+     * OPTIMIZATION: A stand is loaded from disk on its first open of a session and
+     * then kept in memory until the player quits. Reopening is just
+     * openInventory() on the same Inventory - no YAML parsing or Base64
+     * deserialization. Closing does no I/O at all.
+     * 
+     * Players with several stands (masterbrewing.stands.<n>) only have the
+     * stands they actually opened in here; each stand is its own file, so
+     * opening one never deserializes the others.
+     * 
+     * Stands are only written back when dirty, and only on:
+     * - Player quit (then evicted from this map)
+     * - Periodic autosave (startVirtualStandAutosaveTask)
+     * - Plugin disable
+     */
+    private Map<UUID, Map<Integer, VirtualStand>> virtualStandCache = new HashMap<>();
+    
+    /**
+     * Players with the stand selector GUI open.
+     * Map structure: Player UUID -> Selector inventory (page is stored alongside)
+     */
+    private final Map<UUID, org.bukkit.inventory.Inventory> openStandSelectors = new HashMap<>();
+    
+    /** Page each open stand selector is showing (0-based) */
+    private final Map<UUID, Integer> standSelectorPages = new HashMap<>();
+    
+    /** Stand limit of each open stand selector, resolved once when it was opened */
+    private final Map<UUID, Integer> standSelectorLimits = new HashMap<>();
+    
+    /**
+     * Stand numbers listed by each open stand selector, in order: 1..limit,
+     * then any stored stands above the limit (withdraw-only).
+     */
+    private final Map<UUID, int[]> standSelectorStands = new HashMap<>();
+    
+    /** Stands shown per selector page (rows 1-5; row 6 holds page buttons) */
+    private static final int STANDS_PER_PAGE = 45;
+    
+    /** Upper bound for masterbrewing.stands.<n> */
+    private static final int MAX_VIRTUAL_STANDS = 270;
+    
+    /**
+     * Resident shared team stands.
+     * Map structure: Team name -> VirtualStand
+     * 
+     * OPTIMIZATION: Every member who opens a team stand views the same
+     * Inventory instance, so there is exactly one copy to brew, validate and
+     * save no matter how many players have it open. Brewing passes are
+     * coalesced per stand (pendingVirtualBrews), so clicks from several viewers
+     * in the same tick still produce a single pass.
+     * 
+     * A team stand is loaded on its first open and persisted and evicted once
+     * its last viewer leaves (or, if a timed brew is running, once that brew
+     * finishes with nobody watching).
+     */
+    private final Map<String, VirtualStand> teamStands = new HashMap<>();
+    
+    /**
+     * Team stands currently being read from disk.
+     * Map structure: Team name -> Players to show it to once loaded
+     */
+    private final Map<String, Set<UUID>> teamStandsLoading = new HashMap<>();
+    
+    /** Allowed team names (also used in masterbrewing.team.<name> and the file name) */
+    private static final java.util.regex.Pattern TEAM_NAME_PATTERN = java.util.regex.Pattern.compile("[a-z0-9_-]{1,32}");
+    
+    /** Ticks between autosaves of dirty virtual stands (5 minutes) */
+    private static final long VIRTUAL_STAND_AUTOSAVE_TICKS = 6000L;
+    
+    /**
+     * Players whose virtual stand is currently being loaded on the I/O thread.
+     * A second /masterbrewing while loading only repeats the loading message,
+     * so two loads can never create two inventories for the same stand.
+     * Only touched on the main thread.
      */
-    private Map<UUID, org.bukkit.inventory.Inventory> virtualBrewingStands = new HashMap<>();
+    private final Set<UUID> virtualStandsLoading = new HashSet<>();
     
     /**
-     * Tracks fuel levels for currently open virtual brewing stands.
-     * Map structure: Player UUID -> Remaining fuel charges (0-20)
+     * Stands saved with a timed brew in progress: "{uuid}/{n}" or "team/{name}".
      * 
-     * Fuel is consumed during brewing (1 charge per brew operation).
-     * One blaze powder provides 20 fuel charges (same as vanilla).
+     * Mirrors playerdata/brewing-stands.yml, so resumeInterruptedBrews() can
+     * restart those brews at enable without reading every stand record. Only
+     * touched on the I/O thread; null until first read.
+     */
+    private Set<String> brewingStandIndex;
+    
+    /**
+     * Single background thread for ALL playerdata file I/O.
+     * 
+     * Effect saves, virtual stand saves and virtual stand loads all go through
+     * this one thread, so they run strictly in submission order. That ordering
+     * is the guard against reopen-before-save: a stand saved on close/quit and
+     * then loaded again (e.g. after a quick relog) is always read AFTER the
+     * write completes, so items can be neither duplicated nor lost. It also
+     * stops two writers from doing read-modify-write on the same file at once.
      * 
-     * IMPORTANT: This map only holds data while a virtual stand is OPEN.
-     * Data is loaded from disk when stand is opened, saved when closed.
-     * This prevents memory bloat from storing fuel for all players.
+     * Created in onEnable, drained and shut down in onDisable.
      */
-    private Map<UUID, Integer> virtualBrewingFuel = new HashMap<>();
+    private java.util.concurrent.ExecutorService ioExecutor;
     
-    // ==================================================================================
-    // CONFIGURATION DATA - Parsed from config.yml on enable/reload
-    // ==================================================================================
+    /**
+     * Players whose mailbox is being delivered.
+     * 
+     * Added on join, removed on the I/O thread once the delivered potions have
+     * been taken out of the file. A quick relog in between does not read the
+     * same mail a second time.
+     */
+    private final Set<UUID> mailboxDeliveries = java.util.concurrent.ConcurrentHashMap.newKeySet();
     
     /**
-     * Global time (duration) upgrade tiers applying to all potions by default.
-     * Map structure: Upgrade level -> [redstone cost, duration in seconds]
+     * Virtual stands with a brewing pass already scheduled.
      * 
-     * Example entries from config:
-     * - Level 1: [4, 600]   = 4 redstone dust for 600 seconds (10 minutes)
-     * - Level 5: [16, 3600] = 16 redstone dust for 3600 seconds (1 hour)
+     * OPTIMIZATION: Clicks and drags only schedule a pass if the stand is not
+     * already in this set. A burst of shift-clicks inside the 2-tick window
+     * therefore produces exactly one processVirtualBrewing() call and one fuel
+     * display update, instead of one delayed task per click.
      * 
-     * Using TreeMap ensures levels iterate in ascending order (1, 2, 3, ...).
-     * Individual potions can override these via potionUpgradePaths map.
+     * Only touched on the main thread.
      */
-    private Map<Integer, int[]> timeUpgrades = new TreeMap<>();
+    private final Set<VirtualStand> pendingVirtualBrews = new HashSet<>();
+    
+    /** Click/drag events seen in virtual brewing stands (replaces per-click logging) */
+    private long virtualBrewEvents = 0;
+    
+    /** Events folded into an already scheduled pass */
+    private long virtualBrewEventsCoalesced = 0;
+    
+    /** Virtual brewing passes actually run */
+    private long virtualBrewPasses = 0;
+    
+    /** Upgrade cycles completed by virtual brewing passes */
+    private long virtualBrewUpgrades = 0;
     
     /**
-     * Global power (amplifier) upgrade tiers applying to all potions by default.
-     * Map structure: Upgrade level -> glowstone dust cost
+     * Per-player token buckets limiting instant virtual brewing upgrades.
+     * Map structure: Player UUID -> TokenBucket (created on first brew, removed on quit)
      * 
-     * Example entries from config:
-     * - Level 1: 4 glowstone  (results in amplifier 1, displayed as "II")
-     * - Level 5: 16 glowstone (results in amplifier 5, displayed as "VI")
-     * 
-     * Power upgrades don't have a duration component - they only increase
-     * the amplifier/strength of the effect.
+     * One token = one upgrade cycle. Together with globalBrewBucket this stops a
+     * macro clicking the stand from taking several ms of tick time. Upgrades
+     * beyond the allowance stay in the stand and are finished from
+     * throttledVirtualBrews on later ticks. Only touched on the main thread.
+     */
+    private final Map<UUID, TokenBucket> playerBrewBuckets = new HashMap<>();
+    
+    /** Server-wide token bucket shared by all virtual stands */
+    private TokenBucket globalBrewBucket = new TokenBucket(0);
+    
+    /**
+     * Stands with upgrades held back by the rate limit, in arrival order.
+     * Drained every RATE_LIMIT_RETRY_TICKS by the brew scheduler; a stand that
+     * is still limited goes to the back, so waiting players take turns.
      */
-    private Map<Integer, Integer> powerUpgrades = new TreeMap<>();
+    private final Set<VirtualStand> throttledVirtualBrews = new LinkedHashSet<>();
+    
+    /** Ticks between retries of rate-limited virtual stands */
+    private static final long RATE_LIMIT_RETRY_TICKS = 5L;
+    
+    /** Passes that hit the rate limit and were queued */
+    private long virtualBrewThrottled = 0;
+    
+    /** Upgrade cycles completed from the rate-limit queue */
+    private long virtualBrewDeferredUpgrades = 0;
+    
+    /** Upgrade cycles completed by /masterbrewing brew */
+    private long quickBrewUpgrades = 0;
+    
+    // ==================================================================================
+    // ITEM PROTOTYPE CACHE - Canonical ItemStacks cloned instead of rebuilt
+    // ==================================================================================
     
     /**
-     * Per-potion custom upgrade paths that override global defaults.
-     * Map structure: Effect key (e.g., "speed") -> UpgradePath object
+     * Canonical Master Potion ItemStacks keyed by "effectKey:timeLevel:powerLevel".
+     * 
+     * Building a Master Potion from scratch means creating a meta, a display name,
+     * five or six lore Components and five PDC entries. Scripted admin gives can
+     * request thousands of identical potions, so each distinct (effect, time, power)
+     * combination is built once and every give is just clone() + setAmount().
+     * 
+     * Prototypes are filled lazily on first use. After a config reload the whole
+     * map is rebuilt off-thread (lore shows config-dependent upgrade costs) and the
+     * field is swapped to the new map in a single volatile write, so readers see
+     * either the complete old map or the complete new one.
      * 
-     * Allows individual potions to have different costs/durations:
-     * - Fly potions might cost more than speed potions
-     * - Healing potions (instant) only support power upgrades
-     * - Specific potions can have unique tier structures
+     * Prototypes are NEVER handed out directly - always clone before giving.
+     */
+    private volatile Map<String, ItemStack> masterPotionPrototypes = new java.util.concurrent.ConcurrentHashMap<>();
+    
+    /**
+     * Canonical Master Brewing Stand ItemStacks (name, lore, PDC marker), one per tier.
+     * Map structure: Stand tier -> Prototype ItemStack
+     * Cloned by createMasterBrewingStand() on every break/give.
+     * Rebuilt together with the potion prototypes after a config reload.
+     */
+    private volatile Map<Integer, ItemStack> masterStandPrototypes = new java.util.concurrent.ConcurrentHashMap<>();
+    
+    /**
+     * Incremented on every config reload. An async prototype rebuild only swaps
+     * its result in if no newer reload started while it was running, so a slow
+     * rebuild can never overwrite the prototypes of a later configuration.
+     */
+    private final java.util.concurrent.atomic.AtomicInteger prototypeGeneration = new java.util.concurrent.atomic.AtomicInteger();
+    
+    // ==================================================================================
+    // CONFIGURATION DATA - Parsed from config.yml on enable/reload
+    // ==================================================================================
+    
+    /**
+     * The upgrade configuration in force: upgrade paths, cost tables, loot table
+     * and the settings parsed with them (see UpgradeConfig).
+     * 
+     * Replaced as a whole by applyUpgradeConfig() and never modified in place,
+     * so a reader sees either the old or the new tables, never a half-loaded
+     * mix. Readers go through getUpgradePath(), getMaxTimeLevel() and friends;
+     * async callers (planUpgradeRoute, rollLootPotion, prototype rebuilds) can
+     * read it safely from any thread.
+     */
+    private volatile UpgradeConfig upgradeConfig = new UpgradeConfig(
+        UpgradePath.of(TierTable.EMPTY, TierTable.EMPTY), Map.of(), Map.of(),
+        new LootTable(new String[0], new String[0], new int[0][], new double[0]),
+        0, 0, Map.of(1, 400), 2_000_000L, new int[]{0, 0}, new int[]{0, 0}, false, List.of());
+    
+    /** Highest upgrade level accepted in config (bounds the level-indexed arrays) */
+    private static final int MAX_UPGRADE_LEVEL = 1000;
+    
+    /** Highest cost of one upgrade level (one stack in the ingredient slot) */
+    private static final int MAX_TIER_COST = 64;
+    
+    /**
+     * Text of the config.yml that produced upgradeConfig.
+     * Compared against the file on disk to skip no-op changes and to log what
+     * changed when a new version fails to parse. Null if it couldn't be read.
+     */
+    private volatile String loadedConfigText;
+    
+    /**
+     * Stamped on every read of config.yml, in read order.
+     * Reloads parse on background threads and can reach the main thread out of
+     * order, so the stamp decides which snapshot is newest.
+     */
+    private final java.util.concurrent.atomic.AtomicLong configGeneration = new java.util.concurrent.atomic.AtomicLong();
+    
+    /** Stamp of the config snapshot applied last (main thread only) */
+    private long appliedConfigGeneration;
+    
+    /** Watches the data folder for config.yml changes (config: watch-config), or null */
+    private java.nio.file.WatchService configWatchService;
+    
+    /** Thread running the config watcher, or null */
+    private Thread configWatchThread;
+    
+    /** Quiet time after the last change event before config.yml is re-read */
+    private static final long CONFIG_WATCH_DEBOUNCE_MS = 500;
+    
+    /** Most changed lines logged when a new config.yml fails to parse */
+    private static final int CONFIG_DIFF_MAX_LINES = 20;
+    
+    /**
+     * Ticks each virtual brewing cycle takes (config: virtual-brew-time).
+     * 0 = instant brewing (all affordable upgrades applied at once).
+     * Vanilla brewing stands take 400 ticks (20 seconds).
+     */
+    private int virtualBrewTimeTicks = 0;
+    
+    /**
+     * Minimum ticks between two upgrades of the same physical Master Brewing Stand
+     * (config: stand-upgrade-cooldown). 0 = no limit beyond the vanilla brew time.
+     * Lets admins cap the throughput of automated potion farms.
+     */
+    private int standUpgradeCooldownTicks = 0;
+    
+    /**
+     * Total brew time in ticks for each Master Brewing Stand tier (config: stand-tiers).
+     * Map structure: Tier (1, 2, 3...) -> Brew time in ticks
      * 
-     * If a potion isn't in this map, it uses global timeUpgrades/powerUpgrades.
+     * The tier is stored as the value of the stand's master_brewing_stand PDC byte,
+     * so stands from before tiers existed (value 1) are tier 1. Applied through
+     * Paper's BrewingStartEvent; tier 1 defaults to the vanilla 400 ticks.
+     * Replaced as a whole on reload so the async prototype rebuild sees a stable map.
+     */
+    private volatile Map<Integer, Integer> standTierBrewTimes = new TreeMap<>(Map.of(1, 400));
+    
+    /** Configured stand tiers, sorted for prefix completion. Rebuilt by loadUpgradeTiers(). */
+    private volatile CompletionIndex standTierCompletions = new CompletionIndex(List.of("1"));
+    
+    /**
+     * Main-thread time each tick may spend on batch operations such as
+     * /masterbrewing upgrade (config: batch-tick-budget, in milliseconds).
+     */
+    private long batchTickBudgetNanos = 2_000_000L;
+    
+    /**
+     * Instant virtual brewing rate limits (config: virtual-brew-player-limit and
+     * virtual-brew-global-limit, "upgrades-per-second,burst"). Rate 0 = unlimited.
+     */
+    private double playerBrewRate = 0;
+    private int playerBrewBurst = 0;
+    private double globalBrewRate = 0;
+    private int globalBrewBurst = 0;
+    
+    // ==================================================================================
+    // AUTOMATION - Hopper/dropper support for physical Master Brewing Stands
+    // ==================================================================================
+    
+    /**
+     * Master stands with a bulk hopper transfer already scheduled for next tick.
+     * Further move events in the same tick are cancelled without scheduling again.
      */
-    private Map<String, UpgradePath> potionUpgradePaths = new HashMap<>();
+    private final Set<Location> pendingStandTransfers = new HashSet<>();
+    
+    // ==================================================================================
+    // TIMED VIRTUAL BREWING - One shared scheduler for all in-progress virtual brews
+    // ==================================================================================
     
     /**
-     * Highest time upgrade level available across ALL configurations.
-     * Calculated during config loading by finding max level in global + per-potion paths.
-     * Used for command validation and tab completion suggestions.
+     * All in-progress virtual brews, ordered by completion tick (earliest first).
+     * 
+     * OPTIMIZATION: Instead of one scheduled task per player, a single repeating
+     * task advances brewClock and polls only the jobs that are due. With 1,000
+     * concurrent brews a tick costs one peek() plus O(log n) per completed job,
+     * i.e. O(due) work rather than O(all brews).
+     * 
+     * Superseded jobs are not removed eagerly - a job is ignored when polled if
+     * it is no longer its stand's activeJob.
+     * 
+     * Only touched on the main thread.
      */
-    private int maxTimeLevel = 0;
+    private final PriorityQueue<BrewJob> virtualBrewQueue = new PriorityQueue<>(
+        Comparator.comparingLong((BrewJob job) -> job.dueTick));
+    
+    /** Ticks elapsed since the brew scheduler started (the queue's time base) */
+    private long virtualBrewClock = 0;
+    
+    /** Ticks between BREW_TIME progress updates sent to open virtual stands */
+    private static final long BREW_PROGRESS_INTERVAL_TICKS = 4L;
+    
+    /** Full-bar value of the BREW_TIME property (vanilla brew time in ticks) */
+    private static final int VANILLA_BREW_TIME = 400;
+    
+    // ==================================================================================
+    // BATCH OPERATIONS - Large jobs spread over ticks under a per-tick time budget
+    // ==================================================================================
     
     /**
-     * Highest power upgrade level available across ALL configurations.
-     * Calculated during config loading by finding max level in global + per-potion paths.
-     * Used for command validation and tab completion suggestions.
+     * Batch jobs waiting to run, oldest first. Jobs run one after another;
+     * each tick runs steps until batchTickBudgetNanos is used up.
+     * Only touched on the main thread.
      */
-    private int maxPowerLevel = 0;
+    private final java.util.ArrayDeque<BatchJob> batchQueue = new java.util.ArrayDeque<>();
+    
+    /** The repeating task draining batchQueue, or null while the queue is empty */
+    private org.bukkit.scheduler.BukkitTask batchTask;
+    
+    /** Largest per-player [amount] accepted by /masterbrewing give */
+    private static final int MAX_GIVE_AMOUNT = 64;
     
     // ==================================================================================
     // STATIC LOOKUP TABLES - Initialized once at class load for O(1) lookups
@@ -371,6 +698,29 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      */
     private static final Map<String, String> POTION_NAME_TO_EFFECT_KEY = createPotionNameMap();
     
+    /** Potion names, sorted for prefix completion */
+    private static final CompletionIndex POTION_NAME_COMPLETIONS = new CompletionIndex(POTION_NAME_TO_EFFECT_KEY.keySet());
+    
+    /** "random" plus potion names, for /masterbrewing give potion */
+    private static final CompletionIndex GIVE_POTION_COMPLETIONS = new CompletionIndex(
+        Stream.concat(Stream.of("random"), POTION_NAME_TO_EFFECT_KEY.keySet().stream()).collect(Collectors.toList()));
+    
+    /**
+     * /masterbrewing subcommands and the permission each needs to be suggested
+     * (null = everyone; "team" is checked against the sender's team permissions).
+     */
+    private static final Map<String, String> SUBCOMMAND_PERMISSIONS = createSubcommandPermissions();
+    
+    /** Subcommand names, sorted for prefix completion */
+    private static final CompletionIndex SUBCOMMAND_COMPLETIONS = new CompletionIndex(SUBCOMMAND_PERMISSIONS.keySet());
+    
+    /** Fixed second-argument choices */
+    private static final CompletionIndex BREW_MATERIAL_COMPLETIONS = new CompletionIndex(List.of("redstone", "glowstone"));
+    private static final CompletionIndex GIVE_TYPE_COMPLETIONS = new CompletionIndex(List.of("stand", "potion"));
+    
+    /** Non-name targets accepted by /masterbrewing give */
+    private static final CompletionIndex GIVE_TARGET_COMPLETIONS = new CompletionIndex(List.of("@a", "@p", "@r", "@s", "group:"));
+    
     /**
      * Set of effect keys that are "instant" effects with no meaningful duration.
      * Instant effects cannot be upgraded with redstone (time/duration upgrades).
@@ -480,49 +830,371 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
     }
     
     /**
-     * Holds the complete upgrade path configuration for a specific potion type.
-     * 
-     * Each UpgradePath contains all the information needed to upgrade a potion:
-     * - timeUpgrades: Map of level -> [redstone cost, duration seconds]
-     * - powerUpgrades: Map of level -> glowstone cost
-     * - maxTimeLevel: Highest available time upgrade for this potion
-     * - maxPowerLevel: Highest available power upgrade for this potion
+     * Effect and starting duration of every vanilla PotionType,
+     * including the long_ and strong_ variants.
+     * Map structure: PotionType -> BaseInfo (types without an effect are absent)
+     * 
+     * OPTIMIZATION: Built once in onEnable() by buildVanillaPotionInfo(). EnumMap
+     * is backed by an array indexed by ordinal, so identifying a first-time potion
+     * is one array load instead of string prefix stripping, an if-chain and a
+     * registry lookup on every upgrade.
+     */
+    private final Map<PotionType, BaseInfo> vanillaPotionInfo = new java.util.EnumMap<>(PotionType.class);
+    
+    /**
+     * Upgrade path of one potion: cost (and duration) of every upgrade level.
      * 
-     * Usage:
      * Potions can have custom upgrade paths defined in config.yml that differ
      * from the global defaults. This allows balancing individual potions:
      * - Fly potions might cost more redstone/glowstone
      * - Speed potions might have more upgrade tiers
      * - Healing potions might only support power upgrades (instant effect)
      * 
-     * The upgrade maps use the same format as global maps, allowing seamless
-     * fallback to defaults when a potion doesn't have custom configuration.
+     * OPTIMIZATION: Stored as primitive arrays indexed by level, so a lookup on
+     * the brewing path is an array read - no hashing, no boxing. Immutable once
+     * built; part of an UpgradeConfig snapshot.
      */
-    private static class UpgradePath {
-        /** Time (duration) upgrades: level -> [redstone cost, duration in seconds] */
-        Map<Integer, int[]> timeUpgrades;
+    private static final class UpgradePath {
+        /** Marks a level missing from the config */
+        static final int NONE = -1;
+        
+        /** Redstone cost of each time level, index = level (NONE = not configured) */
+        private final int[] timeCosts;
+        
+        /** Duration in seconds of each time level, index = level */
+        private final int[] timeDurations;
         
-        /** Power (amplifier) upgrades: level -> glowstone cost */
-        Map<Integer, Integer> powerUpgrades;
+        /** Glowstone cost of each power level, index = level (NONE = not configured) */
+        private final int[] powerCosts;
         
         /** Highest time upgrade level available in this path */
-        int maxTimeLevel;
+        final int maxTimeLevel;
         
         /** Highest power upgrade level available in this path */
-        int maxPowerLevel;
+        final int maxPowerLevel;
+        
+        /** Longest duration of any time level (shown as "Max" in lore) */
+        final int maxDuration;
+        
+        /**
+         * Constructs an UpgradePath from level-indexed arrays.
+         * 
+         * @param timeCosts Redstone cost per time level (index 0 unused)
+         * @param timeDurations Duration per time level
+         * @param powerCosts Glowstone cost per power level (index 0 unused)
+         */
+        UpgradePath(int[] timeCosts, int[] timeDurations, int[] powerCosts) {
+            this.timeCosts = timeCosts;
+            this.timeDurations = timeDurations;
+            this.powerCosts = powerCosts;
+            this.maxTimeLevel = timeCosts.length - 1;
+            this.maxPowerLevel = powerCosts.length - 1;
+            
+            int longest = 0;
+            for (int level = 1; level <= maxTimeLevel; level++) {
+                if (timeCosts[level] != NONE) {
+                    longest = Math.max(longest, timeDurations[level]);
+                }
+            }
+            this.maxDuration = longest;
+        }
+        
+        /**
+         * Builds an UpgradePath from parsed tier tables.
+         * 
+         * @param timeTiers Parsed upgrade-time list
+         * @param powerTiers Parsed upgrade-power list
+         * @return The path
+         */
+        static UpgradePath of(TierTable timeTiers, TierTable powerTiers) {
+            return new UpgradePath(timeTiers.costs, timeTiers.durations, powerTiers.costs);
+        }
+        
+        /** @return true if the time level is configured */
+        boolean hasTimeLevel(int level) {
+            return level >= 1 && level <= maxTimeLevel && timeCosts[level] != NONE;
+        }
+        
+        /** @return true if the power level is configured */
+        boolean hasPowerLevel(int level) {
+            return level >= 1 && level <= maxPowerLevel && powerCosts[level] != NONE;
+        }
+        
+        /** @return Redstone cost of a time level, or NONE */
+        int timeCost(int level) {
+            return hasTimeLevel(level) ? timeCosts[level] : NONE;
+        }
+        
+        /** @return Duration in seconds of a configured time level */
+        int duration(int level) {
+            return timeDurations[level];
+        }
+        
+        /** @return Glowstone cost of a power level, or NONE */
+        int powerCost(int level) {
+            return hasPowerLevel(level) ? powerCosts[level] : NONE;
+        }
+        
+        /** @return Number of configured time levels */
+        int timeLevelCount() {
+            int count = 0;
+            for (int level = 1; level <= maxTimeLevel; level++) {
+                if (timeCosts[level] != NONE) count++;
+            }
+            return count;
+        }
+        
+        /** @return Number of configured power levels */
+        int powerLevelCount() {
+            int count = 0;
+            for (int level = 1; level <= maxPowerLevel; level++) {
+                if (powerCosts[level] != NONE) count++;
+            }
+            return count;
+        }
+    }
+    
+    /**
+     * One parsed upgrade-time or upgrade-power list, as level-indexed arrays.
+     * 
+     * Filled straight from the config lines by parseTiers() - explicit lines
+     * and generator lines write into the same arrays, with no intermediate
+     * maps or boxed values. Shared by UpgradePaths; never modified once built.
+     */
+    private static final class TierTable {
+        /** A list with no levels */
+        static final TierTable EMPTY = new TierTable(new int[]{UpgradePath.NONE}, new int[1]);
+        
+        /** Cost of each level, index = level (UpgradePath.NONE = not configured) */
+        final int[] costs;
+        
+        /** Duration in seconds of each level (all 0 for upgrade-power) */
+        final int[] durations;
+        
+        TierTable(int[] costs, int[] durations) {
+            this.costs = costs;
+            this.durations = durations;
+        }
+    }
+    
+    /**
+     * Compiler for tier generator expressions such as "2^level" or
+     * "20 + 5*(level-10)".
+     * 
+     * Supports + - * / ^ (right-associative), parentheses, unary minus,
+     * decimal numbers and the variable "level". The text is parsed once into a
+     * tree of lambdas, which parseTiers() then evaluates for each level of the
+     * generator's range.
+     */
+    private static final class TierExpression {
+        /** Expression text being parsed */
+        private final String text;
+        
+        /** Index of the next unread character */
+        private int pos;
+        
+        private TierExpression(String text) {
+            this.text = text;
+        }
+        
+        /**
+         * Compiles an expression.
+         * 
+         * @param text The expression
+         * @return Function of the level
+         * @throws IllegalArgumentException if the expression is malformed
+         */
+        static java.util.function.DoubleUnaryOperator compile(String text) {
+            TierExpression parser = new TierExpression(text);
+            java.util.function.DoubleUnaryOperator expression = parser.parseSum();
+            parser.skipSpaces();
+            if (parser.pos < text.length()) {
+                throw parser.error("unexpected '" + text.charAt(parser.pos) + "'");
+            }
+            return expression;
+        }
+        
+        /** sum := product (('+' | '-') product)* */
+        private java.util.function.DoubleUnaryOperator parseSum() {
+            java.util.function.DoubleUnaryOperator left = parseProduct();
+            while (true) {
+                java.util.function.DoubleUnaryOperator a = left;
+                if (accept('+')) {
+                    java.util.function.DoubleUnaryOperator b = parseProduct();
+                    left = level -> a.applyAsDouble(level) + b.applyAsDouble(level);
+                } else if (accept('-')) {
+                    java.util.function.DoubleUnaryOperator b = parseProduct();
+                    left = level -> a.applyAsDouble(level) - b.applyAsDouble(level);
+                } else {
+                    return left;
+                }
+            }
+        }
+        
+        /** product := unary (('*' | '/') unary)* */
+        private java.util.function.DoubleUnaryOperator parseProduct() {
+            java.util.function.DoubleUnaryOperator left = parseUnary();
+            while (true) {
+                java.util.function.DoubleUnaryOperator a = left;
+                if (accept('*')) {
+                    java.util.function.DoubleUnaryOperator b = parseUnary();
+                    left = level -> a.applyAsDouble(level) * b.applyAsDouble(level);
+                } else if (accept('/')) {
+                    java.util.function.DoubleUnaryOperator b = parseUnary();
+                    left = level -> a.applyAsDouble(level) / b.applyAsDouble(level);
+                } else {
+                    return left;
+                }
+            }
+        }
+        
+        /** unary := '-' unary | power (so -2^2 is -4) */
+        private java.util.function.DoubleUnaryOperator parseUnary() {
+            if (accept('-')) {
+                java.util.function.DoubleUnaryOperator operand = parseUnary();
+                return level -> -operand.applyAsDouble(level);
+            }
+            return parsePower();
+        }
+        
+        /** power := primary ('^' unary)? */
+        private java.util.function.DoubleUnaryOperator parsePower() {
+            java.util.function.DoubleUnaryOperator base = parsePrimary();
+            if (accept('^')) {
+                java.util.function.DoubleUnaryOperator exponent = parseUnary();
+                return level -> Math.pow(base.applyAsDouble(level), exponent.applyAsDouble(level));
+            }
+            return base;
+        }
+        
+        /** primary := number | 'level' | '(' sum ')' */
+        private java.util.function.DoubleUnaryOperator parsePrimary() {
+            skipSpaces();
+            if (accept('(')) {
+                java.util.function.DoubleUnaryOperator inner = parseSum();
+                if (!accept(')')) {
+                    throw error("missing ')'");
+                }
+                return inner;
+            }
+            if (text.startsWith("level", pos)) {
+                pos += "level".length();
+                return level -> level;
+            }
+            
+            int start = pos;
+            while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error(pos < text.length() ? "unexpected '" + text.charAt(pos) + "'" : "unexpected end");
+            }
+            double value;
+            try {
+                value = Double.parseDouble(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("bad number '" + text.substring(start, pos) + "'");
+            }
+            return level -> value;
+        }
+        
+        /** Consumes the next non-space character if it is the given one */
+        private boolean accept(char c) {
+            skipSpaces();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+        
+        private void skipSpaces() {
+            while (pos < text.length() && text.charAt(pos) == ' ') {
+                pos++;
+            }
+        }
+        
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("bad expression '" + text + "': " + message);
+        }
+    }
+    
+    /**
+     * Everything parsed from config.yml, as one immutable snapshot.
+     * 
+     * Built off the main thread by parseUpgradeConfig() and published by
+     * applyUpgradeConfig() with a single volatile write, so a brew landing
+     * during /masterbrewing reload sees the complete old tables or the
+     * complete new ones - never an empty or half-filled table.
+     */
+    private static final class UpgradeConfig {
+        /** Global default path (config: upgrade-time / upgrade-power) */
+        final UpgradePath defaults;
+        
+        /** Per-potion overrides: effect key -> path */
+        final Map<String, UpgradePath> overrides;
+        
+        /** Prefix-summed costs of every known effect, for the upgrade planner */
+        final Map<String, UpgradeCostTable> costTables;
+        
+        /** Weighted loot table for random Master Potions */
+        final LootTable lootTable;
+        
+        /** Settings copied to their fields by applyUpgradeConfig() */
+        final int virtualBrewTimeTicks;
+        final int standUpgradeCooldownTicks;
+        final Map<Integer, Integer> standTierBrewTimes;
+        final long batchTickBudgetNanos;
+        final int[] playerBrewLimit;
+        final int[] globalBrewLimit;
+        final boolean watchConfig;
+        
+        /** Entries that were invalid and skipped while parsing (empty if none) */
+        final List<String> problems;
+        
+        /**
+         * Constructs an UpgradeConfig.
+         * 
+         * @param defaults Global default path
+         * @param overrides Per-potion overrides (unmodifiable)
+         * @param costTables Cost tables of every known effect
+         * @param lootTable Compiled loot table
+         * @param virtualBrewTimeTicks virtual-brew-time
+         * @param standUpgradeCooldownTicks stand-upgrade-cooldown
+         * @param standTierBrewTimes stand-tiers (unmodifiable)
+         * @param batchTickBudgetNanos batch-tick-budget in nanoseconds
+         * @param playerBrewLimit virtual-brew-player-limit {rate, burst}
+         * @param globalBrewLimit virtual-brew-global-limit {rate, burst}
+         * @param watchConfig watch-config
+         * @param problems Invalid entries skipped while parsing (unmodifiable)
+         */
+        UpgradeConfig(UpgradePath defaults, Map<String, UpgradePath> overrides, Map<String, UpgradeCostTable> costTables,
+                      LootTable lootTable, int virtualBrewTimeTicks, int standUpgradeCooldownTicks,
+                      Map<Integer, Integer> standTierBrewTimes, long batchTickBudgetNanos,
+                      int[] playerBrewLimit, int[] globalBrewLimit, boolean watchConfig, List<String> problems) {
+            this.defaults = defaults;
+            this.overrides = overrides;
+            this.costTables = costTables;
+            this.lootTable = lootTable;
+            this.virtualBrewTimeTicks = virtualBrewTimeTicks;
+            this.standUpgradeCooldownTicks = standUpgradeCooldownTicks;
+            this.standTierBrewTimes = standTierBrewTimes;
+            this.batchTickBudgetNanos = batchTickBudgetNanos;
+            this.playerBrewLimit = playerBrewLimit;
+            this.globalBrewLimit = globalBrewLimit;
+            this.watchConfig = watchConfig;
+            this.problems = problems;
+        }
         
         /**
-         * Constructs an UpgradePath and automatically calculates max levels.
+         * Resolves a potion's upgrade path: its override, or the global defaults.
          * 
-         * @param timeUpgrades Map of time upgrade level -> [cost, duration]
-         * @param powerUpgrades Map of power upgrade level -> cost
+         * @param effectKey The effect identifier (e.g., "speed", "fly")
+         * @return The path
          */
-        UpgradePath(Map<Integer, int[]> timeUpgrades, Map<Integer, Integer> powerUpgrades) {
-            this.timeUpgrades = timeUpgrades;
-            this.powerUpgrades = powerUpgrades;
-            // Calculate max levels by finding highest key in each map
-            this.maxTimeLevel = timeUpgrades.isEmpty() ? 0 : Collections.max(timeUpgrades.keySet());
-            this.maxPowerLevel = powerUpgrades.isEmpty() ? 0 : Collections.max(powerUpgrades.keySet());
+        UpgradePath path(String effectKey) {
+            UpgradePath path = overrides.get(effectKey);
+            return (path != null) ? path : defaults;
         }
     }
     
@@ -554,6 +1226,12 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         /** System time in milliseconds when this effect should expire */
         long expiryTime;
         
+        /**
+         * Vanilla effect this applies (fortune -> LUCK), resolved once.
+         * null for fly (no vanilla effect) or an unknown key.
+         */
+        final PotionEffectType effectType;
+        
         /**
          * Constructs an ActiveMasterEffect with all required tracking data.
          * 
@@ -565,15 +1243,675 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             this.effectTypeKey = effectTypeKey;
             this.amplifier = amplifier;
             this.expiryTime = expiryTime;
+            
+            String mappedEffectKey = effectTypeKey.equals("fortune") ? "luck" : effectTypeKey;
+            this.effectType = effectTypeKey.equals("fly") ? null
+                : PotionEffectType.getByKey(org.bukkit.NamespacedKey.minecraft(mappedEffectKey));
         }
     }
     
     /**
-     * PLUGIN LIFECYCLE: Called when the plugin is enabled (server startup or /reload)
-     * 
-     * This method initializes all plugin systems in a specific order:
-     * 1. Display startup messages (branding)
-     * 2. Initialize NBT keys (required before any NBT operations)
+     * A cached /effects render (see effectsRenderCache).
+     */
+    private static class EffectsRender {
+        /** Epoch second the render was built in */
+        final long second;
+        
+        /** Complete /effects output as one component */
+        final Component component;
+        
+        /**
+         * Constructs an EffectsRender.
+         * 
+         * @param second Epoch second the render was built in
+         * @param component Complete /effects output
+         */
+        EffectsRender(long second, Component component) {
+            this.second = second;
+            this.component = component;
+        }
+    }
+    
+    /**
+     * One of a player's virtual Master Brewing Stands held in memory for the session.
+     * 
+     * Fuel is consumed during brewing (1 charge per brew operation).
+     * One blaze powder provides 20 fuel charges (same as vanilla).
+     * 
+     * The dirty flag is set whenever contents or fuel may have changed (any
+     * click/drag in the GUI, any completed upgrade) and cleared once the
+     * stand has been written to its data file.
+     */
+    private static class VirtualStand {
+        /** UUID of the owning player (a fixed per-team UUID for team stands) */
+        final UUID owner;
+        
+        /** Stand number (1-based, 0 for team stands) */
+        final int index;
+        
+        /** Team name for shared team stands, null for personal stands */
+        final String team;
+        
+        /** Brewing inventory reused for every open this session */
+        final org.bukkit.inventory.Inventory inventory;
+        
+        /** Remaining fuel charges (0-20) */
+        int fuel;
+        
+        /** true if changed since last save */
+        boolean dirty;
+        
+        /** In-progress timed brew, or null if idle */
+        BrewJob activeJob;
+        
+        /** Ticks left of a brew saved mid-cycle, resumed by the next startTimedBrew() (0 = none) */
+        int resumeBrewTicks;
+        
+        /** true if loaded from the old slot0..slot4 fields of the player file */
+        boolean legacy;
+        
+        /** true while opened above the owner's stand limit: items can be taken out, not put in */
+        boolean withdrawOnly;
+        
+        /**
+         * Constructs a VirtualStand around an already populated inventory.
+         * 
+         * @param owner UUID of the owning player
+         * @param index Stand number (1-based)
+         * @param team Team name, or null for a personal stand
+         * @param inventory The brewing inventory
+         * @param fuel Remaining fuel charges
+         */
+        VirtualStand(UUID owner, int index, String team, org.bukkit.inventory.Inventory inventory, int fuel) {
+            this.owner = owner;
+            this.index = index;
+            this.team = team;
+            this.inventory = inventory;
+            this.fuel = fuel;
+        }
+    }
+    
+    /**
+     * One in-progress timed brewing cycle of a virtual stand.
+     * 
+     * Materials are checked when the job starts and consumed when it completes
+     * (the stand is re-validated then, so removing the ingredient mid-brew
+     * simply cancels the cycle).
+     */
+    private static class BrewJob {
+        /** UUID of the stand owner */
+        final UUID owner;
+        
+        /** The stand being brewed */
+        final VirtualStand stand;
+        
+        /** virtualBrewClock value when the cycle started */
+        final long startTick;
+        
+        /** virtualBrewClock value when the cycle completes */
+        final long dueTick;
+        
+        /**
+         * Constructs a BrewJob.
+         * 
+         * @param owner UUID of the stand owner
+         * @param stand The stand being brewed
+         * @param startTick Start tick on the brew clock
+         * @param dueTick Completion tick on the brew clock
+         */
+        BrewJob(UUID owner, VirtualStand stand, long startTick, long dueTick) {
+            this.owner = owner;
+            this.stand = stand;
+            this.startTick = startTick;
+            this.dueTick = dueTick;
+        }
+    }
+    
+    /**
+     * Decoded upgrade state of a single potion.
+     * 
+     * OPTIMIZATION: A potion's PDC is read once into this object, upgrades are
+     * then simulated on plain ints, and the result is written back with a single
+     * meta write by applyMasterPotionState(). This avoids a getItemMeta() /
+     * setItemMeta() round trip for every level gained.
+     */
+    private static class MasterPotionState {
+        /** Effect identifier string (e.g., "speed", "fly", "fortune") */
+        final String effectTypeKey;
+        
+        /** Current duration upgrade level */
+        int timeLevel;
+        
+        /** Current power upgrade level (amplifier) */
+        int powerLevel;
+        
+        /** Current duration in seconds */
+        int duration;
+        
+        /** Number of levels gained since this state was read */
+        int levelsGained;
+        
+        /**
+         * Constructs a MasterPotionState from decoded potion data.
+         * 
+         * @param effectTypeKey The effect identifier
+         * @param timeLevel Current duration upgrade level
+         * @param powerLevel Current power upgrade level
+         * @param duration Current duration in seconds
+         */
+        MasterPotionState(String effectTypeKey, int timeLevel, int powerLevel, int duration) {
+            this.effectTypeKey = effectTypeKey;
+            this.timeLevel = timeLevel;
+            this.powerLevel = powerLevel;
+            this.duration = duration;
+        }
+    }
+    
+    /**
+     * Cumulative material costs of one potion's upgrade path.
+     * 
+     * timeCostPrefix[n] = total redstone to go from time level 0 to n,
+     * powerCostPrefix[n] = total glowstone to go from power level 0 to n.
+     * The cost between any two levels is one subtraction.
+     * 
+     * Arrays only cover levels that can actually be brewed: they stop at the
+     * first level missing from the config (or with a non-positive cost), and
+     * instant effects have no time levels. Immutable once built.
+     */
+    private static class UpgradeCostTable {
+        /** Cumulative redstone cost, index = time level */
+        final int[] timeCostPrefix;
+        
+        /** Cumulative glowstone cost, index = power level */
+        final int[] powerCostPrefix;
+        
+        /**
+         * Constructs an UpgradeCostTable from prebuilt prefix arrays.
+         * 
+         * @param timeCostPrefix Cumulative redstone cost per time level
+         * @param powerCostPrefix Cumulative glowstone cost per power level
+         */
+        UpgradeCostTable(int[] timeCostPrefix, int[] powerCostPrefix) {
+            this.timeCostPrefix = timeCostPrefix;
+            this.powerCostPrefix = powerCostPrefix;
+        }
+        
+        /** @return Highest time level reachable by brewing */
+        int maxTimeLevel() {
+            return timeCostPrefix.length - 1;
+        }
+        
+        /** @return Highest power level reachable by brewing */
+        int maxPowerLevel() {
+            return powerCostPrefix.length - 1;
+        }
+    }
+    
+    /**
+     * What it takes to brew a potion from one (time, power) level pair to another.
+     * Returned by planUpgradeRoute(); immutable and safe to cache or share.
+     */
+    public static final class UpgradeRoute {
+        /** Redstone dust needed for the time upgrades */
+        public final int redstone;
+        
+        /** Glowstone dust needed for the power upgrades */
+        public final int glowstone;
+        
+        /** Brew cycles needed (one per level gained) */
+        public final int brewCycles;
+        
+        /** Fuel charges burned (one per brew cycle) */
+        public final int fuelCharges;
+        
+        /** Blaze powder needed to supply those charges from an empty tank (20 charges each) */
+        public final int blazePowder;
+        
+        /**
+         * Constructs an UpgradeRoute.
+         * 
+         * @param redstone Redstone dust needed
+         * @param glowstone Glowstone dust needed
+         * @param brewCycles Brew cycles needed
+         */
+        UpgradeRoute(int redstone, int glowstone, int brewCycles) {
+            this.redstone = redstone;
+            this.glowstone = glowstone;
+            this.brewCycles = brewCycles;
+            this.fuelCharges = brewCycles;
+            this.blazePowder = (brewCycles + 19) / 20;
+        }
+    }
+    
+    /**
+     * One draw from the loot table: a potion and its levels.
+     * Returned by rollLootPotion(); immutable and safe to pass between threads.
+     */
+    public static final class LootRoll {
+        /** Potion name as used in commands (e.g., "speed", "healing") */
+        public final String potion;
+        
+        /** Effect key stored on the potion (e.g., "speed", "instant_health") */
+        public final String effectKey;
+        
+        /** Rolled time and power levels */
+        public final int timeLevel;
+        public final int powerLevel;
+        
+        /**
+         * Constructs a LootRoll.
+         * 
+         * @param potion Potion name
+         * @param effectKey Effect key
+         * @param timeLevel Time level
+         * @param powerLevel Power level
+         */
+        LootRoll(String potion, String effectKey, int timeLevel, int powerLevel) {
+            this.potion = potion;
+            this.effectKey = effectKey;
+            this.timeLevel = timeLevel;
+            this.powerLevel = powerLevel;
+        }
+    }
+    
+    /**
+     * Weighted loot table for random Master Potions, compiled for O(1) draws.
+     * 
+     * Each entry is a potion with a time and power level range and a weight.
+     * OPTIMIZATION: Weights are compiled with Vose's alias method: a draw picks
+     * a column uniformly, keeps it with probability prob[column] and otherwise
+     * takes alias[column]. That is two random numbers and no search, however
+     * many entries there are. Levels are then drawn uniformly within the
+     * entry's ranges.
+     * 
+     * Immutable, and draws use ThreadLocalRandom, so any thread can roll;
+     * reloads swap in a new instance.
+     */
+    private static final class LootTable {
+        /** Potion name and effect key of each entry */
+        final String[] potions;
+        final String[] effectKeys;
+        
+        /** Level ranges of each entry: {minTime, maxTime, minPower, maxPower} */
+        final int[][] ranges;
+        
+        /** Chance of each entry (weight / total weight), for display */
+        final double[] chances;
+        
+        /** Alias method columns */
+        final double[] prob;
+        final int[] alias;
+        
+        /**
+         * Compiles a LootTable.
+         * 
+         * @param potions Potion name of each entry
+         * @param effectKeys Effect key of each entry
+         * @param ranges Level ranges of each entry
+         * @param weights Positive weight of each entry
+         */
+        LootTable(String[] potions, String[] effectKeys, int[][] ranges, double[] weights) {
+            int n = weights.length;
+            this.potions = potions;
+            this.effectKeys = effectKeys;
+            this.ranges = ranges;
+            this.chances = new double[n];
+            this.prob = new double[n];
+            this.alias = new int[n];
+            
+            double total = 0;
+            for (double weight : weights) {
+                total += weight;
+            }
+            
+            // Scale weights so the average column holds exactly 1.0
+            double[] scaled = new double[n];
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int i = 0; i < n; i++) {
+                chances[i] = weights[i] / total;
+                scaled[i] = chances[i] * n;
+                if (scaled[i] < 1.0) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+            
+            // Fill each under-full column with the remainder of an over-full one
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+                prob[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+                if (scaled[more] < 1.0) {
+                    small[smallCount++] = more;
+                } else {
+                    large[largeCount++] = more;
+                }
+            }
+            
+            // Whatever is left is full up to rounding error
+            while (largeCount > 0) {
+                prob[large[--largeCount]] = 1.0;
+            }
+            while (smallCount > 0) {
+                prob[small[--smallCount]] = 1.0;
+            }
+        }
+        
+        /** @return Number of entries */
+        int size() {
+            return prob.length;
+        }
+        
+        /**
+         * Draws one potion and its levels.
+         * 
+         * @return The roll (the table must not be empty)
+         */
+        LootRoll roll() {
+            java.util.concurrent.ThreadLocalRandom random = java.util.concurrent.ThreadLocalRandom.current();
+            int column = random.nextInt(prob.length);
+            int entry = (random.nextDouble() < prob[column]) ? column : alias[column];
+            int[] range = ranges[entry];
+            return new LootRoll(potions[entry], effectKeys[entry],
+                random.nextInt(range[0], range[1] + 1), random.nextInt(range[2], range[3] + 1));
+        }
+    }
+    
+    /**
+     * Token bucket used to rate limit virtual brewing.
+     * 
+     * Tokens refill continuously at a fixed rate up to a burst capacity; the
+     * refill is computed lazily from elapsed time when the bucket is read, so
+     * idle buckets cost nothing.
+     */
+    private static class TokenBucket {
+        /** Tokens currently available (fractional between refills) */
+        double tokens;
+        
+        /** System.nanoTime() of the last refill */
+        long lastRefill;
+        
+        /**
+         * Constructs a TokenBucket.
+         * 
+         * @param tokens Initial tokens (usually the burst capacity)
+         */
+        TokenBucket(double tokens) {
+            this.tokens = tokens;
+            this.lastRefill = System.nanoTime();
+        }
+        
+        /**
+         * Refills the bucket for the time elapsed since the last call.
+         * 
+         * @param rate Tokens per second
+         * @param burst Maximum tokens held
+         * @return Whole tokens now available
+         */
+        int refill(double rate, int burst) {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefill) * rate / 1_000_000_000.0);
+            lastRefill = now;
+            return (int) tokens;
+        }
+        
+        /**
+         * Moves the bucket to a new limit without handing out extra tokens.
+         * 
+         * Time elapsed so far is credited at the old rate, then the tokens are
+         * capped at the new burst.
+         * 
+         * @param oldRate Tokens per second until now (0 = was unlimited)
+         * @param oldBurst Maximum tokens held until now
+         * @param newBurst Maximum tokens held from now on
+         */
+        void retune(double oldRate, int oldBurst, int newBurst) {
+            if (oldRate > 0) {
+                refill(oldRate, oldBurst);
+            } else {
+                tokens = newBurst;
+                lastRefill = System.nanoTime();
+            }
+            tokens = Math.min(tokens, newBurst);
+        }
+    }
+    
+    /**
+     * A long-running main-thread operation split into small steps.
+     * 
+     * step returns true while work remains; onComplete runs once after the
+     * last step (or after a step throws). Executed by runBatchTick().
+     */
+    private static class BatchJob {
+        /** Performs one unit of work; returns false when the job is done */
+        final java.util.function.BooleanSupplier step;
+        
+        /** Called once when the job has finished */
+        final Runnable onComplete;
+        
+        /**
+         * Constructs a BatchJob.
+         * 
+         * @param step One unit of work, returning false when finished
+         * @param onComplete Completion callback
+         */
+        BatchJob(java.util.function.BooleanSupplier step, Runnable onComplete) {
+            this.step = step;
+            this.onComplete = onComplete;
+        }
+    }
+    
+    /**
+     * Potions of one /masterbrewing upgrade batch that end up identical.
+     * 
+     * Members are isSimilar() to each other (same material and full meta,
+     * including display name and lore) and share target levels, so the
+     * upgraded item (template) is rendered once and cloned for every slot.
+     */
+    private static class UpgradeGroup {
+        /** Target state shared by all members */
+        final MasterPotionState target;
+        
+        /** First member, used to test whether another potion belongs here */
+        final ItemStack source;
+        
+        /** Inventory slots holding members of this group */
+        final List<Integer> slots = new ArrayList<>();
+        
+        /** Rendered upgraded item, built from the first member on first write */
+        ItemStack template;
+        
+        /**
+         * Constructs an UpgradeGroup.
+         * 
+         * @param target Target state of the group's potions
+         * @param source First member of the group
+         */
+        UpgradeGroup(MasterPotionState target, ItemStack source) {
+            this.target = target;
+            this.source = source;
+        }
+    }
+    
+    /**
+     * Progress of one /masterbrewing upgrade batch over an inventory.
+     * 
+     * Phase 1 decodes one slot per step and sorts eligible potions into groups.
+     * Phase 2 writes one slot per step from its group's template.
+     */
+    private static class InventoryUpgradeJob {
+        /** Inventory being upgraded */
+        final org.bukkit.inventory.Inventory inventory;
+        
+        /** Player whose inventory this is (null for containers) */
+        final Player owner;
+        
+        /** Who started the batch (receives the summary) */
+        final CommandSender sender;
+        
+        /** Requested time and power levels (capped per potion) */
+        final int targetTime;
+        final int targetPower;
+        
+        /** Snapshot of the contents taken when the batch started */
+        final ItemStack[] contents;
+        
+        /** Copy of each eligible potion, used to detect slots changed mid-batch */
+        final ItemStack[] sources;
+        
+        /** All groups, in the order they were found */
+        final List<UpgradeGroup> groups = new ArrayList<>();
+        
+        /**
+         * Groups bucketed by "material:effect:srcTime:srcPower:srcDuration:time:power".
+         * Items in one bucket can still differ in name or lore, so a bucket may
+         * hold several groups and membership is decided with isSimilar().
+         */
+        final Map<String, List<UpgradeGroup>> buckets = new HashMap<>();
+        
+        /** Next slot to decode (phase 1) */
+        int decodeIndex;
+        
+        /** Group iterator and position within the current group (phase 2) */
+        java.util.Iterator<UpgradeGroup> groupIterator;
+        UpgradeGroup currentGroup;
+        int groupSlotIndex;
+        
+        /** Result counters */
+        int upgraded;
+        int skipped;
+        
+        /**
+         * Constructs an InventoryUpgradeJob and snapshots the inventory.
+         * 
+         * @param inventory Inventory to upgrade
+         * @param owner Owning player, or null for containers
+         * @param sender Command sender to report to
+         * @param targetTime Requested time level
+         * @param targetPower Requested power level
+         */
+        InventoryUpgradeJob(org.bukkit.inventory.Inventory inventory, Player owner, CommandSender sender, int targetTime, int targetPower) {
+            this.inventory = inventory;
+            this.owner = owner;
+            this.sender = sender;
+            this.targetTime = targetTime;
+            this.targetPower = targetPower;
+            this.contents = inventory.getContents();
+            this.sources = new ItemStack[contents.length];
+        }
+    }
+    
+    /**
+     * Progress of one /masterbrewing give over its recipients.
+     * 
+     * The item is built once; each step gives one recipient a clone of it.
+     * Recipients are held by UUID so players who leave mid-batch are skipped.
+     */
+    private static class GiveJob {
+        /** Who ran the give (receives the summary) */
+        final CommandSender sender;
+        
+        /** Recipients in delivery order */
+        final List<UUID> recipients;
+        
+        /** Name of the first recipient, for the single-player summary */
+        final String recipientName;
+        
+        /** The item to give, with the per-player amount set */
+        final ItemStack item;
+        
+        /** Item description for the summary, and the message each recipient gets */
+        final Component description;
+        final Component received;
+        
+        /** Next recipient to serve */
+        int nextIndex;
+        
+        /** Result counters */
+        int delivered;
+        int skipped;
+        
+        /**
+         * Constructs a GiveJob.
+         * 
+         * @param sender Command sender to report to
+         * @param targets Players to receive the item (at least one)
+         * @param item The item to give
+         * @param description Item description for the summary
+         * @param received Message sent to each recipient
+         */
+        GiveJob(CommandSender sender, List<Player> targets, ItemStack item, Component description, Component received) {
+            this.sender = sender;
+            this.recipients = new ArrayList<>(targets.size());
+            for (Player target : targets) {
+                recipients.add(target.getUniqueId());
+            }
+            this.recipientName = targets.get(0).getName();
+            this.item = item;
+            this.description = description;
+            this.received = received;
+        }
+    }
+    
+    /**
+     * Precomputed facts about one vanilla PotionType (see vanillaPotionInfo).
+     * Immutable; built once at enable time.
+     */
+    private static class BaseInfo {
+        /** The potion's effect */
+        final PotionEffectType effectType;
+        
+        /** Effect identifier string as stored in potion_effect_type (e.g., "speed") */
+        final String effectKey;
+        
+        /** Starting duration in seconds used when the potion is first upgraded */
+        final int duration;
+        
+        /**
+         * Constructs a BaseInfo entry.
+         * 
+         * @param effectType The potion's effect
+         * @param duration Starting duration in seconds
+         */
+        BaseInfo(PotionEffectType effectType, int duration) {
+            this.effectType = effectType;
+            this.effectKey = effectType.getKey().getKey();
+            this.duration = duration;
+        }
+    }
+    
+    /**
+     * Result of planning a batch of upgrades with planUpgrades().
+     * 
+     * Describes what the batch consumes so the caller can adjust the ingredient
+     * stack, blaze powder stack and stored fuel charges in one step.
+     */
+    private static class UpgradePlan {
+        /** Number of upgrade cycles performed (each upgrades all eligible potions by one level) */
+        int levels;
+        
+        /** Total redstone/glowstone consumed */
+        int materialUsed;
+        
+        /** Blaze powder items consumed to refill fuel */
+        int blazePowderUsed;
+        
+        /** Fuel charges left after the batch */
+        int fuelRemaining;
+    }
+    
+    /**
+     * PLUGIN LIFECYCLE: Called when the plugin is enabled (server startup or /reload)
+     * 
+     * This method initializes all plugin systems in a specific order:
+     * 1. Display startup messages (branding)
+     * 2. Initialize NBT keys (required before any NBT operations)
      * 3. Load configuration from config.yml
      * 4. Register event listeners and command handlers
      * 5. Start background tasks
@@ -616,6 +1954,9 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         brewingSlot3Key = new NamespacedKey(this, "brewing_slot_3");  // Ingredient slot (top center)
         brewingSlot4Key = new NamespacedKey(this, "brewing_slot_4");  // Fuel slot (blaze powder)
         brewingFuelLevelKey = new NamespacedKey(this, "brewing_fuel_level");  // Remaining fuel charges
+        bulkBrewingKey = new NamespacedKey(this, "bulk_brewing");             // Brew-to-exhaustion mode
+        lastStandUpgradeKey = new NamespacedKey(this, "last_upgrade_time");   // Game time of last stand upgrade
+        quickBrewFuelKey = new NamespacedKey(this, "quick_brew_fuel");        // Player's leftover quick-brew fuel
         
         // ===== STEP 3: Load configuration =====
         // saveDefaultConfig() creates config.yml from the plugin jar if it doesn't exist
@@ -626,6 +1967,10 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         // This must happen before any brewing events can be processed
         loadUpgradeTiers();
         
+        // Vanilla potion lookup table - needed before any potion is upgraded
+        buildVanillaPotionInfo();
+        rebuildPlayerNameCompletions(null);
+        
         // ===== STEP 4: Register event listeners and commands =====
         // Event listeners allow us to react to player actions (brewing, clicking, etc.)
         getServer().getPluginManager().registerEvents(this, this);
@@ -639,16 +1984,33 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         getCommand("effects").setExecutor(this);
         getCommand("effects").setTabCompleter(this);
         
+        // Single I/O thread for playerdata reads/writes (keeps them ordered)
+        ioExecutor = java.util.concurrent.Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MasterBrewing-IO");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
         // ===== STEP 5: Start background tasks =====
         // This task runs continuously to refresh active potion effects on players
         // Required because our effects bypass vanilla potion duration limits
         startMasterPotionEffectTask();
         
+        // Periodically writes back virtual stands that changed since their last save
+        startVirtualStandAutosaveTask();
+        
+        // Single scheduler driving every timed virtual brew
+        startVirtualBrewScheduler();
+        
+        // Brews interrupted by the last shutdown continue without waiting for their owners
+        resumeInterruptedBrews();
+        
         // ===== STEP 6: Load persistent data for online players =====
         // This handles the case where plugin is reloaded while players are online
         // We need to restore their active effects from disk
         for (Player player : Bukkit.getOnlinePlayers()) {
             loadPlayerEffects(player.getUniqueId());
+            deliverMailbox(player);
         }
         
         // Create playerdata directory for virtual brewing stand data
@@ -677,22 +2039,31 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      */
     @Override
     public void onDisable() {
-        // Save any currently open virtual brewing stands FIRST
-        // This must happen before saving effects to prevent race conditions
-        for (Map.Entry<UUID, org.bukkit.inventory.Inventory> entry : virtualBrewingStands.entrySet()) {
-            UUID playerUUID = entry.getKey();
-            org.bukkit.inventory.Inventory inv = entry.getValue();
-            
-            ItemStack[] contents = new ItemStack[inv.getSize()];
-            for (int i = 0; i < inv.getSize(); i++) {
-                ItemStack item = inv.getItem(i);
-                if (item != null) {
-                    contents[i] = item.clone();
+        stopConfigWatcher();
+        
+        // Let queued I/O finish first so nothing older overwrites the final saves below
+        // (null if onEnable failed before creating it - don't hide that error)
+        if (ioExecutor != null) {
+            ioExecutor.shutdown();
+            try {
+                if (!ioExecutor.awaitTermination(10, java.util.concurrent.TimeUnit.SECONDS)) {
+                    getLogger().warning("Timed out waiting for pending player data writes");
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-            
-            int fuelLevel = virtualBrewingFuel.getOrDefault(playerUUID, 0);
-            savePlayerBrewingData(playerUUID, contents, fuelLevel);
+        }
+        
+        // Save any dirty resident virtual brewing stands FIRST
+        // This must happen before saving effects to prevent race conditions
+        // (runOnIoThread runs inline now that the executor is shut down)
+        for (Map<Integer, VirtualStand> stands : virtualStandCache.values()) {
+            for (VirtualStand stand : stands.values()) {
+                persistVirtualStand(stand);
+            }
+        }
+        for (VirtualStand stand : teamStands.values()) {
+            persistVirtualStand(stand);
         }
         
         // Save all active player effects to disk for persistence
@@ -706,7 +2077,21 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
     }
     
     /**
-     * CONFIGURATION LOADING: Parses config.yml and builds upgrade tier maps
+     * CONFIGURATION LOADING: Parses config.yml into an UpgradeConfig and applies it
+     * 
+     * Used at startup, where the tables must be in place before any event is
+     * handled, so it runs synchronously. /masterbrewing reload uses
+     * reloadUpgradeConfigAsync() instead, and the config watcher
+     * reloadWatchedConfig().
+     */
+    private void loadUpgradeTiers() {
+        appliedConfigGeneration = configGeneration.incrementAndGet();
+        loadedConfigText = readConfigText();
+        applyUpgradeConfig(parseUpgradeConfig(getConfig()));
+    }
+    
+    /**
+     * CONFIGURATION PARSING: Builds an immutable UpgradeConfig from config.yml
      * 
      * This method handles two types of upgrade configurations:
      * 
@@ -732,274 +2117,982 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      *     upgrade-time:
      *       - "1,2,300"  # Cheaper/shorter than default
      * 
-     * The method also calculates maxTimeLevel and maxPowerLevel by finding
-     * the highest level across all configurations (global + per-potion).
+     * Also reads the virtual brewing, stand tier, batch and rate limit settings,
+     * and builds the cost tables and loot table from the parsed paths.
+     * 
+     * OPTIMIZATION: Touches no plugin state - the result is a new object - so it
+     * can run on any thread. /masterbrewing reload parses off the main thread and
+     * only the publish (applyUpgradeConfig) happens on it.
      * 
      * Error Handling:
-     * - Invalid format entries are logged and skipped
-     * - Missing sections result in empty maps (safe defaults)
+     * - Invalid format entries are logged, skipped and listed in the result's
+     *   problems, so callers can refuse a config that is valid YAML but has
+     *   bad data (the config watcher does)
+     * - Missing sections result in empty tables (safe defaults)
      * - Parsing errors don't crash the plugin
+     * 
+     * @param config The configuration to read
+     * @return The parsed configuration
      */
-    private void loadUpgradeTiers() {
-        // Clear existing configurations to prevent stale data on /reload
-        timeUpgrades.clear();
-        powerUpgrades.clear();
-        maxTimeLevel = 0;
-        maxPowerLevel = 0;
-        
-        FileConfiguration config = getConfig();
-        List<String> timeConfigs = config.getStringList("upgrade-time");
-        List<String> powerConfigs = config.getStringList("upgrade-power");
-        
-        // ===== LOAD GLOBAL TIME UPGRADES =====
-        // Format: "level,redstone-cost,duration-seconds"
+    private UpgradeConfig parseUpgradeConfig(org.bukkit.configuration.ConfigurationSection config) {
+        List<String> problems = new ArrayList<>();
+        
+        // ===== LOAD GLOBAL UPGRADES =====
         // These upgrades apply to all potions unless overridden
-        for (String entry : timeConfigs) {
-            try {
-                // Split CSV format: "1,4,600" -> ["1", "4", "600"]
-                String[] parts = entry.split(",");
-                if (parts.length != 3) {
-                    getLogger().warning("Invalid upgrade-time entry: " + entry);
-                    continue;
-                }
-                
-                // Parse each component
-                int level = Integer.parseInt(parts[0].trim());          // Upgrade level (1, 2, 3...)
-                int redstoneCost = Integer.parseInt(parts[1].trim());   // How many redstone dust needed
-                int duration = Integer.parseInt(parts[2].trim());       // Duration in seconds
-                
-                // Store in map: level -> [cost, duration]
-                timeUpgrades.put(level, new int[]{redstoneCost, duration});
-                
-                // Track maximum level across all upgrades
-                maxTimeLevel = Math.max(maxTimeLevel, level);
-            } catch (Exception e) {
-                // Log and skip invalid entries rather than crashing
-                getLogger().warning("Failed to parse upgrade-time entry: " + entry);
+        TierTable defaultTime = parseTiers(getTierEntries(config, "upgrade-time", problems), "upgrade-time", true, problems);
+        TierTable defaultPower = parseTiers(getTierEntries(config, "upgrade-power", problems), "upgrade-power", false, problems);
+        UpgradePath defaults = UpgradePath.of(defaultTime, defaultPower);
+        
+        // ===== LOAD PER-POTION OVERRIDE CONFIGURATIONS =====
+        // This section allows admins to customize costs for specific potion types
+        // For example: speed potions might be cheaper than strength potions
+        Map<String, UpgradePath> overrides = new HashMap<>();
+        for (String key : config.getKeys(false)) {
+            // Check if this key corresponds to a valid potion effect
+            // POTION_NAME_TO_EFFECT_KEY contains all valid potion names
+            if (!POTION_NAME_TO_EFFECT_KEY.containsKey(key)) {
+                continue;  // Not a potion name (a setting such as upgrade-time), skip
+            }
+            
+            // Get the internal effect key (e.g., "speed" -> "speed", "healing" -> "instant_health")
+            String effectKey = POTION_NAME_TO_EFFECT_KEY.get(key);
+            
+            // Custom lists where given, global defaults for the rest
+            boolean customTime = config.contains(key + ".upgrade-time");
+            boolean customPower = config.contains(key + ".upgrade-power");
+            UpgradePath path = UpgradePath.of(
+                customTime ? parseTiers(getTierEntries(config, key + ".upgrade-time", problems), key + ".upgrade-time", true, problems) : defaultTime,
+                customPower ? parseTiers(getTierEntries(config, key + ".upgrade-power", problems), key + ".upgrade-power", false, problems) : defaultPower);
+            
+            // Only store if at least one upgrade type is defined
+            if (path.maxTimeLevel > 0 || path.maxPowerLevel > 0) {
+                overrides.put(effectKey, path);
+                getLogger().info("Loaded custom upgrade path for " + key + " (time levels: " + path.maxTimeLevel + ", power levels: " + path.maxPowerLevel + ")");
             }
         }
         
-        // ===== LOAD GLOBAL POWER UPGRADES =====
-        // Format: "level,glowstone-cost"
-        // These upgrades apply to all potions unless overridden
-        for (String entry : powerConfigs) {
+        // ===== LOAD STAND SPEED TIERS =====
+        // Format: "tier,brew-ticks"
+        Map<Integer, Integer> tierBrewTimes = new TreeMap<>();
+        tierBrewTimes.put(1, VANILLA_BREW_TIME);
+        checkConfigList(config, "stand-tiers", problems);
+        for (String entry : config.getStringList("stand-tiers")) {
             try {
-                // Split CSV format: "1,4" -> ["1", "4"]
                 String[] parts = entry.split(",");
                 if (parts.length != 2) {
-                    getLogger().warning("Invalid upgrade-power entry: " + entry);
+                    configProblem(problems, "Invalid stand-tiers entry: " + entry);
                     continue;
                 }
                 
-                // Parse each component
-                int level = Integer.parseInt(parts[0].trim());         // Upgrade level (1, 2, 3...)
-                int glowstoneCost = Integer.parseInt(parts[1].trim()); // How many glowstone dust needed
+                int tier = Integer.parseInt(parts[0].trim());
+                int brewTicks = Integer.parseInt(parts[1].trim());
                 
-                // Store in map: level -> cost
-                // Power upgrades don't have a duration component (only affects amplifier)
-                powerUpgrades.put(level, glowstoneCost);
+                // Tier is stored in a PDC byte; brew time must be at least 1 tick
+                if (tier < 1 || tier > Byte.MAX_VALUE || brewTicks < 1) {
+                    configProblem(problems, "Invalid stand-tiers entry: " + entry + " (tier 1-127, brew ticks >= 1)");
+                    continue;
+                }
                 
-                // Track maximum level across all upgrades
-                maxPowerLevel = Math.max(maxPowerLevel, level);
+                tierBrewTimes.put(tier, brewTicks);
             } catch (Exception e) {
-                // Log and skip invalid entries rather than crashing
-                getLogger().warning("Failed to parse upgrade-power entry: " + entry);
+                configProblem(problems, "Failed to parse stand-tiers entry: " + entry);
             }
         }
         
-        // ===== LOAD PER-POTION OVERRIDE CONFIGURATIONS =====
-        // This section allows admins to customize costs for specific potion types
-        // For example: speed potions might be cheaper than strength potions
-        potionUpgradePaths.clear();
-        Set<String> configKeys = config.getKeys(false); // Get top-level keys
-        
-        for (String key : configKeys) {
-            // Skip the default upgrade sections (already processed above)
-            if (key.equals("upgrade-time") || key.equals("upgrade-power")) {
-                continue;
-            }
-            
-            // Check if this key corresponds to a valid potion effect
-            // POTION_NAME_TO_EFFECT_KEY contains all valid potion names
-            if (!POTION_NAME_TO_EFFECT_KEY.containsKey(key)) {
-                continue;  // Not a potion name, skip
+        // Every known effect resolves to its override or the defaults
+        Map<String, UpgradePath> paths = new HashMap<>();
+        for (String effectKey : POTION_NAME_TO_EFFECT_KEY.values()) {
+            paths.put(effectKey, overrides.getOrDefault(effectKey, defaults));
+        }
+        
+        checkConfigList(config, "loot-table", problems);
+        LootTable lootTable = compileLootTable(config.getStringList("loot-table"), paths, problems);
+        int[] playerBrewLimit = parseRateLimit(config.getString("virtual-brew-player-limit", "0"), "virtual-brew-player-limit", problems);
+        int[] globalBrewLimit = parseRateLimit(config.getString("virtual-brew-global-limit", "0"), "virtual-brew-global-limit", problems);
+        
+        return new UpgradeConfig(
+            defaults,
+            Collections.unmodifiableMap(overrides),
+            // Cost tables for the upgrade planner
+            buildUpgradeCostTables(paths),
+            // Format: "potion,weight[,time-levels,power-levels]" (validated against the paths above)
+            lootTable,
+            // Ticks per virtual brewing cycle (0 = instant)
+            Math.max(0, config.getInt("virtual-brew-time", 0)),
+            // Minimum ticks between upgrades of one physical stand (0 = unlimited)
+            Math.max(0, config.getInt("stand-upgrade-cooldown", 0)),
+            Collections.unmodifiableMap(tierBrewTimes),
+            // Milliseconds per tick for batch operations (at least 1)
+            Math.max(1, config.getInt("batch-tick-budget", 2)) * 1_000_000L,
+            // Format: "upgrades-per-second,burst" (0 = unlimited)
+            playerBrewLimit,
+            globalBrewLimit,
+            // Reload automatically when config.yml changes on disk
+            config.getBoolean("watch-config", false),
+            Collections.unmodifiableList(problems));
+    }
+    
+    /**
+     * Logs an invalid config entry and records it in the parse's problem list.
+     * 
+     * @param problems Problems of the parse in progress
+     * @param message What was wrong (also the console warning)
+     */
+    private void configProblem(List<String> problems, String message) {
+        getLogger().warning(message);
+        problems.add(message);
+    }
+    
+    /**
+     * Records a problem if a config value that must be a list is something else.
+     * 
+     * getList()/getStringList() quietly return an empty list for a scalar such
+     * as "upgrade-time: foo", which would otherwise switch the feature off
+     * without a word.
+     * 
+     * @param config The configuration
+     * @param path Path of the list
+     * @param problems Problems of the parse in progress
+     */
+    private void checkConfigList(org.bukkit.configuration.ConfigurationSection config, String path, List<String> problems) {
+        if (config.contains(path) && !config.isList(path)) {
+            configProblem(problems, "Invalid " + path + ": expected a list, got '" + config.get(path) + "'");
+        }
+    }
+    
+    /**
+     * Names accepted in a tier generator line.
+     */
+    private static final Set<String> TIER_GENERATOR_FIELDS = Set.of("levels", "max", "cost", "duration");
+    
+    /**
+     * Reads an upgrade-time or upgrade-power list.
+     * 
+     * Like getStringList, but a generator written as a YAML flow map
+     * (- {max: 6, cost: 2^level}) is read as a map; it is turned back into
+     * its "name: value" text here instead of being dropped silently. A bare
+     * unquoted line (- max: 6, cost: 2^level) is not valid YAML at all and
+     * fails the whole file, so generators must be quoted or braced.
+     * 
+     * @param config The configuration
+     * @param path Path of the list
+     * @param problems Problems of the parse in progress
+     * @return The lines of the list
+     */
+    private List<String> getTierEntries(org.bukkit.configuration.ConfigurationSection config, String path, List<String> problems) {
+        checkConfigList(config, path, problems);
+        List<String> entries = new ArrayList<>();
+        for (Object element : config.getList(path, Collections.emptyList())) {
+            if (element instanceof Map) {
+                StringJoiner line = new StringJoiner(", ");
+                for (Map.Entry<?, ?> field : ((Map<?, ?>) element).entrySet()) {
+                    line.add(field.getKey() + ": " + field.getValue());
+                }
+                entries.add(line.toString());
+            } else if (element != null) {
+                entries.add(String.valueOf(element));
             }
-            
-            // Get the internal effect key (e.g., "speed" -> "speed", "healing" -> "instant_health")
-            String effectKey = POTION_NAME_TO_EFFECT_KEY.get(key);
-            
-            // ===== Load this potion's custom time upgrades =====
-            Map<Integer, int[]> potionTimeUpgrades = new TreeMap<>();
-            if (config.contains(key + ".upgrade-time")) {
-                // Potion has custom time upgrades defined
-                List<String> potionTimeConfigs = config.getStringList(key + ".upgrade-time");
-                for (String entry : potionTimeConfigs) {
-                    try {
-                        String[] parts = entry.split(",");
-                        if (parts.length != 3) {
-                            getLogger().warning("Invalid " + key + ".upgrade-time entry: " + entry);
-                            continue;
+        }
+        return entries;
+    }
+    
+    /**
+     * Parses an upgrade-time or upgrade-power list into a TierTable.
+     * 
+     * Two kinds of line can be mixed in one list:
+     * - Explicit: "level,redstone-cost,duration-seconds" (upgrade-time) or
+     *   "level,glowstone-cost" (upgrade-power)
+     * - Generator: "levels: 1-6, cost: 2^level" (upgrade-power) or
+     *   "max: 10, cost: 2*level, duration: 360*level" (upgrade-time).
+     *   "max: N" is short for "levels: 1-N"; cost and duration are
+     *   TierExpressions of the level, rounded to whole numbers.
+     * Piecewise paths are several generator lines over different ranges.
+     * 
+     * OPTIMIZATION: Every line is written straight into level-indexed int
+     * arrays - a 64-level generator is one line and one compiled expression
+     * instead of 64 split() calls and 64 boxed map entries.
+     * 
+     * Error Handling:
+     * A line that is malformed, defines a level already defined by an earlier
+     * line, or evaluates to a negative or too large value is logged with the
+     * reason and skipped as a whole; the other lines still load. Generator
+     * costs above MAX_TIER_COST can never be paid from one ingredient slot, so
+     * they are capped at MAX_TIER_COST and the line loads with a warning
+     * (a formula like 2^level easily overshoots). Explicit lines are taken as
+     * written, as they always were.
+     * 
+     * @param entries Lines of the list
+     * @param key Config key for error messages
+     * @param timed true for upgrade-time (lines carry a duration)
+     * @param problems Problems of the parse in progress (skipped lines are added)
+     * @return The parsed levels
+     */
+    private TierTable parseTiers(List<String> entries, String key, boolean timed, List<String> problems) {
+        int[] costs = new int[MAX_UPGRADE_LEVEL + 1];
+        int[] durations = new int[MAX_UPGRADE_LEVEL + 1];
+        String[] definedBy = new String[MAX_UPGRADE_LEVEL + 1];
+        Arrays.fill(costs, UpgradePath.NONE);
+        int highest = 0;
+        
+        for (String entry : entries) {
+            try {
+                int from;
+                int to;
+                boolean generator = entry.indexOf(':') >= 0;
+                java.util.function.DoubleUnaryOperator cost;
+                java.util.function.DoubleUnaryOperator duration;
+                
+                if (!generator) {
+                    // Explicit line - split CSV format: "1,4,600" -> ["1", "4", "600"]
+                    String[] parts = entry.split(",");
+                    if (parts.length != (timed ? 3 : 2)) {
+                        throw new IllegalArgumentException("expected " + (timed ? "level,redstone-cost,duration-seconds" : "level,glowstone-cost"));
+                    }
+                    from = to = Integer.parseInt(parts[0].trim());
+                    int fixedCost = Integer.parseInt(parts[1].trim());
+                    int fixedDuration = timed ? Integer.parseInt(parts[2].trim()) : 0;
+                    cost = level -> fixedCost;
+                    duration = level -> fixedDuration;
+                } else {
+                    // Generator line - "name: value" fields separated by commas
+                    Map<String, String> fields = new HashMap<>();
+                    for (String field : entry.split(",")) {
+                        int colon = field.indexOf(':');
+                        if (colon < 0) {
+                            throw new IllegalArgumentException("expected 'name: value', got '" + field.trim() + "'");
                         }
-                        
-                        int level = Integer.parseInt(parts[0].trim());
-                        int redstoneCost = Integer.parseInt(parts[1].trim());
-                        int duration = Integer.parseInt(parts[2].trim());
-                        
-                        potionTimeUpgrades.put(level, new int[]{redstoneCost, duration});
-                    } catch (Exception e) {
-                        getLogger().warning("Failed to parse " + key + ".upgrade-time entry: " + entry);
+                        String name = field.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+                        if (!TIER_GENERATOR_FIELDS.contains(name) || (!timed && name.equals("duration"))) {
+                            throw new IllegalArgumentException("unknown field '" + name + "'");
+                        }
+                        if (fields.put(name, field.substring(colon + 1).trim()) != null) {
+                            throw new IllegalArgumentException("field '" + name + "' given twice");
+                        }
+                    }
+                    if (fields.containsKey("levels") == fields.containsKey("max")) {
+                        throw new IllegalArgumentException("give either 'levels' or 'max'");
                     }
+                    if (!fields.containsKey("cost") || (timed && !fields.containsKey("duration"))) {
+                        throw new IllegalArgumentException(timed ? "'cost' and 'duration' are required" : "'cost' is required");
+                    }
+                    
+                    int[] range = fields.containsKey("max")
+                        ? new int[]{1, Integer.parseInt(fields.get("max"))}
+                        : parseLevelRange(fields.get("levels"));
+                    from = range[0];
+                    to = range[1];
+                    cost = TierExpression.compile(fields.get("cost"));
+                    duration = timed ? TierExpression.compile(fields.get("duration")) : level -> 0;
                 }
-            } else {
-                // No custom time upgrades - use global defaults
-                potionTimeUpgrades.putAll(timeUpgrades);
-            }
-            
-            // ===== Load this potion's custom power upgrades =====
-            Map<Integer, Integer> potionPowerUpgrades = new TreeMap<>();
-            if (config.contains(key + ".upgrade-power")) {
-                // Potion has custom power upgrades defined
-                List<String> potionPowerConfigs = config.getStringList(key + ".upgrade-power");
-                for (String entry : potionPowerConfigs) {
-                    try {
-                        String[] parts = entry.split(",");
-                        if (parts.length != 2) {
-                            getLogger().warning("Invalid " + key + ".upgrade-power entry: " + entry);
-                            continue;
-                        }
-                        
-                        int level = Integer.parseInt(parts[0].trim());
-                        int glowstoneCost = Integer.parseInt(parts[1].trim());
-                        
-                        potionPowerUpgrades.put(level, glowstoneCost);
-                    } catch (Exception e) {
-                        getLogger().warning("Failed to parse " + key + ".upgrade-power entry: " + entry);
+                
+                if (from < 1 || to > MAX_UPGRADE_LEVEL || from > to) {
+                    throw new IllegalArgumentException("levels must be within 1-" + MAX_UPGRADE_LEVEL);
+                }
+                for (int level = from; level <= to; level++) {
+                    if (definedBy[level] != null) {
+                        throw new IllegalArgumentException("level " + level + " is already defined by \"" + definedBy[level] + "\"");
                     }
                 }
-            } else {
-                // No custom power upgrades - use global defaults
-                potionPowerUpgrades.putAll(powerUpgrades);
+                
+                // Evaluate the whole range before writing, so a bad level skips the line cleanly
+                int[] lineCosts = new int[to - from + 1];
+                int[] lineDurations = new int[to - from + 1];
+                int cappedFrom = 0;
+                for (int level = from; level <= to; level++) {
+                    double levelCost = Math.rint(cost.applyAsDouble(level));
+                    if (generator && levelCost > MAX_TIER_COST) {
+                        cappedFrom = (cappedFrom == 0) ? level : cappedFrom;
+                        lineCosts[level - from] = MAX_TIER_COST;
+                    } else {
+                        lineCosts[level - from] = toTierValue(levelCost, level, "cost");
+                    }
+                    lineDurations[level - from] = evaluateTier(duration, level, "duration");
+                }
+                if (cappedFrom > 0) {
+                    getLogger().warning(key + " entry: " + entry + " costs more than " + MAX_TIER_COST
+                        + " from level " + cappedFrom + "; capped at " + MAX_TIER_COST);
+                }
+                
+                System.arraycopy(lineCosts, 0, costs, from, lineCosts.length);
+                System.arraycopy(lineDurations, 0, durations, from, lineDurations.length);
+                Arrays.fill(definedBy, from, to + 1, entry);
+                highest = Math.max(highest, to);
+            } catch (IllegalArgumentException e) {
+                // Log and skip invalid entries rather than crashing
+                configProblem(problems, "Invalid " + key + " entry: " + entry + " (" + e.getMessage() + ")");
             }
-            
-            // Create and store the UpgradePath for this potion type
-            // Only store if at least one upgrade type is defined
-            if (!potionTimeUpgrades.isEmpty() || !potionPowerUpgrades.isEmpty()) {
-                UpgradePath path = new UpgradePath(potionTimeUpgrades, potionPowerUpgrades);
-                potionUpgradePaths.put(effectKey, path);
-                getLogger().info("Loaded custom upgrade path for " + key + " (time levels: " + path.maxTimeLevel + ", power levels: " + path.maxPowerLevel + ")");
+        }
+        return new TierTable(Arrays.copyOf(costs, highest + 1), Arrays.copyOf(durations, highest + 1));
+    }
+    
+    /**
+     * Evaluates a tier expression at one level.
+     * 
+     * @param expression The compiled cost or duration expression
+     * @param level The level
+     * @param name "cost" or "duration", for the error message
+     * @return The value, rounded to the nearest whole number
+     * @throws IllegalArgumentException if the value is not 0..Integer.MAX_VALUE
+     */
+    private static int evaluateTier(java.util.function.DoubleUnaryOperator expression, int level, String name) {
+        return toTierValue(Math.rint(expression.applyAsDouble(level)), level, name);
+    }
+    
+    /**
+     * Checks a rounded tier value and converts it to an int.
+     * 
+     * @param value The value, already rounded to a whole number
+     * @param level The level (for the error message)
+     * @param name "cost" or "duration", for the error message
+     * @return The value as an int
+     * @throws IllegalArgumentException if the value is not 0..Integer.MAX_VALUE
+     */
+    private static int toTierValue(double value, int level, String name) {
+        if (!(value >= 0 && value <= Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException(name + " at level " + level + " is " + value + " (must be 0-" + Integer.MAX_VALUE + ")");
+        }
+        return (int) value;
+    }
+    
+    /**
+     * Publishes a parsed UpgradeConfig (main thread).
+     * 
+     * The tables go live in the single volatile write to upgradeConfig, so
+     * every reader sees either the old or the new tables, never a mix or an
+     * empty table. Main-thread settings are then copied from the same snapshot
+     * and the rate limit buckets are carried over to the new limits.
+     * 
+     * @param config The parsed configuration
+     */
+    private void applyUpgradeConfig(UpgradeConfig config) {
+        upgradeConfig = config;
+        
+        virtualBrewTimeTicks = config.virtualBrewTimeTicks;
+        standUpgradeCooldownTicks = config.standUpgradeCooldownTicks;
+        standTierBrewTimes = config.standTierBrewTimes;
+        standTierCompletions = new CompletionIndex(config.standTierBrewTimes.keySet().stream()
+            .map(String::valueOf).collect(Collectors.toList()));
+        batchTickBudgetNanos = config.batchTickBudgetNanos;
+        
+        // Keep the buckets across reloads: refilling them here would let every
+        // reload (and every watched config push) hand out a fresh burst
+        if (config.playerBrewLimit[0] != playerBrewRate || config.playerBrewLimit[1] != playerBrewBurst) {
+            for (TokenBucket bucket : playerBrewBuckets.values()) {
+                bucket.retune(playerBrewRate, playerBrewBurst, config.playerBrewLimit[1]);
             }
+            playerBrewRate = config.playerBrewLimit[0];
+            playerBrewBurst = config.playerBrewLimit[1];
+        }
+        if (config.globalBrewLimit[0] != globalBrewRate || config.globalBrewLimit[1] != globalBrewBurst) {
+            globalBrewBucket.retune(globalBrewRate, globalBrewBurst, config.globalBrewLimit[1]);
+            globalBrewRate = config.globalBrewLimit[0];
+            globalBrewBurst = config.globalBrewLimit[1];
         }
         
         // Log summary of loaded configuration
-        getLogger().info("Loaded " + timeUpgrades.size() + " time upgrades (max level: " + maxTimeLevel + ")");
-        getLogger().info("Loaded " + powerUpgrades.size() + " power upgrades (max level: " + maxPowerLevel + ")");
+        getLogger().info("Loaded " + config.defaults.timeLevelCount() + " time upgrades (max level: " + config.defaults.maxTimeLevel + ")");
+        getLogger().info("Loaded " + config.defaults.powerLevelCount() + " power upgrades (max level: " + config.defaults.maxPowerLevel + ")");
+        if (virtualBrewTimeTicks > 0) {
+            getLogger().info("Virtual brewing takes " + virtualBrewTimeTicks + " ticks per upgrade");
+        }
+        getLogger().info("Loaded " + standTierBrewTimes.size() + " brewing stand tiers");
+        getLogger().info("Loaded " + config.lootTable.size() + " loot-table entries");
+        
+        if (config.watchConfig) {
+            startConfigWatcher();
+        } else {
+            stopConfigWatcher();
+        }
     }
     
     /**
-     * UPGRADE PATH RESOLUTION: Gets the time upgrade configuration for a potion
+     * Re-reads config.yml and swaps in the new configuration without blocking the main thread.
      * 
-     * This method implements a fallback system:
-     * 1. First checks if the potion has a custom upgrade path defined
-     * 2. If yes: returns the potion-specific configuration
-     * 3. If no: returns the global default configuration
+     * The file is read and parsed on an async thread into a fresh UpgradeConfig;
+     * only applyUpgradeConfig() and the prototype refresh run on the main thread.
+     * Until then every brew keeps using the complete old tables. If the file
+     * cannot be read or is not valid YAML, the old configuration stays in force.
+     * Two reloads in quick succession may finish out of order; the snapshot is
+     * stamped before the read, and applyConfigSnapshot() drops it if a newer
+     * one was applied first.
      * 
-     * This allows admins to customize costs for specific potions while
-     * maintaining reasonable defaults for all others.
+     * getConfig() is intentionally NOT reloaded and keeps the startup contents:
+     * the plugin only reads it once, in loadUpgradeTiers(), and everything
+     * after that reads the upgradeConfig snapshot.
      * 
-     * Example:
-     *   - Speed potions might have custom cheap upgrades
-     *   - Unconfigured potions (like poison) use global defaults
-     *   - Both work seamlessly without special handling
+     * @param sender Who asked for the reload (receives the result)
+     */
+    private void reloadUpgradeConfigAsync(CommandSender sender) {
+        // Same jar defaults getConfig() falls back to; never modified after load
+        org.bukkit.configuration.Configuration defaults = getConfig().getDefaults();
+        
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            long generation = configGeneration.incrementAndGet();
+            String text = null;
+            UpgradeConfig parsed;
+            try {
+                text = java.nio.file.Files.readString(new File(getDataFolder(), "config.yml").toPath());
+                parsed = parseConfigText(text, defaults);
+            } catch (Exception e) {
+                getLogger().warning("Failed to reload config.yml, keeping the current configuration: " + e.getMessage());
+                logConfigDiff(loadedConfigText, text);
+                Bukkit.getScheduler().runTask(this, () -> sender.sendMessage(
+                    Component.text("Reload failed, keeping the current configuration: " + e.getMessage(), NamedTextColor.RED)));
+                return;
+            }
+            
+            String newText = text;
+            Bukkit.getScheduler().runTask(this, () -> {
+                if (!applyConfigSnapshot(generation, newText, parsed)) {
+                    sender.sendMessage(Component.text("A newer config.yml was already applied, reload skipped.", NamedTextColor.YELLOW));
+                    return;
+                }
+                sender.sendMessage(Component.text("MasterBrewing configuration reloaded!", NamedTextColor.GREEN));
+                if (!parsed.problems.isEmpty()) {
+                    sender.sendMessage(Component.text(parsed.problems.size() + " invalid entries were skipped (see console)", NamedTextColor.YELLOW));
+                }
+            });
+        });
+    }
+    
+    /**
+     * Applies a config snapshot read in the background (main thread).
      * 
-     * @param effectKey The effect identifier (e.g., "speed", "strength", "fly")
-     * @return Map of level -> [redstone cost, duration in seconds]
+     * Snapshots older than the one applied last are dropped, so a slow parse
+     * can never roll the configuration back to an earlier file.
+     * 
+     * @param generation Stamp taken from configGeneration before the file was read
+     * @param text Contents of config.yml the snapshot was parsed from
+     * @param parsed The parsed configuration
+     * @return true if applied, false if a newer snapshot is already in force
      */
-    private Map<Integer, int[]> getTimeUpgrades(String effectKey) {
-        // Check if this potion type has a custom upgrade path
-        if (potionUpgradePaths.containsKey(effectKey)) {
-            return potionUpgradePaths.get(effectKey).timeUpgrades;
+    private boolean applyConfigSnapshot(long generation, String text, UpgradeConfig parsed) {
+        if (generation < appliedConfigGeneration) {
+            return false;
         }
-        // Fall back to global defaults
-        return timeUpgrades;
+        appliedConfigGeneration = generation;
+        loadedConfigText = text;
+        applyUpgradeConfig(parsed);
+        
+        // Lore reflects the new tiers, so refresh cached item prototypes off-thread
+        rebuildItemPrototypesAsync();
+        return true;
+    }
+    
+    /**
+     * Parses config.yml text into an UpgradeConfig (any thread).
+     * 
+     * @param text Contents of config.yml
+     * @param defaults The jar defaults getConfig() falls back to, or null
+     * @return The parsed configuration
+     * @throws org.bukkit.configuration.InvalidConfigurationException if the text is not valid YAML
+     */
+    private UpgradeConfig parseConfigText(String text, org.bukkit.configuration.Configuration defaults)
+            throws org.bukkit.configuration.InvalidConfigurationException {
+        org.bukkit.configuration.file.YamlConfiguration yaml = new org.bukkit.configuration.file.YamlConfiguration();
+        yaml.loadFromString(text);
+        if (defaults != null) {
+            yaml.setDefaults(defaults);
+        }
+        return parseUpgradeConfig(yaml);
     }
     
     /**
-     * UPGRADE PATH RESOLUTION: Gets the power upgrade configuration for a potion
+     * Reads config.yml from the data folder.
      * 
-     * Same fallback logic as getTimeUpgrades(), but for power (glowstone) upgrades.
+     * @return The file contents, or null if it can't be read
+     */
+    private String readConfigText() {
+        try {
+            return java.nio.file.Files.readString(new File(getDataFolder(), "config.yml").toPath());
+        } catch (java.io.IOException e) {
+            return null;
+        }
+    }
+    
+    // ==================================================================================
+    // CONFIG FILE WATCHER
+    // ==================================================================================
+    
+    /**
+     * Starts watching the data folder for config.yml changes (main thread).
      * 
-     * Power upgrades increase the amplifier of the potion effect:
-     * - Level 0: Amplifier 1 (e.g., Speed II)
-     * - Level 1: Amplifier 2 (e.g., Speed III)
-     * - Level 2: Amplifier 3 (e.g., Speed IV)
-     * And so on, without vanilla's level limits.
+     * Enabled with watch-config: true. Config management tools that push
+     * config.yml to many servers then take effect without /masterbrewing
+     * reload. Does nothing if the watcher is already running.
      * 
-     * @param effectKey The effect identifier (e.g., "speed", "strength", "fly")
-     * @return Map of level -> glowstone cost
+     * OPTIMIZATION: The watcher thread sleeps in WatchService.take() and costs
+     * nothing between changes. Parsing happens on that thread too; only
+     * applyUpgradeConfig() is handed to the main thread.
      */
-    private Map<Integer, Integer> getPowerUpgrades(String effectKey) {
-        // Check if this potion type has a custom upgrade path
-        if (potionUpgradePaths.containsKey(effectKey)) {
-            return potionUpgradePaths.get(effectKey).powerUpgrades;
+    private void startConfigWatcher() {
+        if (configWatchThread != null) {
+            return;
+        }
+        
+        java.nio.file.WatchService watchService;
+        try {
+            watchService = java.nio.file.FileSystems.getDefault().newWatchService();
+            getDataFolder().toPath().register(watchService,
+                java.nio.file.StandardWatchEventKinds.ENTRY_CREATE,
+                java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (java.io.IOException e) {
+            getLogger().warning("Could not watch config.yml for changes: " + e.getMessage());
+            return;
         }
-        // Fall back to global defaults
-        return powerUpgrades;
+        
+        // Captured here: getConfig() must not be touched from the watcher thread
+        org.bukkit.configuration.Configuration defaults = getConfig().getDefaults();
+        
+        configWatchService = watchService;
+        configWatchThread = new Thread(() -> runConfigWatcher(watchService, defaults), "MasterBrewing-ConfigWatcher");
+        configWatchThread.setDaemon(true);
+        configWatchThread.start();
+        getLogger().info("Watching config.yml for changes");
     }
     
     /**
-     * UPGRADE PATH RESOLUTION: Gets the maximum time level for a potion
+     * Stops the config watcher if it is running (main thread).
      * 
-     * Returns the highest achievable time (duration) upgrade level for the
-     * specified potion effect. This respects potion-specific configurations.
+     * Closing the WatchService wakes the watcher thread, which then exits.
+     */
+    private void stopConfigWatcher() {
+        if (configWatchThread == null) {
+            return;
+        }
+        try {
+            configWatchService.close();
+        } catch (java.io.IOException e) {
+            getLogger().warning("Failed to close config watcher: " + e.getMessage());
+        }
+        configWatchThread.interrupt();
+        configWatchService = null;
+        configWatchThread = null;
+    }
+    
+    /**
+     * Body of the config watcher thread.
      * 
-     * Used for:
-     * - Validating upgrade attempts (can't upgrade past max)
-     * - Displaying "MAX" indicators in potion lore
-     * - Tab completion suggestions in commands
+     * Editors and deploy tools often write a file in several steps (truncate,
+     * write, rename), each raising an event. After the first config.yml event
+     * the loop keeps collecting events until none arrive for
+     * CONFIG_WATCH_DEBOUNCE_MS, then reloads once.
      * 
-     * @param effectKey The effect identifier (e.g., "speed", "strength")
-     * @return Maximum time upgrade level for this potion
+     * @param watchService The watch service on the data folder
+     * @param defaults The jar defaults for parsing
      */
-    private int getMaxTimeLevel(String effectKey) {
-        // Check if potion has custom upgrade path with its own max level
-        if (potionUpgradePaths.containsKey(effectKey)) {
-            return potionUpgradePaths.get(effectKey).maxTimeLevel;
+    private void runConfigWatcher(java.nio.file.WatchService watchService, org.bukkit.configuration.Configuration defaults) {
+        try {
+            while (true) {
+                if (!drainConfigEvents(watchService.take())) {
+                    continue;  // Another file in the data folder changed
+                }
+                
+                // Debounce: wait for the burst of events to end
+                java.nio.file.WatchKey next;
+                while ((next = watchService.poll(CONFIG_WATCH_DEBOUNCE_MS, java.util.concurrent.TimeUnit.MILLISECONDS)) != null) {
+                    drainConfigEvents(next);
+                }
+                
+                reloadWatchedConfig(defaults);
+            }
+        } catch (InterruptedException | java.nio.file.ClosedWatchServiceException e) {
+            // stopConfigWatcher() or plugin disable - exit quietly
         }
-        // Fall back to global maximum
-        return maxTimeLevel;
     }
     
     /**
-     * UPGRADE PATH RESOLUTION: Gets the maximum power level for a potion
+     * Consumes the events of a watch key and re-arms it.
      * 
-     * Returns the highest achievable power (amplifier) upgrade level for the
-     * specified potion effect. This respects potion-specific configurations.
+     * @param key The signalled key
+     * @return true if config.yml was among the changed files (or events were lost)
+     */
+    private boolean drainConfigEvents(java.nio.file.WatchKey key) {
+        boolean configChanged = false;
+        for (java.nio.file.WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == java.nio.file.StandardWatchEventKinds.OVERFLOW
+                    || "config.yml".equals(String.valueOf(event.context()))) {
+                configChanged = true;
+            }
+        }
+        key.reset();
+        return configChanged;
+    }
+    
+    /**
+     * Re-reads config.yml after a change on disk (watcher thread).
      * 
-     * Used for:
-     * - Validating upgrade attempts (can't upgrade past max)
-     * - Displaying "MAX" indicators in potion lore
-     * - Tab completion suggestions in commands
+     * Unchanged contents are ignored. A file that fails to parse, or parses
+     * with invalid entries that would be skipped, leaves the current tables in
+     * force and logs the error together with the lines that
+     * changed since the last good version, so the bad edit is easy to find in
+     * the console. A good file is applied on the main thread through
+     * applyConfigSnapshot(), which drops it if a /masterbrewing reload read a
+     * newer file in the meantime.
      * 
-     * @param effectKey The effect identifier (e.g., "speed", "strength")
-     * @return Maximum power upgrade level for this potion
+     * @param defaults The jar defaults for parsing
      */
-    private int getMaxPowerLevel(String effectKey) {
-        // Check if potion has custom upgrade path with its own max level
-        if (potionUpgradePaths.containsKey(effectKey)) {
-            return potionUpgradePaths.get(effectKey).maxPowerLevel;
+    private void reloadWatchedConfig(org.bukkit.configuration.Configuration defaults) {
+        long generation = configGeneration.incrementAndGet();
+        String text = readConfigText();
+        String previous = loadedConfigText;
+        if (text == null || text.equals(previous)) {
+            return;  // Deleted mid-rename (the create event follows) or nothing changed
+        }
+        
+        UpgradeConfig parsed;
+        try {
+            parsed = parseConfigText(text, defaults);
+        } catch (Exception e) {
+            getLogger().warning("config.yml changed but failed to parse, keeping the current configuration: " + e.getMessage());
+            logConfigDiff(previous, text);
+            return;
+        }
+        
+        // Valid YAML with bad entries would load with those entries skipped,
+        // possibly leaving empty tables; an unattended push must not do that
+        if (!parsed.problems.isEmpty()) {
+            getLogger().warning("config.yml changed but has " + parsed.problems.size()
+                + " invalid entries (see above), keeping the current configuration");
+            logConfigDiff(previous, text);
+            return;
+        }
+        
+        try {
+            Bukkit.getScheduler().runTask(this, () -> {
+                if (applyConfigSnapshot(generation, text, parsed)) {
+                    getLogger().info("config.yml changed on disk, configuration reloaded");
+                }
+            });
+        } catch (org.bukkit.plugin.IllegalPluginAccessException e) {
+            // Plugin disabled while the file was being parsed; nothing to apply
         }
-        // Fall back to global maximum
-        return maxPowerLevel;
     }
     
     /**
-     * EFFECT MANAGEMENT: Starts the continuous effect refresh task
+     * Logs the lines that differ between two versions of config.yml.
      * 
-     * This is the heart of the master potion system. It maintains active effects
-     * on players by periodically checking and refreshing them.
+     * Skips the lines both versions share at the start and at the end, then
+     * logs the rest as "-" (old) and "+" (new) lines with line numbers - enough
+     * to spot an edit without a full diff algorithm. At most
+     * CONFIG_DIFF_MAX_LINES lines are logged.
      * 
-     * ==============================================================================
-     * WHY IS THIS NEEDED?
+     * @param before The last good config text, or null if unknown
+     * @param after The new config text, or null if it couldn't be read
+     */
+    private void logConfigDiff(String before, String after) {
+        if (before == null || after == null) {
+            return;
+        }
+        String[] oldLines = before.split("\\R", -1);
+        String[] newLines = after.split("\\R", -1);
+        
+        int start = 0;
+        while (start < oldLines.length && start < newLines.length && oldLines[start].equals(newLines[start])) {
+            start++;
+        }
+        int oldEnd = oldLines.length;
+        int newEnd = newLines.length;
+        while (oldEnd > start && newEnd > start && oldLines[oldEnd - 1].equals(newLines[newEnd - 1])) {
+            oldEnd--;
+            newEnd--;
+        }
+        
+        List<String> diff = new ArrayList<>();
+        for (int i = start; i < oldEnd; i++) {
+            diff.add("- " + (i + 1) + ": " + oldLines[i]);
+        }
+        for (int i = start; i < newEnd; i++) {
+            diff.add("+ " + (i + 1) + ": " + newLines[i]);
+        }
+        if (diff.isEmpty()) {
+            return;
+        }
+        
+        getLogger().warning("Changes since the last good config.yml:");
+        for (int i = 0; i < Math.min(diff.size(), CONFIG_DIFF_MAX_LINES); i++) {
+            getLogger().warning("  " + diff.get(i));
+        }
+        if (diff.size() > CONFIG_DIFF_MAX_LINES) {
+            getLogger().warning("  ... " + (diff.size() - CONFIG_DIFF_MAX_LINES) + " more changed lines");
+        }
+    }
+    
+    /**
+     * Parses a "rate,burst" rate limit line.
+     * 
+     * A single number sets the rate with a burst of one second's worth.
+     * Invalid lines are logged and disable the limit.
+     * 
+     * @param entry The config value (e.g., "20,40")
+     * @param key Config key for error messages
+     * @param problems Problems of the parse in progress
+     * @return {rate per second, burst}; rate 0 = unlimited
+     */
+    private int[] parseRateLimit(String entry, String key, List<String> problems) {
+        try {
+            String[] parts = entry.split(",");
+            int rate = Integer.parseInt(parts[0].trim());
+            int burst = (parts.length > 1) ? Integer.parseInt(parts[1].trim()) : rate;
+            if (parts.length > 2 || rate < 0 || (rate > 0 && burst < 1)) {
+                configProblem(problems, "Invalid " + key + " entry: " + entry);
+                return new int[]{0, 0};
+            }
+            return new int[]{rate, Math.max(burst, 1)};
+        } catch (Exception e) {
+            configProblem(problems, "Failed to parse " + key + " entry: " + entry);
+            return new int[]{0, 0};
+        }
+    }
+    
+    /**
+     * Compiles the loot-table config list into a LootTable.
+     * 
+     * Format: "potion,weight[,time-levels,power-levels]"
+     * - potion: Potion name (e.g., "speed")
+     * - weight: Relative chance (any positive number)
+     * - time-levels / power-levels: "min-max" or a single level; default is
+     *   1 up to the potion's max
+     * 
+     * A potion may be listed several times with different level ranges, so
+     * rare high-level rolls get their own weight. Every level in a range must
+     * be givable (0 only for fly and fortune). Invalid entries are logged and
+     * skipped. An empty list gives every potion the same weight with levels
+     * over its full range. Potions with no time or power levels (max below 1)
+     * are left out, since no level range can be drawn for them.
+     * 
+     * @param entries The config lines
+     * @param paths Upgrade path of every known effect
+     * @param problems Problems of the parse in progress
+     * @return The compiled table (may have no entries)
+     */
+    private LootTable compileLootTable(List<String> entries, Map<String, UpgradePath> paths, List<String> problems) {
+        List<String> potions = new ArrayList<>();
+        List<int[]> ranges = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        
+        if (entries.isEmpty()) {
+            for (String potion : new TreeSet<>(POTION_NAME_TO_EFFECT_KEY.keySet())) {
+                UpgradePath path = paths.get(POTION_NAME_TO_EFFECT_KEY.get(potion));
+                int maxTime = path.maxTimeLevel;
+                int maxPower = path.maxPowerLevel;
+                if (maxTime >= 1 && maxPower >= 1) {
+                    potions.add(potion);
+                    ranges.add(new int[]{1, maxTime, 1, maxPower});
+                    weights.add(1.0);
+                }
+            }
+        }
+        
+        for (String entry : entries) {
+            try {
+                String[] parts = entry.split(",");
+                if (parts.length != 2 && parts.length != 4) {
+                    configProblem(problems, "Invalid loot-table entry: " + entry);
+                    continue;
+                }
+                
+                String potion = parts[0].trim().toLowerCase();
+                String effectKey = POTION_NAME_TO_EFFECT_KEY.get(potion);
+                double weight = Double.parseDouble(parts[1].trim());
+                if (effectKey == null || !(weight > 0) || Double.isInfinite(weight)) {
+                    configProblem(problems, "Invalid loot-table entry: " + entry + " (unknown potion or weight not > 0)");
+                    continue;
+                }
+                
+                UpgradePath path = paths.get(effectKey);
+                int[] time = (parts.length == 4) ? parseLevelRange(parts[2]) : new int[]{1, path.maxTimeLevel};
+                int[] power = (parts.length == 4) ? parseLevelRange(parts[3]) : new int[]{1, path.maxPowerLevel};
+                if (!isGivableRange(effectKey, path, time, true) || !isGivableRange(effectKey, path, power, false)) {
+                    configProblem(problems, "Invalid loot-table entry: " + entry + " (levels not defined for " + potion + ")");
+                    continue;
+                }
+                
+                potions.add(potion);
+                ranges.add(new int[]{time[0], time[1], power[0], power[1]});
+                weights.add(weight);
+            } catch (Exception e) {
+                configProblem(problems, "Failed to parse loot-table entry: " + entry);
+            }
+        }
+        
+        int n = potions.size();
+        String[] effectKeys = new String[n];
+        double[] weightArray = new double[n];
+        for (int i = 0; i < n; i++) {
+            effectKeys[i] = POTION_NAME_TO_EFFECT_KEY.get(potions.get(i));
+            weightArray[i] = weights.get(i);
+        }
+        return new LootTable(potions.toArray(new String[0]), effectKeys, ranges.toArray(new int[0][]), weightArray);
+    }
+    
+    /**
+     * Parses a level range: "min-max" or a single level.
+     * 
+     * @param text The range text
+     * @return {min, max}
+     * @throws NumberFormatException if the text is not a range
+     */
+    private static int[] parseLevelRange(String text) {
+        String[] bounds = text.trim().split("-");
+        if (bounds.length == 1) {
+            int level = Integer.parseInt(bounds[0].trim());
+            return new int[]{level, level};
+        }
+        if (bounds.length != 2) {
+            throw new NumberFormatException(text);
+        }
+        return new int[]{Integer.parseInt(bounds[0].trim()), Integer.parseInt(bounds[1].trim())};
+    }
+    
+    /**
+     * Checks that every level of a range can be given for a potion.
+     * 
+     * Uses the same rules as /masterbrewing give potion: the level must be in
+     * the potion's upgrade path, or 0 for fly and fortune.
+     * 
+     * @param effectKey Effect key of the potion
+     * @param path The potion's upgrade path
+     * @param range {min, max}
+     * @param time true for time levels, false for power levels
+     * @return true if the range is non-empty and every level is valid
+     */
+    private static boolean isGivableRange(String effectKey, UpgradePath path, int[] range, boolean time) {
+        if (range[0] > range[1] || range[0] < 0) {
+            return false;
+        }
+        boolean custom = effectKey.equals("fly") || effectKey.equals("fortune");
+        for (int level = range[0]; level <= range[1]; level++) {
+            boolean defined = time ? path.hasTimeLevel(level) : path.hasPowerLevel(level);
+            if (!(level == 0 && custom) && !defined) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Builds the prefix-summed cost table of every known potion effect.
+     * 
+     * Each table is built from the potion's resolved path, so per-potion
+     * overrides and global defaults are both covered. Walking a path stops at
+     * the first level that can't be brewed, matching getNextUpgradeCost().
+     * 
+     * @param paths Upgrade path of every known effect
+     * @return Effect key -> cost table
+     */
+    private static Map<String, UpgradeCostTable> buildUpgradeCostTables(Map<String, UpgradePath> paths) {
+        Map<String, UpgradeCostTable> tables = new HashMap<>();
+        
+        for (Map.Entry<String, UpgradePath> entry : paths.entrySet()) {
+            String effectKey = entry.getKey();
+            UpgradePath path = entry.getValue();
+            
+            // Time path (instant effects can't be upgraded with redstone)
+            int timeLevels = 0;
+            if (!isInstantEffect(effectKey)) {
+                while (path.timeCost(timeLevels + 1) > 0) {
+                    timeLevels++;
+                }
+            }
+            int[] timeCostPrefix = new int[timeLevels + 1];
+            for (int level = 1; level <= timeLevels; level++) {
+                timeCostPrefix[level] = timeCostPrefix[level - 1] + path.timeCost(level);
+            }
+            
+            // Power path
+            int powerLevels = 0;
+            while (path.powerCost(powerLevels + 1) > 0) {
+                powerLevels++;
+            }
+            int[] powerCostPrefix = new int[powerLevels + 1];
+            for (int level = 1; level <= powerLevels; level++) {
+                powerCostPrefix[level] = powerCostPrefix[level - 1] + path.powerCost(level);
+            }
+            
+            tables.put(effectKey, new UpgradeCostTable(timeCostPrefix, powerCostPrefix));
+        }
+        
+        return Collections.unmodifiableMap(tables);
+    }
+    
+    /**
+     * UPGRADE PATH RESOLUTION: Gets the upgrade path of a potion
+     * 
+     * This method implements a fallback system:
+     * 1. First checks if the potion has a custom upgrade path defined
+     * 2. If yes: returns the potion-specific configuration
+     * 3. If no: returns the global default configuration
+     * 
+     * This allows admins to customize costs for specific potions while
+     * maintaining reasonable defaults for all others.
+     * 
+     * Example:
+     *   - Speed potions might have custom cheap upgrades
+     *   - Unconfigured potions (like poison) use global defaults
+     *   - Both work seamlessly without special handling
+     * 
+     * Power upgrades increase the amplifier of the potion effect:
+     * - Level 0: Amplifier 1 (e.g., Speed II)
+     * - Level 1: Amplifier 2 (e.g., Speed III)
+     * And so on, without vanilla's level limits.
+     * 
+     * @param effectKey The effect identifier (e.g., "speed", "strength", "fly")
+     * @return The path from the current UpgradeConfig snapshot
+     */
+    private UpgradePath getUpgradePath(String effectKey) {
+        return upgradeConfig.path(effectKey);
+    }
+    
+    /**
+     * UPGRADE PATH RESOLUTION: Gets the maximum time level for a potion
+     * 
+     * Returns the highest achievable time (duration) upgrade level for the
+     * specified potion effect. This respects potion-specific configurations.
+     * 
+     * Used for:
+     * - Validating upgrade attempts (can't upgrade past max)
+     * - Displaying "MAX" indicators in potion lore
+     * - Tab completion suggestions in commands
+     * 
+     * @param effectKey The effect identifier (e.g., "speed", "strength")
+     * @return Maximum time upgrade level for this potion
+     */
+    private int getMaxTimeLevel(String effectKey) {
+        return getUpgradePath(effectKey).maxTimeLevel;
+    }
+    
+    /**
+     * UPGRADE PATH RESOLUTION: Gets the maximum power level for a potion
+     * 
+     * Returns the highest achievable power (amplifier) upgrade level for the
+     * specified potion effect. This respects potion-specific configurations.
+     * 
+     * @param effectKey The effect identifier (e.g., "speed", "strength")
+     * @return Maximum power upgrade level for this potion
+     */
+    private int getMaxPowerLevel(String effectKey) {
+        return getUpgradePath(effectKey).maxPowerLevel;
+    }
+    
+    /**
+     * Gets the prefix-summed cost table of a potion.
+     * 
+     * @param effectKey The effect identifier (may be null)
+     * @return The table, or null for unknown effects
+     */
+    private UpgradeCostTable getCostTable(String effectKey) {
+        return (effectKey != null) ? upgradeConfig.costTables.get(effectKey) : null;
+    }
+    
+    /**
+     * EFFECT MANAGEMENT: Starts the continuous effect refresh task
+     * 
+     * This is the heart of the master potion system. It maintains active effects
+     * on players by periodically checking and refreshing them.
+     * 
+     * ==============================================================================
+     * WHY IS THIS NEEDED?
      * ==============================================================================
      * Minecraft's vanilla potion system has hard limits:
      * - Maximum duration: 9 minutes 59 seconds (effic ticks: 19999)
@@ -1106,7 +3199,7 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
                 
                 // Process all effects for this player
                 // removeIf() iterates and removes expired effects in one pass
-                effects.removeIf(effect -> {
+                boolean anyRemoved = effects.removeIf(effect -> {
                     // Calculate remaining time for this effect
                     long remainingMillis = effect.expiryTime - currentTime;
                     int remainingSeconds = (int) (remainingMillis / 1000);
@@ -1194,17 +3287,12 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
                     }
                     
                     // ===== HANDLE VANILLA POTION EFFECTS =====
-                    // Map internal effect keys to Minecraft's effect keys
-                    String mappedEffectKey = effect.effectTypeKey;
-                    if (effect.effectTypeKey.equals("fortune")) {
-                        mappedEffectKey = "luck"; // Fortune uses LUCK potion effect internally
-                    }
-                    
-                    // Get the PotionEffectType for this effect
-                    PotionEffectType effectType = PotionEffectType.getByKey(org.bukkit.NamespacedKey.minecraft(mappedEffectKey));
+                    // Get the PotionEffectType for this effect (resolved when the effect was created,
+                    // with fortune already mapped to LUCK)
+                    PotionEffectType effectType = effect.effectType;
                     if (effectType == null) {
                         // Invalid effect type - remove it
-                        getLogger().warning("Invalid effect type: " + mappedEffectKey);
+                        getLogger().warning("Invalid effect type: " + effect.effectTypeKey);
                         return true; // Remove from list
                     }
                     
@@ -1244,6 +3332,11 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
                     player.sendActionBar(Component.text(flyActionBar[0], NamedTextColor.GOLD));
                 }
                 
+                // Expired effects change what /effects shows
+                if (anyRemoved) {
+                    effectsRenderCache.remove(uuid);
+                }
+                
                 // ===== CLEANUP: Remove player if no effects remain =====
                 if (effects.isEmpty()) {
                     activeMasterEffects.remove(uuid);
@@ -1253,6 +3346,27 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         }, 60L, 60L); // Run every 3 seconds (60 ticks)
     }
     
+    /**
+     * Starts the autosave task for resident virtual brewing stands.
+     * 
+     * Runs every VIRTUAL_STAND_AUTOSAVE_TICKS and persists only stands marked
+     * dirty, so idle players cost nothing. The snapshot is taken on the main
+     * thread and written on the I/O thread. Limits how much brewing progress
+     * can be lost on a crash for players who keep their stand open.
+     */
+    private void startVirtualStandAutosaveTask() {
+        Bukkit.getScheduler().runTaskTimer(this, () -> {
+            for (Map<Integer, VirtualStand> stands : virtualStandCache.values()) {
+                for (VirtualStand stand : stands.values()) {
+                    persistVirtualStand(stand);
+                }
+            }
+            for (VirtualStand stand : teamStands.values()) {
+                persistVirtualStand(stand);
+            }
+        }, VIRTUAL_STAND_AUTOSAVE_TICKS, VIRTUAL_STAND_AUTOSAVE_TICKS);
+    }
+    
     /**
      * ITEM CREATION: Creates a Master Brewing Stand item
      * 
@@ -1271,9 +3385,43 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      * - Name: "Master Brewing Stand" (gold, bold, no italic)
      * - Lore: Explains unlimited upgrades and usage
      * 
-     * @return ItemStack of a master brewing stand ready to give to players
+     * OPTIMIZATION: Returns a clone of the cached stand prototype instead of
+     * rebuilding meta, lore and PDC on every block break.
+     * 
+     * @return ItemStack of a tier 1 master brewing stand ready to give to players
      */
     private ItemStack createMasterBrewingStand() {
+        return createMasterBrewingStand(1);
+    }
+    
+    /**
+     * Creates a Master Brewing Stand item of the given speed tier.
+     * The tier is written into the item's master_brewing_stand marker and
+     * shown in the lore together with its brew time.
+     * 
+     * @param tier Stand tier (see stand-tiers in config.yml)
+     * @return ItemStack of a master brewing stand ready to give to players
+     */
+    private ItemStack createMasterBrewingStand(int tier) {
+        ItemStack prototype = masterStandPrototypes.get(tier);
+        if (prototype == null) {
+            prototype = buildMasterBrewingStandPrototype(tier);
+            masterStandPrototypes.put(tier, prototype);
+        }
+        return prototype.clone();
+    }
+    
+    /**
+     * Builds the canonical Master Brewing Stand item from scratch.
+     * 
+     * Only called to (re)fill masterStandPrototypes - on first use and from the
+     * async prototype rebuild after a config reload. Everything else should go
+     * through createMasterBrewingStand(), which clones the prototype.
+     * 
+     * @param tier Stand tier to encode in the item
+     * @return Freshly built master brewing stand ItemStack
+     */
+    private ItemStack buildMasterBrewingStandPrototype(int tier) {
         // Create base brewing stand item
         ItemStack brewingStand = new ItemStack(Material.BREWING_STAND);
         ItemMeta meta = brewingStand.getItemMeta();
@@ -1294,13 +3442,16 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             .decoration(TextDecoration.ITALIC, false));
         lore.add(Component.text("Use glowstone to increase power", NamedTextColor.YELLOW)
             .decoration(TextDecoration.ITALIC, false));
+        lore.add(Component.text("", NamedTextColor.GRAY));  // Blank line for spacing
+        lore.add(Component.text("Brew Speed: Tier " + tier + " (" + formatBrewTicks(getStandTierBrewTime(tier)) + " per brew)", NamedTextColor.AQUA)
+            .decoration(TextDecoration.ITALIC, false));
         
         meta.lore(lore);
         
         // CRITICAL: Mark item as a master brewing stand
         // This NBT tag is how we identify master stands throughout the plugin
-        // Using BYTE type with value 1 (true)
-        meta.getPersistentDataContainer().set(masterBrewingStandKey, PersistentDataType.BYTE, (byte) 1);
+        // Using BYTE type - the value is the stand's speed tier (1 = base tier)
+        meta.getPersistentDataContainer().set(masterBrewingStandKey, PersistentDataType.BYTE, (byte) tier);
         
         // Apply metadata to item
         brewingStand.setItemMeta(meta);
@@ -1340,9 +3491,58 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
     }
     
     /**
-     * Checks if a location has a Master Brewing Stand.
+     * Checks if a block is a placed Master Brewing Stand.
      * OPTIMIZATION #1: Uses block's PersistentDataContainer for O(1) lookup.
+     * getState(false) reads the live tile entity without copying it, so this is
+     * cheap enough for hoppers calling it every few ticks. Nothing is cached by
+     * location: explosions, pistons, /setblock and other plugins can replace a
+     * stand without any event this plugin would see.
+     * 
+     * @param block The block to check
+     * @return true if the block is a brewing stand marked as a Master Brewing Stand
+     */
+    private boolean isMasterBrewingStandAt(Block block) {
+        if (block.getType() != Material.BREWING_STAND) {
+            return false;
+        }
+        
+        return ((BrewingStand) block.getState(false)).getPersistentDataContainer()
+            .has(masterBrewingStandKey, PersistentDataType.BYTE);
+    }
+    
+    /**
+     * Reads the speed tier of a Master Brewing Stand from its marker value.
+     * Markers written before tiers existed hold 1 and read as tier 1.
+     * 
+     * @param pdc The item's or block's PersistentDataContainer
+     * @return Stand tier (at least 1)
+     */
+    private int getStandTier(org.bukkit.persistence.PersistentDataContainer pdc) {
+        Byte tier = pdc.get(masterBrewingStandKey, PersistentDataType.BYTE);
+        return tier == null ? 1 : Math.max(1, tier);
+    }
+    
+    /**
+     * Gets the total brew time for a stand tier.
+     * Tiers missing from config (e.g. removed after stands were handed out)
+     * fall back to the vanilla brew time.
+     * 
+     * @param tier Stand tier
+     * @return Brew time in ticks
+     */
+    private int getStandTierBrewTime(int tier) {
+        return standTierBrewTimes.getOrDefault(tier, VANILLA_BREW_TIME);
+    }
+    
+    /**
+     * Formats a tick count as seconds for lore and messages (e.g. 400 -> "20s", 50 -> "2.5s").
+     * 
+     * @param ticks Duration in ticks
+     * @return Human-readable seconds
      */
+    private String formatBrewTicks(int ticks) {
+        return ticks % 20 == 0 ? (ticks / 20) + "s" : String.format("%.1fs", ticks / 20.0);
+    }
     
     // ==================================================================================
     // EVENT HANDLERS - Block placement, breaking, brewing, and potion consumption
@@ -1351,167 +3551,139 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
     /**
      * Handles placement of Master Brewing Stand items.
      * 
-     * When a player places an item that is a Master Brewing Stand:
+     * When a player (or a plugin firing a BlockPlaceEvent) places an item that
+     * is a Master Brewing Stand:
      * 1. Verify the placed item has the master_brewing_stand NBT marker
-     * 2. Schedule a delayed task (1 tick) to allow block state initialization
-     * 3. Mark the placed BLOCK with our NBT marker (transfers from item to block)
-     * 4. Restore saved inventory contents if stand was previously broken with items
-     * 5. Restore saved fuel level
-     * 6. Send confirmation message to the player
-     * 
-     * Why the 1-tick delay?
-     * - Block state isn't fully initialized during BlockPlaceEvent
-     * - Attempting to modify it immediately may fail or be overwritten
-     * - Delayed task ensures block is ready for NBT operations
-     * 
-     * Inventory restoration process:
-     * - Check if item NBT contains serialized slot data (JSON strings)
-     * - Deserialize each slot using Gson
-     * - Set each item in the brewing stand's inventory
-     * - This preserves potions/ingredients when stand is picked up and replaced
+     * 2. Find the placed brewing stand block(s) - BlockMultiPlaceEvent and other
+     *    BlockPlaceEvent subclasses are delivered to this handler as well
+     * 3. Restore marker, speed tier, bulk mode, fuel and inventory in one pass
+     *    (see restoreMasterStand)
+     * 4. Send confirmation message to the player, if there is one
+     * 
+     * OPTIMIZATION: The restore happens inside the event instead of a 1-tick
+     * delayed task. Paper resolves the freshly placed block entity during the
+     * event, so a single block state snapshot with a single update() is enough.
+     * Pasting many stands no longer queues one scheduler task per stand, and
+     * per-slot info logging was removed (failures are still logged).
+     * 
+     * ignoreCancelled: A cancelled placement never creates the block, so there
+     * is nothing to restore.
      * 
      * @param event The block place event from Bukkit
      */
-    @EventHandler(priority = EventPriority.HIGHEST)
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onBlockPlace(BlockPlaceEvent event) {
         ItemStack item = event.getItemInHand();
         
-        if (isMasterBrewingStand(item)) {
-            Block block = event.getBlock();
-            
-            // Check if the item has saved brewing stand state
-            ItemMeta itemMeta = item.getItemMeta();
-            
-            // Mark the brewing stand block itself with NBT and restore fuel level after 1 tick
-            Bukkit.getScheduler().runTaskLater(this, () -> {
-                // Verify the block is still a brewing stand
-                if (block.getType() == Material.BREWING_STAND) {
-                    BrewingStand brewingStand = (BrewingStand) block.getState();
-                    
-                    // Mark this block as a master brewing stand
-                    brewingStand.getPersistentDataContainer().set(masterBrewingStandKey, PersistentDataType.BYTE, (byte) 1);
-                    
-                    // Restore fuel level to the state
-                    if (itemMeta != null && itemMeta.getPersistentDataContainer().has(brewingFuelLevelKey, PersistentDataType.INTEGER)) {
-                        int fuelLevel = itemMeta.getPersistentDataContainer().get(brewingFuelLevelKey, PersistentDataType.INTEGER);
-                        brewingStand.setFuelLevel(fuelLevel);
-                        getLogger().info("Restoring fuel level: " + fuelLevel);
-                    }
-                    
-                    // Update the block state (writes NBT and fuel level)
-                    brewingStand.update();
-                    
-                    // NOW restore inventory items after the state is updated
-                    if (itemMeta != null) {
-                        // Get a fresh reference to the inventory after updating
-                        BrewingStand updatedStand = (BrewingStand) block.getState();
-                        BrewerInventory inventory = updatedStand.getInventory();
-                        
-                        // Restore inventory slots
-                        Gson gson = new Gson();
-                        
-                        getLogger().info("=== RESTORING BREWING STAND STATE ===");
-                        getLogger().info("Has slot 0 data: " + itemMeta.getPersistentDataContainer().has(brewingSlot0Key, PersistentDataType.STRING));
-                        getLogger().info("Has slot 1 data: " + itemMeta.getPersistentDataContainer().has(brewingSlot1Key, PersistentDataType.STRING));
-                        getLogger().info("Has slot 2 data: " + itemMeta.getPersistentDataContainer().has(brewingSlot2Key, PersistentDataType.STRING));
-                        getLogger().info("Has slot 3 data: " + itemMeta.getPersistentDataContainer().has(brewingSlot3Key, PersistentDataType.STRING));
-                        getLogger().info("Has slot 4 data: " + itemMeta.getPersistentDataContainer().has(brewingSlot4Key, PersistentDataType.STRING));
-                        
-                        if (itemMeta.getPersistentDataContainer().has(brewingSlot0Key, PersistentDataType.STRING)) {
-                            String json = itemMeta.getPersistentDataContainer().get(brewingSlot0Key, PersistentDataType.STRING);
-                            getLogger().info("Slot 0 JSON length on restore: " + json.length());
-                            try {
-                                Map<String, Object> map = gson.fromJson(json, Map.class);
-                                ItemStack restored = ItemStack.deserialize(map);
-                                inventory.setItem(0, restored);
-                                getLogger().info("Slot 0 restored: " + restored.getType());
-                            } catch (Exception e) {
-                                getLogger().warning("Failed to restore brewing stand slot 0: " + e.getMessage());
-                                e.printStackTrace();
-                            }
-                        }
-                        
-                        if (itemMeta.getPersistentDataContainer().has(brewingSlot1Key, PersistentDataType.STRING)) {
-                            String json = itemMeta.getPersistentDataContainer().get(brewingSlot1Key, PersistentDataType.STRING);
-                            getLogger().info("Slot 1 JSON length on restore: " + json.length());
-                            try {
-                                Map<String, Object> map = gson.fromJson(json, Map.class);
-                                ItemStack restored = ItemStack.deserialize(map);
-                                inventory.setItem(1, restored);
-                                getLogger().info("Slot 1 restored: " + restored.getType());
-                            } catch (Exception e) {
-                                getLogger().warning("Failed to restore brewing stand slot 1: " + e.getMessage());
-                                e.printStackTrace();
-                            }
-                        }
-                        
-                        if (itemMeta.getPersistentDataContainer().has(brewingSlot2Key, PersistentDataType.STRING)) {
-                            String json = itemMeta.getPersistentDataContainer().get(brewingSlot2Key, PersistentDataType.STRING);
-                            getLogger().info("Slot 2 JSON length on restore: " + json.length());
-                            try {
-                                Map<String, Object> map = gson.fromJson(json, Map.class);
-                                ItemStack restored = ItemStack.deserialize(map);
-                                inventory.setItem(2, restored);
-                                getLogger().info("Slot 2 restored: " + restored.getType());
-                            } catch (Exception e) {
-                                getLogger().warning("Failed to restore brewing stand slot 2: " + e.getMessage());
-                                e.printStackTrace();
-                            }
-                        }
-                        
-                        if (itemMeta.getPersistentDataContainer().has(brewingSlot3Key, PersistentDataType.STRING)) {
-                            String json = itemMeta.getPersistentDataContainer().get(brewingSlot3Key, PersistentDataType.STRING);
-                            getLogger().info("Slot 3 JSON length on restore: " + json.length());
-                            try {
-                                Map<String, Object> map = gson.fromJson(json, Map.class);
-                                ItemStack restored = ItemStack.deserialize(map);
-                                inventory.setItem(3, restored);
-                                getLogger().info("Slot 3 restored: " + restored.getType());
-                            } catch (Exception e) {
-                                getLogger().warning("Failed to restore brewing stand slot 3: " + e.getMessage());
-                                e.printStackTrace();
-                            }
-                        }
-                        
-                        if (itemMeta.getPersistentDataContainer().has(brewingSlot4Key, PersistentDataType.STRING)) {
-                            String json = itemMeta.getPersistentDataContainer().get(brewingSlot4Key, PersistentDataType.STRING);
-                            getLogger().info("Slot 4 JSON length on restore: " + json.length());
-                            try {
-                                Map<String, Object> map = gson.fromJson(json, Map.class);
-                                ItemStack restored = ItemStack.deserialize(map);
-                                inventory.setItem(4, restored);
-                                getLogger().info("Slot 4 restored: " + restored.getType());
-                            } catch (Exception e) {
-                                getLogger().warning("Failed to restore brewing stand slot 4: " + e.getMessage());
-                                e.printStackTrace();
-                            }
-                        }
-                    }
+        // Plugin-fired placement events may not carry an item
+        if (item == null || item.getType() != Material.BREWING_STAND) {
+            return;
+        }
+        
+        boolean master = isMasterBrewingStand(item);
+        ItemMeta itemMeta = master ? item.getItemMeta() : null;
+        
+        // Multi-place events report every block they changed
+        if (event instanceof org.bukkit.event.block.BlockMultiPlaceEvent) {
+            for (org.bukkit.block.BlockState replaced : ((org.bukkit.event.block.BlockMultiPlaceEvent) event).getReplacedBlockStates()) {
+                Block block = replaced.getBlock();
+                if (master && block.getType() == Material.BREWING_STAND) {
+                    restoreMasterStand(block, itemMeta);
                 }
-            }, 1L);
-            
+            }
+        } else {
+            Block block = event.getBlockPlaced();
+            if (master) {
+                restoreMasterStand(block, itemMeta);
+            }
+        }
+        
+        if (master && event.getPlayer() != null) {
             event.getPlayer().sendMessage(Component.text("Master Brewing Stand placed!", NamedTextColor.GREEN));
         }
     }
     
     /**
-     * Handles breaking of Master Brewing Stand blocks.
-     * 
-     * When a player breaks a block that is a Master Brewing Stand:
-     * 1. Check if the block has our master_brewing_stand NBT marker
-     * 2. Cancel the vanilla break event (prevents normal brewing stand drop)
-     * 3. Create a new Master Brewing Stand item with our NBT marker
-     * 4. Serialize and save all inventory contents to the item's NBT
-     * 5. Save the current fuel level to the item's NBT
-     * 6. Handle SpecialBooks auto-pickup compatibility
-     * 7. Drop the item or add to player's inventory
-     * 8. Remove the block
-     * 
-     * Why cancel the event?
-     * - Prevents vanilla from dropping a regular (non-master) brewing stand
-     * - Prevents SpecialBooks plugin from creating duplicate drops
-     * - Gives us full control over what item drops and its NBT data
-     * 
+     * Turns a placed brewing stand block into a Master Brewing Stand using the
+     * state saved on the item it was placed from.
+     * 
+     * Everything is written to ONE block state snapshot and applied with ONE
+     * update() call:
+     * - master_brewing_stand marker with the item's speed tier
+     * - bulk brewing mode
+     * - fuel level
+     * - the five inventory slots (Gson JSON, see onBlockBreak), written to the
+     *   snapshot inventory so they are applied together with the rest
+     * 
+     * A slot that fails to deserialize is logged and left empty; the other
+     * slots are still restored.
+     * 
+     * @param block The placed brewing stand block
+     * @param itemMeta Metadata of the Master Brewing Stand item that was placed
+     */
+    private void restoreMasterStand(Block block, ItemMeta itemMeta) {
+        BrewingStand brewingStand = (BrewingStand) block.getState();
+        org.bukkit.persistence.PersistentDataContainer itemData = itemMeta.getPersistentDataContainer();
+        
+        // Mark this block as a master brewing stand, keeping the item's speed tier
+        brewingStand.getPersistentDataContainer().set(masterBrewingStandKey, PersistentDataType.BYTE, (byte) getStandTier(itemData));
+        
+        // Restore bulk brewing mode
+        if (itemData.has(bulkBrewingKey, PersistentDataType.BYTE)) {
+            brewingStand.getPersistentDataContainer().set(bulkBrewingKey, PersistentDataType.BYTE, (byte) 1);
+        }
+        
+        // Restore fuel level
+        Integer fuelLevel = itemData.get(brewingFuelLevelKey, PersistentDataType.INTEGER);
+        if (fuelLevel != null) {
+            brewingStand.setFuelLevel(fuelLevel);
+        }
+        
+        // Restore inventory slots into the snapshot
+        BrewerInventory inventory = brewingStand.getSnapshotInventory();
+        NamespacedKey[] slotKeys = {brewingSlot0Key, brewingSlot1Key, brewingSlot2Key, brewingSlot3Key, brewingSlot4Key};
+        Gson gson = null;
+        for (int slot = 0; slot < slotKeys.length; slot++) {
+            String json = itemData.get(slotKeys[slot], PersistentDataType.STRING);
+            if (json == null) {
+                continue;
+            }
+            
+            if (gson == null) {
+                gson = new Gson();
+            }
+            try {
+                Map<String, Object> map = gson.fromJson(json, Map.class);
+                inventory.setItem(slot, ItemStack.deserialize(map));
+            } catch (Exception e) {
+                getLogger().warning("Failed to restore brewing stand slot " + slot + ": " + e.getMessage());
+            }
+        }
+        
+        // Single write of marker, fuel and contents
+        if (!brewingStand.update()) {
+            getLogger().warning("Failed to restore Master Brewing Stand at " + block.getX() + ", " + block.getY() + ", " + block.getZ());
+        }
+    }
+    
+    /**
+     * Handles breaking of Master Brewing Stand blocks.
+     * 
+     * When a player breaks a block that is a Master Brewing Stand:
+     * 1. Check if the block has our master_brewing_stand NBT marker
+     * 2. Cancel the vanilla break event (prevents normal brewing stand drop)
+     * 3. Create a new Master Brewing Stand item with our NBT marker
+     * 4. Serialize and save all inventory contents to the item's NBT
+     * 5. Save the current fuel level to the item's NBT
+     * 6. Handle SpecialBooks auto-pickup compatibility
+     * 7. Drop the item or add to player's inventory
+     * 8. Remove the block
+     * 
+     * Why cancel the event?
+     * - Prevents vanilla from dropping a regular (non-master) brewing stand
+     * - Prevents SpecialBooks plugin from creating duplicate drops
+     * - Gives us full control over what item drops and its NBT data
+     * 
      * SpecialBooks compatibility:
      * - Checks if player's tool has the "auto_pickup" NBT from SpecialBooks
      * - If present: Add item directly to inventory (same as SpecialBooks behavior)
@@ -1538,7 +3710,7 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
                 
                 Player player = event.getPlayer();
                 ItemStack tool = player.getInventory().getItemInMainHand();
-                ItemStack masterStand = createMasterBrewingStand();
+                ItemStack masterStand = createMasterBrewingStand(getStandTier(brewingStand.getPersistentDataContainer()));
                 
                 // Save brewing stand state to the item's NBT
                 ItemMeta standMeta = masterStand.getItemMeta();
@@ -1589,6 +3761,11 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
                     standMeta.getPersistentDataContainer().set(brewingFuelLevelKey, PersistentDataType.INTEGER, fuelLevel);
                 }
                 
+                // Save bulk brewing mode
+                if (brewingStand.getPersistentDataContainer().has(bulkBrewingKey, PersistentDataType.BYTE)) {
+                    standMeta.getPersistentDataContainer().set(bulkBrewingKey, PersistentDataType.BYTE, (byte) 1);
+                }
+                
                 masterStand.setItemMeta(standMeta);
                 
                 // Check if tool has auto-pickup from SpecialBooks
@@ -1634,6 +3811,12 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      * 5. Store current potion states before any modification
      * 6. Schedule task to restore potions and apply our master brewing logic
      * 
+     * stand-upgrade-cooldown is normally enforced by onBrewingStart(), which
+     * stretches the brew so it ends when the cooldown does. If a brew still
+     * completes inside the cooldown (the cooldown was raised mid-brew), it is
+     * checked before cancelling: the potions are left alone and the charge
+     * vanilla burns to restart the brew is given back, so waiting costs no fuel.
+     * 
      * Why cancel vanilla brewing for redstone/glowstone?
      * - Vanilla has its own recipes: Redstone → Long potion, Glowstone → Strong potion
      * - These would conflict with our upgrade system
@@ -1648,9 +3831,8 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
     public void onBrew(BrewEvent event) {
         Block block = event.getBlock();
         
-        // Check if this is a master brewing stand by reading block NBT
-        BrewingStand brewingStand = (BrewingStand) block.getState();
-        if (!brewingStand.getPersistentDataContainer().has(masterBrewingStandKey, PersistentDataType.BYTE)) {
+        // Check if this is a master brewing stand (cached block NBT lookup)
+        if (!isMasterBrewingStandAt(block)) {
             return;
         }
         
@@ -1679,6 +3861,13 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             }
         }
         
+        // Throughput limit, checked before anything is cancelled or consumed
+        if (getStandCooldownLeft(block) > 0) {
+            event.setCancelled(true);
+            Bukkit.getScheduler().runTaskLater(this, () -> refundRestartCharge(block), 2L);
+            return;
+        }
+        
         // Cancel vanilla brewing for master brewing stands with redstone/glowstone
         event.setCancelled(true);
         
@@ -1691,11 +3880,295 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
                 }
             }
             
-            // Now process master brewing
-            processMasterBrew(inv, ingredient, isRedstone, isGlowstone);
+            // Start the cooldown from this upgrade
+            if (standUpgradeCooldownTicks > 0 && block.getType() == Material.BREWING_STAND) {
+                ((BrewingStand) block.getState(false)).getPersistentDataContainer()
+                    .set(lastStandUpgradeKey, PersistentDataType.LONG, block.getWorld().getGameTime());
+            }
+            
+            // Now process master brewing (all affordable levels in bulk mode)
+            if (block.getType() == Material.BREWING_STAND
+                    && ((BrewingStand) block.getState(false)).getPersistentDataContainer().has(bulkBrewingKey, PersistentDataType.BYTE)) {
+                processMasterBrewBulk(block, inv, isRedstone);
+            } else {
+                processMasterBrew(inv, ingredient, isRedstone, isGlowstone);
+            }
+        });
+    }
+    
+    /**
+     * Applies the stand's speed tier when a Master Brewing Stand starts brewing.
+     * 
+     * Paper fires BrewingStartEvent once per brew cycle, before the first tick,
+     * so setting the total brew time here is all it takes - the progress arrow
+     * scales with it and BrewEvent fires when it runs out. Vanilla stands and
+     * tier 1 master stands at the default 400 ticks are left untouched.
+     * 
+     * stand-upgrade-cooldown is applied here too: a brew that would finish
+     * inside the cooldown is stretched to end with it. Every charge of fuel
+     * then pays for an upgrade instead of for a skipped cycle.
+     * 
+     * @param event The brewing start event from Paper
+     */
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onBrewingStart(org.bukkit.event.block.BrewingStartEvent event) {
+        Block block = event.getBlock();
+        if (!isMasterBrewingStandAt(block)) {
+            return;
+        }
+        
+        int tier = getStandTier(((BrewingStand) block.getState(false)).getPersistentDataContainer());
+        int brewTicks = (int) Math.max(getStandTierBrewTime(tier), Math.min(getStandCooldownLeft(block), Integer.MAX_VALUE));
+        if (brewTicks != event.getTotalBrewTime()) {
+            event.setTotalBrewTime(brewTicks);
+        }
+    }
+    
+    /**
+     * Ticks until a placed Master Brewing Stand may upgrade again.
+     * 
+     * @param block The stand block
+     * @return Remaining stand-upgrade-cooldown in ticks, 0 if it may upgrade now
+     */
+    private long getStandCooldownLeft(Block block) {
+        if (standUpgradeCooldownTicks <= 0) {
+            return 0;
+        }
+        Long last = ((BrewingStand) block.getState(false)).getPersistentDataContainer().get(lastStandUpgradeKey, PersistentDataType.LONG);
+        if (last == null) {
+            return 0;
+        }
+        return Math.max(0, last + standUpgradeCooldownTicks - block.getWorld().getGameTime());
+    }
+    
+    /**
+     * Gives back the fuel charge vanilla burned to restart a brew that was
+     * held back by stand-upgrade-cooldown (see onBrew).
+     * 
+     * Runs two ticks after the held brew, once the stand has restarted. If it
+     * did not restart (ingredient taken out), no charge was burned.
+     * 
+     * @param block The stand block
+     */
+    private void refundRestartCharge(Block block) {
+        if (!isMasterBrewingStandAt(block)) {
+            return;
+        }
+        BrewingStand stand = (BrewingStand) block.getState(false);
+        if (stand.getBrewingTime() > 0 && stand.getFuelLevel() < 20) {
+            stand.setFuelLevel(stand.getFuelLevel() + 1);
+        }
+    }
+    
+    /**
+     * Bulk-feeds Master Brewing Stands from hoppers, hopper minecarts and droppers.
+     * 
+     * Vanilla hoppers move one item every 8 ticks, so filling a stand with 64
+     * glowstone takes 64 events. For Master Brewing Stands this handler takes
+     * over transfers of redstone, glowstone dust and blaze powder:
+     * 1. Fast path: ignore anything that isn't going into a brewing inventory
+     * 2. Recognize master stands through isMasterBrewingStandAt()
+     * 3. If the stand has room for the item, cancel the single-item move and
+     *    schedule ONE bulk transfer next tick (inventories must not be
+     *    modified from inside this event); otherwise leave it to vanilla
+     * 
+     * The transfer moves the exact item the hopper offered (renamed or tagged
+     * items stay as they are and are never merged with plain ones). It re-checks
+     * that the source and the stand still exist, since a hopper minecart can be
+     * destroyed or a block broken before the next tick.
+     * 
+     * Blaze powder always goes to the fuel slot, even from a hopper above,
+     * since master stands only use it as fuel. Other items keep vanilla behavior.
+     * 
+     * @param event The inventory move event from Bukkit
+     */
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onInventoryMoveItem(InventoryMoveItemEvent event) {
+        org.bukkit.inventory.Inventory destination = event.getDestination();
+        if (destination.getType() != InventoryType.BREWING || !(destination instanceof BrewerInventory)) {
+            return;
+        }
+        
+        ItemStack item = event.getItem();
+        if (!isAutomationMaterial(item.getType())) {
+            return;
+        }
+        
+        Location location = destination.getLocation();
+        if (location == null || !isMasterBrewingStandAt(location.getBlock())) {
+            return;
+        }
+        
+        // Only take over moves we can complete - a full or blocked slot stays vanilla
+        BrewerInventory standInv = (BrewerInventory) destination;
+        if (getMasterStandSpace(standInv, item) <= 0) {
+            return;
+        }
+        
+        event.setCancelled(true);
+        
+        // One pending transfer per stand - repeat events in the same tick are dropped
+        if (!pendingStandTransfers.add(location)) {
+            return;
+        }
+        
+        org.bukkit.inventory.Inventory source = event.getSource();
+        ItemStack template = item.clone();
+        Bukkit.getScheduler().runTask(this, () -> {
+            pendingStandTransfers.remove(location);
+            
+            // Source or stand may have been destroyed since the event
+            if (!isInventoryPresent(source) || !isMasterBrewingStandAt(location.getBlock())) {
+                return;
+            }
+            
+            // Move every stack matching the offered item (up to the slot's free space)
+            int available = 0;
+            for (ItemStack stack : source.getContents()) {
+                if (stack != null && stack.isSimilar(template)) {
+                    available += stack.getAmount();
+                }
+            }
+            
+            BrewerInventory liveStand = ((BrewingStand) location.getBlock().getState(false)).getInventory();
+            int moved = insertIntoMasterStand(liveStand, template, available);
+            if (moved > 0) {
+                source.removeItem(template.asQuantity(moved));
+            }
         });
     }
     
+    /**
+     * Lets hoppers that feed a Master Brewing Stand pass dropped items straight through.
+     * 
+     * When a hopper facing a master stand picks up redstone, glowstone dust or
+     * blaze powder, the items go directly into the stand in one step instead of
+     * waiting in the hopper and trickling in one per transfer.
+     * 
+     * Cheap checks (inventory type, item type) come first so the many pickups
+     * that don't involve a master stand return immediately.
+     * 
+     * @param event The inventory pickup event from Bukkit
+     */
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onInventoryPickupItem(InventoryPickupItemEvent event) {
+        org.bukkit.inventory.Inventory hopper = event.getInventory();
+        if (hopper.getType() != InventoryType.HOPPER) {
+            return;
+        }
+        
+        ItemStack stack = event.getItem().getItemStack();
+        if (!isAutomationMaterial(stack.getType())) {
+            return;
+        }
+        
+        Location location = hopper.getLocation();
+        if (location == null) {
+            return;
+        }
+        
+        // Find the block this hopper outputs into
+        Block hopperBlock = location.getBlock();
+        if (!(hopperBlock.getBlockData() instanceof org.bukkit.block.data.Directional)) {
+            return;
+        }
+        Block target = hopperBlock.getRelative(((org.bukkit.block.data.Directional) hopperBlock.getBlockData()).getFacing());
+        if (!isMasterBrewingStandAt(target)) {
+            return;
+        }
+        
+        BrewerInventory standInv = ((BrewingStand) target.getState(false)).getInventory();
+        int moved = insertIntoMasterStand(standInv, stack, stack.getAmount());
+        if (moved <= 0) {
+            return;  // Stand is full - let the hopper pick it up normally
+        }
+        
+        event.setCancelled(true);
+        if (moved >= stack.getAmount()) {
+            event.getItem().remove();
+        } else {
+            stack.setAmount(stack.getAmount() - moved);
+            event.getItem().setItemStack(stack);
+        }
+    }
+    
+    /**
+     * Checks if a material is handled by Master Brewing Stand automation.
+     * 
+     * @param type The item material
+     * @return true for redstone, glowstone dust and blaze powder
+     */
+    private boolean isAutomationMaterial(Material type) {
+        return type == Material.REDSTONE || type == Material.GLOWSTONE_DUST || type == Material.BLAZE_POWDER;
+    }
+    
+    /**
+     * Gets how many more of an item a Master Brewing Stand's automation slot can take.
+     * 
+     * Redstone and glowstone go to the ingredient slot (3), blaze powder to the
+     * fuel slot (4). The slot must be empty or hold the same item (isSimilar).
+     * 
+     * @param inv The stand's live inventory
+     * @param item The item to insert (amount ignored)
+     * @return Free space in the slot, 0 if it holds a different item or is full
+     */
+    private int getMasterStandSpace(BrewerInventory inv, ItemStack item) {
+        ItemStack current = inv.getItem((item.getType() == Material.BLAZE_POWDER) ? 4 : 3);
+        if (current == null || current.getType() == Material.AIR) {
+            return item.getMaxStackSize();
+        }
+        if (!current.isSimilar(item)) {
+            return 0;
+        }
+        return Math.max(0, item.getMaxStackSize() - current.getAmount());
+    }
+    
+    /**
+     * Inserts up to {@code amount} copies of an item into a Master Brewing Stand in one step.
+     * 
+     * Uses the slot chosen by getMasterStandSpace(). Nothing is inserted if the
+     * slot holds a different item.
+     * 
+     * @param inv The stand's live inventory
+     * @param item The item to insert (copied with its meta; amount ignored)
+     * @param amount Maximum number of items to insert
+     * @return Number of items actually inserted
+     */
+    private int insertIntoMasterStand(BrewerInventory inv, ItemStack item, int amount) {
+        int moved = Math.min(amount, getMasterStandSpace(inv, item));
+        if (moved <= 0) {
+            return 0;
+        }
+        
+        int slot = (item.getType() == Material.BLAZE_POWDER) ? 4 : 3;
+        ItemStack current = inv.getItem(slot);
+        int present = (current == null || current.getType() == Material.AIR) ? 0 : current.getAmount();
+        inv.setItem(slot, item.asQuantity(present + moved));
+        return moved;
+    }
+    
+    /**
+     * Checks that an inventory from an earlier event still belongs to something in the world.
+     * 
+     * Entity inventories (hopper minecarts) need a valid entity; block inventories
+     * need the block to still hold this same inventory.
+     * 
+     * @param inventory The inventory to check
+     * @return true if it is safe to move items out of it
+     */
+    private boolean isInventoryPresent(org.bukkit.inventory.Inventory inventory) {
+        org.bukkit.inventory.InventoryHolder holder = inventory.getHolder(false);
+        if (holder instanceof org.bukkit.entity.Entity) {
+            return ((org.bukkit.entity.Entity) holder).isValid();
+        }
+        if (holder instanceof org.bukkit.block.BlockState) {
+            org.bukkit.block.BlockState live = ((org.bukkit.block.BlockState) holder).getBlock().getState(false);
+            return live instanceof org.bukkit.inventory.InventoryHolder
+                && ((org.bukkit.inventory.InventoryHolder) live).getInventory().equals(inventory);
+        }
+        return holder != null;
+    }
+    
     /**
      * Processes master brewing upgrade logic for a brewing stand inventory.
      * 
@@ -1759,6 +4232,80 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         }
     }
     
+    /**
+     * Processes a brew cycle for a stand in "brew to exhaustion" (bulk) mode.
+     * 
+     * Instead of one upgrade per 20-second vanilla cycle, applies every upgrade
+     * the stand can afford in this one brew event, using the same planner and
+     * cost rules as virtual stands (planUpgrades):
+     * - Each level costs the next-level price of the first upgradable potion
+     * - Each level uses one fuel charge; blaze powder in the fuel slot refills 20
+     * 
+     * The charge for the first level was already burned by vanilla when this
+     * brew started, so the plan starts with one extra charge. Potions, ingredient
+     * and blaze powder are written back with a single setContents(), and the
+     * remaining charges are stored as the stand's fuel level.
+     * 
+     * @param block The brewing stand block
+     * @param inv The brewing stand's live inventory
+     * @param isRedstone true if upgrading duration, false for power
+     */
+    private void processMasterBrewBulk(Block block, BrewerInventory inv, boolean isRedstone) {
+        ItemStack[] contents = inv.getContents();
+        ItemStack ingredient = contents[3];
+        if (ingredient == null) {
+            return;
+        }
+        
+        ItemStack fuel = contents[4];
+        int blazePowder = (fuel != null && fuel.getType() == Material.BLAZE_POWDER) ? fuel.getAmount() : 0;
+        BrewingStand brewingStand = (BrewingStand) block.getState();
+        
+        // Decode each potion once
+        MasterPotionState[] states = new MasterPotionState[3];
+        for (int slot = 0; slot < 3; slot++) {
+            states[slot] = readMasterPotionState(contents[slot]);
+        }
+        
+        UpgradePlan plan = planUpgrades(states, ingredient.getAmount(), isRedstone,
+            brewingStand.getFuelLevel() + 1, blazePowder, Integer.MAX_VALUE);
+        if (plan.levels == 0) {
+            return;
+        }
+        
+        // Write final potion states (one meta write per potion)
+        for (int slot = 0; slot < 3; slot++) {
+            if (states[slot] != null && states[slot].levelsGained > 0) {
+                applyMasterPotionState(contents[slot], states[slot]);
+            }
+        }
+        
+        // Consume ingredient
+        int ingredientLeft = ingredient.getAmount() - plan.materialUsed;
+        if (ingredientLeft <= 0) {
+            contents[3] = null;
+        } else {
+            ingredient.setAmount(ingredientLeft);
+        }
+        
+        // Consume blaze powder used to refill fuel
+        if (plan.blazePowderUsed > 0) {
+            int fuelLeft = fuel.getAmount() - plan.blazePowderUsed;
+            if (fuelLeft <= 0) {
+                contents[4] = null;
+            } else {
+                fuel.setAmount(fuelLeft);
+            }
+        }
+        
+        inv.setContents(contents);
+        
+        // Store remaining charges (the charge vanilla burned for this brew counts as the first level)
+        brewingStand = (BrewingStand) block.getState();
+        brewingStand.setFuelLevel(plan.fuelRemaining);
+        brewingStand.update();
+    }
+    
     /**
      * Extracts the base duration from a vanilla potion for initial upgrade calculations.
      * 
@@ -1786,24 +4333,11 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             }
         }
         
-        // Fallback: use vanilla potion type durations
+        // Fallback: use vanilla potion type durations (precomputed table)
         PotionType potionType = meta.getBasePotionType();
-        if (potionType != null) {
-            String typeName = potionType.name();
-            
-            // Long variants are 8 minutes (480 seconds)
-            if (typeName.startsWith("LONG_")) {
-                return 480;
-            }
-            
-            // Strong variants and regular variants are 3 minutes (180 seconds)
-            // Instant effects return 1 second
-            if (typeName.contains("INSTANT")) {
-                return 1;
-            }
-            
-            // Default to 3 minutes for most potions
-            return 180;
+        BaseInfo info = (potionType != null) ? vanillaPotionInfo.get(potionType) : null;
+        if (info != null) {
+            return info.duration;
         }
         
         // Ultimate fallback
@@ -1883,6 +4417,7 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         
         // Add new effect
         effects.add(new ActiveMasterEffect(effectTypeKey, powerLevel, expiryTime));
+        effectsRenderCache.remove(uuid);
         
         // Handle fly potion specially
         if (effectTypeKey.equals("fly")) {
@@ -1992,6 +4527,30 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
     public void onPlayerQuit(PlayerQuitEvent event) {
         UUID uuid = event.getPlayer().getUniqueId();
         
+        // Persist the resident virtual stands BEFORE the effects save
+        // (a migrated stand 1 still clears old fields from the player file).
+        // A stand with a timed brew in progress stays resident so it keeps
+        // brewing while they are offline; it is evicted when that brew finishes.
+        VirtualStand openStand = virtualBrewingStands.remove(uuid);
+        if (openStand != null && openStand.team != null) {
+            releaseTeamStand(openStand, uuid);
+        }
+        virtualStandsLoading.remove(uuid);
+        openStandSelectors.remove(uuid);
+        standSelectorPages.remove(uuid);
+        standSelectorLimits.remove(uuid);
+        standSelectorStands.remove(uuid);
+        Map<Integer, VirtualStand> stands = virtualStandCache.get(uuid);
+        if (stands != null) {
+            for (VirtualStand stand : stands.values()) {
+                persistVirtualStand(stand);
+            }
+            stands.values().removeIf(stand -> stand.activeJob == null);
+            if (stands.isEmpty()) {
+                virtualStandCache.remove(uuid);
+            }
+        }
+        
         // Get the effects BEFORE removing from map
         List<ActiveMasterEffect> effects = activeMasterEffects.get(uuid);
         
@@ -2000,6 +4559,11 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         
         // Remove from active tracking
         activeMasterEffects.remove(uuid);
+        effectsRenderCache.remove(uuid);
+        rebuildPlayerNameCompletions(uuid);
+        pendingVirtualBrews.removeIf(stand -> stand.owner.equals(uuid));
+        throttledVirtualBrews.removeIf(stand -> stand.owner.equals(uuid));
+        playerBrewBuckets.remove(uuid);
     }
     
     /**
@@ -2026,9 +4590,14 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         UUID uuid = event.getPlayer().getUniqueId();
         Player player = event.getPlayer();
         
+        rebuildPlayerNameCompletions(null);
+        
         // Load saved effects
         loadPlayerEffects(uuid);
         
+        // Hand over Master Potions given while offline
+        deliverMailbox(player);
+        
         // Wait 1 tick for player to fully load, then restore effects
         Bukkit.getScheduler().runTask(this, () -> {
             // Immediately restore flight state if player has active fly effect
@@ -2061,13 +4630,8 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
                         player.sendMessage(Component.text("Flight restored! ", NamedTextColor.GREEN)
                             .append(Component.text(formatDuration(remainingSeconds) + " remaining", NamedTextColor.YELLOW)));
                     } else {
-                        // Restore normal potion effects immediately
-                        String mappedEffectKey = effect.effectTypeKey;
-                        if (effect.effectTypeKey.equals("fortune")) {
-                            mappedEffectKey = "luck";
-                        }
-                        
-                        PotionEffectType effectType = PotionEffectType.getByKey(org.bukkit.NamespacedKey.minecraft(mappedEffectKey));
+                        // Restore normal potion effects immediately (type resolved when the effect was created)
+                        PotionEffectType effectType = effect.effectType;
                         if (effectType != null) {
                             int durationTicks = remainingSeconds * 20;
                             player.addPotionEffect(new PotionEffect(effectType, durationTicks, effect.amplifier, false, true, true), true);
@@ -2101,8 +4665,8 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      * @param effects List of active effects to save (may be null or empty)
      */
     private void savePlayerEffects(UUID uuid, List<ActiveMasterEffect> effects) {
-        // OPTIMIZATION #4: Run file I/O asynchronously
-        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+        // OPTIMIZATION #4: Run file I/O asynchronously (on the ordered I/O thread)
+        runOnIoThread(() -> {
             File playerDataFolder = new File(getDataFolder(), "playerdata");
             if (!playerDataFolder.exists()) {
                 playerDataFolder.mkdirs();
@@ -2320,21 +4884,19 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         
         if (!effects.isEmpty()) {
             activeMasterEffects.put(uuid, effects);
+            effectsRenderCache.remove(uuid);
             getLogger().info("Restored " + effects.size() + " master potion effects for player " + uuid);
         }
     }
     
     /**
-     * Saves a player's virtual brewing stand contents to their playerdata file.
+     * Saves one of a player's virtual brewing stands to its own record.
      * 
-     * IMPORTANT: This method must preserve existing "active-effects" data in the file!
-     * The playerdata file contains BOTH brewing stand data AND active potion effects.
-     * We load the existing config first to avoid overwriting effect data.
+     * Each stand is stored in a separate file so that opening one stand never
+     * reads or deserializes the others:
      * 
-     * File structure (plugins/MasterBrewing/playerdata/{uuid}.yml):
+     * File structure (plugins/MasterBrewing/playerdata/stands/{uuid}/{n}.yml):
      * ```yaml
-     * active-effects:       # Preserved from existing file
-     *   - "speed,3,1699459200000"
      * slot0: "base64..."    # Left potion bottle (Base64 ItemStack)
      * slot1: "base64..."    # Middle potion bottle
      * slot2: "base64..."    # Right potion bottle
@@ -2346,15 +4908,44 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      * ItemStacks are serialized using Bukkit's BukkitObjectOutputStream to Base64.
      * This preserves all NBT data including our custom master potion tags.
      * 
-     * If no brewing content exists AND no active effects exist, the file is deleted.
+     * If the stand is empty the record is deleted (and the player's folder
+     * with it once no stands remain).
+     * 
+     * Older versions kept a single stand as slot0..slot4/fuel in the player's
+     * playerdata/{uuid}.yml. Stand 1 is migrated from there on first load;
+     * clearLegacy removes those fields once the new record has been written,
+     * preserving "active-effects".
      * 
      * @param playerUUID The player's UUID
+     * @param index Stand number (1-based)
      * @param contents Array of 5 ItemStacks (slots 0-4, may contain nulls)
      * @param fuelLevel Current fuel level (0-20)
+     * @param brewTicksLeft Ticks left of the timed brew in progress (0 = idle)
+     * @param clearLegacy true to strip the old single-stand fields from the player file
      */
-    private void savePlayerBrewingData(UUID playerUUID, ItemStack[] contents, int fuelLevel) {
-        File playerFile = new File(getDataFolder(), "playerdata/" + playerUUID.toString() + ".yml");
+    private void savePlayerBrewingData(UUID playerUUID, int index, ItemStack[] contents, int fuelLevel, int brewTicksLeft, boolean clearLegacy) {
+        File standFile = new File(getDataFolder(), "playerdata/stands/" + playerUUID.toString() + "/" + index + ".yml");
         
+        // Keep the old fields until the new record exists
+        if (writeStandRecord(standFile, contents, fuelLevel, brewTicksLeft, "brewing stand " + index + " for " + playerUUID) && clearLegacy) {
+            clearLegacyBrewingData(playerUUID);
+        }
+    }
+    
+    /**
+     * Writes a stand record (slot0..slot4, fuel, brew-ticks-left), or deletes it if the stand is empty.
+     * 
+     * Shared by personal and team stands. An emptied record's folder is removed
+     * too when nothing else is left in it.
+     * 
+     * @param standFile The record file
+     * @param contents Array of 5 ItemStacks (slots 0-4, may contain nulls)
+     * @param fuelLevel Current fuel level (0-20)
+     * @param brewTicksLeft Ticks left of the timed brew in progress (0 = idle)
+     * @param label Description used in warnings
+     * @return true if the record now matches the stand
+     */
+    private boolean writeStandRecord(File standFile, ItemStack[] contents, int fuelLevel, int brewTicksLeft, String label) {
         // Check if there's any brewing content to save
         boolean hasBrewingContent = false;
         for (ItemStack item : contents) {
@@ -2365,31 +4956,16 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         }
         hasBrewingContent = hasBrewingContent || fuelLevel > 0;
         
-        // Load existing config to preserve active-effects data
-        org.bukkit.configuration.file.YamlConfiguration config;
-        if (playerFile.exists()) {
-            config = org.bukkit.configuration.file.YamlConfiguration.loadConfiguration(playerFile);
-        } else {
-            config = new org.bukkit.configuration.file.YamlConfiguration();
-        }
-        
-        // Check if there are active effects we need to preserve
-        boolean hasActiveEffects = config.contains("active-effects") && 
-                                   !config.getStringList("active-effects").isEmpty();
-        
-        // If no brewing content and no active effects, delete the file
-        if (!hasBrewingContent && !hasActiveEffects) {
-            if (playerFile.exists()) {
-                playerFile.delete();
+        if (!hasBrewingContent) {
+            if (standFile.exists()) {
+                standFile.delete();
             }
-            return;
+            // Removes the folder only if no other records are stored
+            standFile.getParentFile().delete();
+            return true;
         }
         
-        // Clear old brewing slot data (in case slots were emptied)
-        for (int i = 0; i < 5; i++) {
-            config.set("slot" + i, null);
-        }
-        config.set("fuel", null);
+        org.bukkit.configuration.file.YamlConfiguration config = new org.bukkit.configuration.file.YamlConfiguration();
         
         // Save current brewing slot contents
         for (int i = 0; i < contents.length; i++) {
@@ -2404,39 +4980,106 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             config.set("fuel", fuelLevel);
         }
         
+        // Progress of a timed brew, so it resumes instead of restarting after a restart
+        if (brewTicksLeft > 0) {
+            config.set("brew-ticks-left", brewTicksLeft);
+        }
+        
         try {
-            config.save(playerFile);
+            standFile.getParentFile().mkdirs();
+            config.save(standFile);
+            return true;
         } catch (Exception e) {
-            getLogger().warning("Failed to save brewing data for " + playerUUID + ": " + e.getMessage());
+            getLogger().warning("Failed to save " + label + ": " + e.getMessage());
+            return false;
         }
     }
     
     /**
-     * Loads a player's virtual brewing stand contents from their playerdata file.
+     * Removes the old single-stand fields (slot0..slot4, fuel) from a player's file.
      * 
-     * Reads Base64-encoded ItemStacks from the YAML file and deserializes them.
-     * Called when a player opens their virtual brewing stand via /masterbrewing.
+     * Keeps "active-effects"; deletes the file if nothing else is left.
      * 
      * @param playerUUID The player's UUID
-     * @return Two-element Object array: [0] = ItemStack[5] contents, [1] = Integer fuel level
-     *         Contents array may contain nulls for empty slots. Fuel defaults to 0.
      */
-    private Object[] loadPlayerBrewingData(UUID playerUUID) {
+    private void clearLegacyBrewingData(UUID playerUUID) {
         File playerFile = new File(getDataFolder(), "playerdata/" + playerUUID.toString() + ".yml");
+        if (!playerFile.exists()) {
+            return;
+        }
         
-        ItemStack[] contents = new ItemStack[5];
-        int fuelLevel = 0;
+        org.bukkit.configuration.file.YamlConfiguration config = 
+            org.bukkit.configuration.file.YamlConfiguration.loadConfiguration(playerFile);
+        for (int i = 0; i < 5; i++) {
+            config.set("slot" + i, null);
+        }
+        config.set("fuel", null);
         
-        if (!playerFile.exists()) {
-            return new Object[] { contents, fuelLevel };
+        if (config.getStringList("active-effects").isEmpty()) {
+            playerFile.delete();
+            return;
         }
         
         try {
-            org.bukkit.configuration.file.YamlConfiguration config = 
-                org.bukkit.configuration.file.YamlConfiguration.loadConfiguration(playerFile);
-            
-            // Load each slot
-            for (int i = 0; i < 5; i++) {
+            config.save(playerFile);
+        } catch (Exception e) {
+            getLogger().warning("Failed to save player data for " + playerUUID + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Loads one of a player's virtual brewing stands from its record.
+     * 
+     * Reads Base64-encoded ItemStacks from the YAML file and deserializes them.
+     * Only the requested stand's file is read. Stand 1 falls back to the old
+     * single-stand fields in the player's file if it has no record yet.
+     * 
+     * @param playerUUID The player's UUID
+     * @param index Stand number (1-based)
+     * @return Four-element Object array: [0] = ItemStack[5] contents, [1] = Integer fuel level,
+     *         [2] = Boolean true if the data came from the old player file fields,
+     *         [3] = Integer ticks left of an interrupted timed brew.
+     *         Contents array may contain nulls for empty slots. Fuel and ticks default to 0.
+     */
+    private Object[] loadPlayerBrewingData(UUID playerUUID, int index) {
+        File standFile = new File(getDataFolder(), "playerdata/stands/" + playerUUID.toString() + "/" + index + ".yml");
+        boolean legacy = false;
+        
+        if (!standFile.exists() && index == 1) {
+            File playerFile = new File(getDataFolder(), "playerdata/" + playerUUID.toString() + ".yml");
+            if (playerFile.exists()) {
+                standFile = playerFile;
+                legacy = true;
+            }
+        }
+        
+        Object[] data = readStandRecord(standFile, "brewing stand " + index + " for " + playerUUID);
+        return new Object[] { data[0], data[1], legacy, data[2] };
+    }
+    
+    /**
+     * Reads a stand record (slot0..slot4, fuel, brew-ticks-left).
+     * 
+     * @param standFile The record file (missing = empty stand)
+     * @param label Description used in warnings
+     * @return Three-element Object array: [0] = ItemStack[5] contents, [1] = Integer fuel level,
+     *         [2] = Integer ticks left of an interrupted timed brew
+     */
+    private Object[] readStandRecord(File standFile, String label) {
+        ItemStack[] contents = new ItemStack[5];
+        int fuelLevel = 0;
+        int brewTicksLeft = 0;
+        
+        if (!standFile.exists()) {
+            return new Object[] { contents, fuelLevel, brewTicksLeft };
+        }
+        
+        try {
+            org.bukkit.configuration.file.YamlConfiguration config = 
+                org.bukkit.configuration.file.YamlConfiguration.loadConfiguration(standFile);
+            
+            // Load each slot
+            for (int i = 0; i < 5; i++) {
                 String base64 = config.getString("slot" + i);
                 if (base64 != null) {
                     contents[i] = itemStackFromBase64(base64);
@@ -2445,12 +5088,13 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             
             // Load fuel level
             fuelLevel = config.getInt("fuel", 0);
+            brewTicksLeft = Math.max(0, config.getInt("brew-ticks-left", 0));
             
         } catch (Exception e) {
-            getLogger().warning("Failed to load brewing data for " + playerUUID + ": " + e.getMessage());
+            getLogger().warning("Failed to load " + label + ": " + e.getMessage());
         }
         
-        return new Object[] { contents, fuelLevel };
+        return new Object[] { contents, fuelLevel, brewTicksLeft };
     }
     
     /**
@@ -2538,111 +5182,18 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      * @return Material cost consumed, or -1 if upgrade failed/not possible
      */
     private int upgradeMasterPotion(ItemStack potion, boolean isRedstone, boolean isGlowstone) {
-        if (potion == null || !isPotion(potion)) {
+        MasterPotionState state = readMasterPotionState(potion);
+        if (state == null) {
             return -1;
         }
         
-        PotionMeta meta = (PotionMeta) potion.getItemMeta();
-        if (meta == null) {
-            return -1;
-        }
-        
-        // Get current levels
-        int currentTimeLevel = meta.getPersistentDataContainer().getOrDefault(potionTimeLevelKey, PersistentDataType.INTEGER, 0);
-        int currentPowerLevel = meta.getPersistentDataContainer().getOrDefault(potionPowerLevelKey, PersistentDataType.INTEGER, 0);
-        
-        // Get effect type
-        String effectTypeKey = meta.getPersistentDataContainer().get(potionEffectTypeKey, PersistentDataType.STRING);
-        if (effectTypeKey == null) {
-            PotionEffectType effectType = getBasePotionEffect(potion);
-            if (effectType == null) {
-                return -1;
-            }
-            effectTypeKey = effectType.getKey().getKey();
-        }
-        
-        // Determine upgrade parameters
-        int materialCost = 0;
-        int newTimeLevel = currentTimeLevel;
-        int newPowerLevel = currentPowerLevel;
-        int upgradeDuration = 0;
-        
-        if (isRedstone) {
-            if (isInstantEffect(effectTypeKey)) {
-                return -1; // Can't upgrade instant effects with redstone
-            }
-            int nextLevel = currentTimeLevel + 1;
-            int potionMaxTimeLevel = getMaxTimeLevel(effectTypeKey);
-            if (nextLevel > potionMaxTimeLevel) {
-                return -1; // Already at max
-            }
-            Map<Integer, int[]> potionTimeUpgrades = getTimeUpgrades(effectTypeKey);
-            int[] upgrade = potionTimeUpgrades.get(nextLevel);
-            if (upgrade == null) {
-                return -1;
-            }
-            materialCost = upgrade[0];
-            upgradeDuration = upgrade[1];
-            newTimeLevel = nextLevel;
-        } else if (isGlowstone) {
-            int nextLevel = currentPowerLevel + 1;
-            int potionMaxPowerLevel = getMaxPowerLevel(effectTypeKey);
-            if (nextLevel > potionMaxPowerLevel) {
-                return -1; // Already at max
-            }
-            Map<Integer, Integer> potionPowerUpgrades = getPowerUpgrades(effectTypeKey);
-            Integer glowstoneCost = potionPowerUpgrades.get(nextLevel);
-            if (glowstoneCost == null) {
-                return -1;
-            }
-            materialCost = glowstoneCost;
-            newPowerLevel = nextLevel;
-        } else {
+        int materialCost = getNextUpgradeCost(state, isRedstone, isGlowstone);
+        if (materialCost < 0) {
             return -1;
         }
         
-        // Calculate duration
-        int duration;
-        if (isRedstone) {
-            duration = upgradeDuration;
-        } else {
-            // Keep existing duration for power upgrades
-            if (meta.getPersistentDataContainer().has(potionDurationKey, PersistentDataType.INTEGER)) {
-                duration = meta.getPersistentDataContainer().get(potionDurationKey, PersistentDataType.INTEGER);
-            } else {
-                if (effectTypeKey.equals("fly") || effectTypeKey.equals("fortune")) {
-                    duration = 180;
-                } else {
-                    PotionEffectType effectType = PotionEffectType.getByKey(org.bukkit.NamespacedKey.minecraft(effectTypeKey));
-                    if (effectType != null) {
-                        duration = extractVanillaPotionDuration(meta, effectType);
-                    } else {
-                        duration = 180;
-                    }
-                }
-            }
-        }
-        
-        // Get effect type for display
-        PotionEffectType effectType = null;
-        if (!effectTypeKey.equals("fly") && !effectTypeKey.equals("fortune")) {
-            effectType = PotionEffectType.getByKey(org.bukkit.NamespacedKey.minecraft(effectTypeKey));
-        }
-        
-        // Update NBT
-        meta.getPersistentDataContainer().set(potionTimeLevelKey, PersistentDataType.INTEGER, newTimeLevel);
-        meta.getPersistentDataContainer().set(potionPowerLevelKey, PersistentDataType.INTEGER, newPowerLevel);
-        meta.getPersistentDataContainer().set(potionDurationKey, PersistentDataType.INTEGER, duration);
-        meta.getPersistentDataContainer().set(potionEffectTypeKey, PersistentDataType.STRING, effectTypeKey);
-        meta.getPersistentDataContainer().set(masterPotionKey, PersistentDataType.BYTE, (byte) 1);
-        
-        // Clear base potion type
-        meta.setBasePotionType(PotionType.WATER);
-        
-        // Update display (color, effects, name, lore)
-        updateMasterPotionDisplay(meta, effectTypeKey, effectType, newTimeLevel, newPowerLevel, duration);
-        
-        potion.setItemMeta(meta);
+        advanceMasterPotionState(state, isRedstone);
+        applyMasterPotionState(potion, state);
         return materialCost;
     }
     
@@ -2667,50 +5218,295 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      * @return Material cost for next upgrade, or -1 if upgrade not possible
      */
     private int getUpgradeCost(ItemStack potion, boolean isRedstone, boolean isGlowstone) {
-        if (potion == null || !isPotion(potion)) {
+        MasterPotionState state = readMasterPotionState(potion);
+        if (state == null) {
             return -1;
         }
+        return getNextUpgradeCost(state, isRedstone, isGlowstone);
+    }
+    
+    /**
+     * Decodes a potion's upgrade state from its NBT (one getItemMeta() call).
+     * 
+     * Vanilla potions without Master Potion tags are supported: the effect is
+     * detected from the base potion type and levels start at 0. The duration is
+     * resolved here as well so power upgrades can keep it unchanged:
+     * - Stored potion_duration tag if present
+     * - 180 seconds for fly/fortune
+     * - Otherwise the vanilla potion's own duration
+     * 
+     * @param potion The potion to decode
+     * @return Decoded state, or null if the item is not an upgradable potion
+     */
+    private MasterPotionState readMasterPotionState(ItemStack potion) {
+        if (potion == null || !isPotion(potion)) {
+            return null;
+        }
         
-        ItemMeta meta = potion.getItemMeta();
+        PotionMeta meta = (PotionMeta) potion.getItemMeta();
         if (meta == null) {
-            return -1;
+            return null;
         }
         
         int currentTimeLevel = meta.getPersistentDataContainer().getOrDefault(potionTimeLevelKey, PersistentDataType.INTEGER, 0);
         int currentPowerLevel = meta.getPersistentDataContainer().getOrDefault(potionPowerLevelKey, PersistentDataType.INTEGER, 0);
         
+        // Get effect type
         String effectTypeKey = meta.getPersistentDataContainer().get(potionEffectTypeKey, PersistentDataType.STRING);
+        BaseInfo baseInfo = null;
         if (effectTypeKey == null) {
-            PotionEffectType effectType = getBasePotionEffect(potion);
-            if (effectType == null) {
-                return -1;
+            // First-time vanilla potion: one table lookup by base type
+            PotionType potionType = meta.getBasePotionType();
+            baseInfo = (potionType != null) ? vanillaPotionInfo.get(potionType) : null;
+            if (baseInfo != null) {
+                effectTypeKey = baseInfo.effectKey;
+            } else {
+                PotionEffectType effectType = getBasePotionEffect(potion);
+                if (effectType == null) {
+                    return null;
+                }
+                effectTypeKey = effectType.getKey().getKey();
             }
-            effectTypeKey = effectType.getKey().getKey();
         }
         
+        // Resolve current duration
+        int duration;
+        if (meta.getPersistentDataContainer().has(potionDurationKey, PersistentDataType.INTEGER)) {
+            duration = meta.getPersistentDataContainer().get(potionDurationKey, PersistentDataType.INTEGER);
+        } else if (effectTypeKey.equals("fly") || effectTypeKey.equals("fortune")) {
+            duration = 180;
+        } else if (baseInfo != null && !meta.hasCustomEffects()) {
+            duration = baseInfo.duration;
+        } else {
+            PotionEffectType effectType = PotionEffectType.getByKey(org.bukkit.NamespacedKey.minecraft(effectTypeKey));
+            duration = (effectType != null) ? extractVanillaPotionDuration(meta, effectType) : 180;
+        }
+        
+        return new MasterPotionState(effectTypeKey, currentTimeLevel, currentPowerLevel, duration);
+    }
+    
+    /**
+     * Gets the material cost of the next upgrade for a decoded potion state.
+     * 
+     * Same rules as getUpgradeCost(), but works purely on ints and config
+     * lookups so it can be called repeatedly while planning a batch.
+     * 
+     * @param state Decoded potion state
+     * @param isRedstone true if checking redstone (time) upgrade cost
+     * @param isGlowstone true if checking glowstone (power) upgrade cost
+     * @return Material cost for next upgrade, or -1 if upgrade not possible
+     */
+    private int getNextUpgradeCost(MasterPotionState state, boolean isRedstone, boolean isGlowstone) {
         if (isRedstone) {
-            if (isInstantEffect(effectTypeKey)) {
-                return -1;
-            }
-            int nextLevel = currentTimeLevel + 1;
-            if (nextLevel > getMaxTimeLevel(effectTypeKey)) {
-                return -1;
+            if (isInstantEffect(state.effectTypeKey)) {
+                return -1; // Can't upgrade instant effects with redstone
             }
-            Map<Integer, int[]> potionTimeUpgrades = getTimeUpgrades(effectTypeKey);
-            int[] upgrade = potionTimeUpgrades.get(nextLevel);
-            return (upgrade != null) ? upgrade[0] : -1;
+            // NONE (-1) past the max or for a level missing from the config
+            return getUpgradePath(state.effectTypeKey).timeCost(state.timeLevel + 1);
         } else if (isGlowstone) {
-            int nextLevel = currentPowerLevel + 1;
-            if (nextLevel > getMaxPowerLevel(effectTypeKey)) {
-                return -1;
-            }
-            Map<Integer, Integer> potionPowerUpgrades = getPowerUpgrades(effectTypeKey);
-            Integer cost = potionPowerUpgrades.get(nextLevel);
-            return (cost != null) ? cost : -1;
+            return getUpgradePath(state.effectTypeKey).powerCost(state.powerLevel + 1);
         }
         return -1;
     }
     
+    /**
+     * Advances a decoded potion state by one level.
+     * 
+     * Caller must have checked getNextUpgradeCost() first.
+     * Redstone raises the time level and takes the new tier's duration;
+     * glowstone raises the power level and keeps the duration unchanged.
+     * 
+     * @param state Decoded potion state (modified in place)
+     * @param isRedstone true for a time upgrade, false for a power upgrade
+     */
+    private void advanceMasterPotionState(MasterPotionState state, boolean isRedstone) {
+        if (isRedstone) {
+            state.timeLevel++;
+            state.duration = getUpgradePath(state.effectTypeKey).duration(state.timeLevel);
+        } else {
+            state.powerLevel++;
+        }
+        state.levelsGained++;
+    }
+    
+    /**
+     * Writes a decoded potion state back to the potion in a single meta write.
+     * 
+     * Updates all NBT tags, clears the vanilla base type and refreshes the
+     * display (color, effects, name, lore).
+     * 
+     * @param potion The potion to update (modified in place)
+     * @param state The final state to store
+     */
+    private void applyMasterPotionState(ItemStack potion, MasterPotionState state) {
+        PotionMeta meta = (PotionMeta) potion.getItemMeta();
+        if (meta == null) {
+            return;
+        }
+        
+        // Get effect type for display
+        PotionEffectType effectType = null;
+        if (!state.effectTypeKey.equals("fly") && !state.effectTypeKey.equals("fortune")) {
+            effectType = PotionEffectType.getByKey(org.bukkit.NamespacedKey.minecraft(state.effectTypeKey));
+        }
+        
+        // Update NBT
+        meta.getPersistentDataContainer().set(potionTimeLevelKey, PersistentDataType.INTEGER, state.timeLevel);
+        meta.getPersistentDataContainer().set(potionPowerLevelKey, PersistentDataType.INTEGER, state.powerLevel);
+        meta.getPersistentDataContainer().set(potionDurationKey, PersistentDataType.INTEGER, state.duration);
+        meta.getPersistentDataContainer().set(potionEffectTypeKey, PersistentDataType.STRING, state.effectTypeKey);
+        meta.getPersistentDataContainer().set(masterPotionKey, PersistentDataType.BYTE, (byte) 1);
+        
+        // Clear base potion type
+        meta.setBasePotionType(PotionType.WATER);
+        
+        // Update display (color, effects, name, lore)
+        updateMasterPotionDisplay(meta, state.effectTypeKey, effectType, state.timeLevel, state.powerLevel, state.duration);
+        
+        potion.setItemMeta(meta);
+    }
+    
+    /**
+     * Plans as many upgrade cycles as the available materials and fuel allow.
+     * 
+     * Cycles are simulated one at a time: each cycle's cost depends on the
+     * levels the previous cycles reached, and potions drop out as they hit
+     * their max level, so there is no closed form.
+     * 
+     * OPTIMIZATION: Works entirely on decoded states and ints - no ItemStack is
+     * touched. The caller applies the final states and material counts once.
+     * 
+     * Each cycle follows the same rules as a single brew:
+     * - Eligible potions are those whose next upgrade has a positive cost
+     * - The cycle costs the next-level price of the first eligible potion
+     * - One fuel charge per cycle; an empty tank burns one blaze powder (20 charges)
+     * - Every eligible potion gains one level
+     * 
+     * Planning stops when no potion can be upgraded, materials run short,
+     * fuel runs out, or maxLevels cycles have been planned.
+     * 
+     * @param states Decoded potion states (null entries are skipped, modified in place)
+     * @param materialAvailable Redstone/glowstone available
+     * @param isRedstone true for time upgrades, false for power upgrades
+     * @param fuelCharges Fuel charges currently stored
+     * @param blazePowderAvailable Blaze powder available to refill fuel
+     * @param maxLevels Maximum number of cycles to plan
+     * @return What the planned cycles consume
+     */
+    private UpgradePlan planUpgrades(MasterPotionState[] states, int materialAvailable, boolean isRedstone,
+                                     int fuelCharges, int blazePowderAvailable, int maxLevels) {
+        UpgradePlan plan = new UpgradePlan();
+        int materialLeft = materialAvailable;
+        int fuel = fuelCharges;
+        int blazeLeft = blazePowderAvailable;
+        boolean[] eligible = new boolean[states.length];
+        
+        while (plan.levels < maxLevels) {
+            // Cost is set by the first potion that can still be upgraded
+            int materialCost = -1;
+            boolean anyEligible = false;
+            for (int i = 0; i < states.length; i++) {
+                eligible[i] = false;
+                if (states[i] == null) continue;
+                int cost = getNextUpgradeCost(states[i], isRedstone, !isRedstone);
+                if (cost > 0) {
+                    eligible[i] = true;
+                    anyEligible = true;
+                    if (materialCost < 0) {
+                        materialCost = cost;
+                    }
+                }
+            }
+            
+            if (!anyEligible || materialLeft < materialCost) break;
+            if (fuel <= 0 && blazeLeft <= 0) break;
+            
+            // Consume fuel (refill from blaze powder if empty)
+            if (fuel <= 0) {
+                blazeLeft--;
+                plan.blazePowderUsed++;
+                fuel = 20;
+            }
+            fuel--;
+            
+            materialLeft -= materialCost;
+            plan.materialUsed += materialCost;
+            
+            for (int i = 0; i < states.length; i++) {
+                if (eligible[i]) {
+                    advanceMasterPotionState(states[i], isRedstone);
+                }
+            }
+            plan.levels++;
+        }
+        
+        plan.fuelRemaining = fuel;
+        return plan;
+    }
+    
+    /**
+     * PUBLIC API: Computes the materials, fuel and brew cycles needed to take a
+     * potion from its current levels to target levels.
+     * 
+     * OPTIMIZATION: O(1) - one map lookup and two array subtractions on the prefix-summed
+     * tables built by loadUpgradeTiers(). Cheap enough to call on every GUI
+     * hover, and safe to call from async threads (tables are immutable and
+     * swapped atomically on reload).
+     * 
+     * A target at or below the current level on an axis needs nothing for that
+     * axis. Fuel assumes a single potion brewed alone; brewing three identical
+     * potions together takes the same cycles and materials for all three.
+     * 
+     * @param potion Potion name or effect key (e.g., "speed", "healing", "instant_health")
+     * @param fromTime Current time level
+     * @param fromPower Current power level
+     * @param toTime Target time level
+     * @param toPower Target power level
+     * @return The route, or null if the potion is unknown or a level can't be brewed
+     */
+    public UpgradeRoute planUpgradeRoute(String potion, int fromTime, int fromPower, int toTime, int toPower) {
+        String effectKey = POTION_NAME_TO_EFFECT_KEY.getOrDefault(potion.toLowerCase(), potion.toLowerCase());
+        UpgradeCostTable table = getCostTable(effectKey);
+        if (table == null || fromTime < 0 || fromPower < 0
+                || Math.max(fromTime, toTime) > table.maxTimeLevel() || Math.max(fromPower, toPower) > table.maxPowerLevel()) {
+            return null;
+        }
+        
+        int timeGained = Math.max(0, toTime - fromTime);
+        int powerGained = Math.max(0, toPower - fromPower);
+        int redstone = table.timeCostPrefix[fromTime + timeGained] - table.timeCostPrefix[fromTime];
+        int glowstone = table.powerCostPrefix[fromPower + powerGained] - table.powerCostPrefix[fromPower];
+        return new UpgradeRoute(redstone, glowstone, timeGained + powerGained);
+    }
+    
+    /**
+     * PUBLIC API: Rolls a random Master Potion from the configured loot table.
+     * 
+     * OPTIMIZATION: O(1) per draw (alias method, see LootTable) with no
+     * allocation besides the result. Safe to call from async threads - crate
+     * plugins can roll thousands of times per second: the table is immutable,
+     * swapped atomically on reload, and draws use ThreadLocalRandom.
+     * 
+     * @return The roll, or null if the loot table has no valid entries
+     */
+    public LootRoll rollLootPotion() {
+        LootTable table = upgradeConfig.lootTable;
+        return (table.size() > 0) ? table.roll() : null;
+    }
+    
+    /**
+     * PUBLIC API: Creates the Master Potion item for a loot roll.
+     * 
+     * Clones a cached prototype. Call from the main thread.
+     * 
+     * @param roll A roll from rollLootPotion()
+     * @param amount Stack size of the returned item
+     * @return The potion, or null if the roll's levels are no longer valid after a reload
+     */
+    public ItemStack createLootPotion(LootRoll roll, int amount) {
+        return getMasterPotion(roll.effectKey, roll.timeLevel, roll.powerLevel, amount);
+    }
+    
     /**
      * Updates a Master Potion's visual display: name, lore, color, and custom effects.
      * 
@@ -2781,17 +5577,11 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         lore.add(Component.text("Master Potion", NamedTextColor.LIGHT_PURPLE)
             .decoration(TextDecoration.ITALIC, false));
         
-        int potionMaxPowerLevel = getMaxPowerLevel(effectTypeKey);
-        int potionMaxTimeLevel = getMaxTimeLevel(effectTypeKey);
-        Map<Integer, Integer> potionPowerUpgrades = getPowerUpgrades(effectTypeKey);
-        Map<Integer, int[]> potionTimeUpgrades = getTimeUpgrades(effectTypeKey);
-        
-        int maxDuration = 0;
-        for (int[] timeUpgrade : potionTimeUpgrades.values()) {
-            if (timeUpgrade[1] > maxDuration) {
-                maxDuration = timeUpgrade[1];
-            }
-        }
+        // One snapshot read, so every lore line comes from the same config
+        UpgradePath path = getUpgradePath(effectTypeKey);
+        int potionMaxPowerLevel = path.maxPowerLevel;
+        int potionMaxTimeLevel = path.maxTimeLevel;
+        int maxDuration = path.maxDuration;
         
         if (effectTypeKey.equals("fly")) {
             // Fly-specific lore
@@ -2823,8 +5613,8 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             
             if (!atMaxSpeed) {
                 int nextPowerLevel = newPowerLevel + 1;
-                Integer glowstoneCost = potionPowerUpgrades.get(nextPowerLevel);
-                if (glowstoneCost != null) {
+                int glowstoneCost = path.powerCost(nextPowerLevel);
+                if (glowstoneCost != UpgradePath.NONE) {
                     lore.add(Component.text("Flight Speed Upgrade: " + glowstoneCost + " glowstone dust", NamedTextColor.GREEN)
                         .decoration(TextDecoration.ITALIC, false));
                 }
@@ -2832,9 +5622,9 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             
             if (!atMaxDuration) {
                 int nextTimeLevel = newTimeLevel + 1;
-                int[] timeUpgrade = potionTimeUpgrades.get(nextTimeLevel);
-                if (timeUpgrade != null) {
-                    lore.add(Component.text("Duration Upgrade: " + timeUpgrade[0] + " redstone dust", NamedTextColor.YELLOW)
+                int redstoneCost = path.timeCost(nextTimeLevel);
+                if (redstoneCost != UpgradePath.NONE) {
+                    lore.add(Component.text("Duration Upgrade: " + redstoneCost + " redstone dust", NamedTextColor.YELLOW)
                         .decoration(TextDecoration.ITALIC, false));
                 }
             }
@@ -2862,8 +5652,8 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             
             if (!atMaxLuck) {
                 int nextPowerLevel = newPowerLevel + 1;
-                Integer glowstoneCost = potionPowerUpgrades.get(nextPowerLevel);
-                if (glowstoneCost != null) {
+                int glowstoneCost = path.powerCost(nextPowerLevel);
+                if (glowstoneCost != UpgradePath.NONE) {
                     lore.add(Component.text("Luck Upgrade: " + glowstoneCost + " glowstone dust", NamedTextColor.GREEN)
                         .decoration(TextDecoration.ITALIC, false));
                 }
@@ -2871,9 +5661,9 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             
             if (!atMaxDuration) {
                 int nextTimeLevel = newTimeLevel + 1;
-                int[] timeUpgrade = potionTimeUpgrades.get(nextTimeLevel);
-                if (timeUpgrade != null) {
-                    lore.add(Component.text("Duration Upgrade: " + timeUpgrade[0] + " redstone dust", NamedTextColor.YELLOW)
+                int redstoneCost = path.timeCost(nextTimeLevel);
+                if (redstoneCost != UpgradePath.NONE) {
+                    lore.add(Component.text("Duration Upgrade: " + redstoneCost + " redstone dust", NamedTextColor.YELLOW)
                         .decoration(TextDecoration.ITALIC, false));
                 }
             }
@@ -2908,8 +5698,8 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             
             if (!atMaxPower) {
                 int nextPowerLevel = newPowerLevel + 1;
-                Integer glowstoneCost = potionPowerUpgrades.get(nextPowerLevel);
-                if (glowstoneCost != null) {
+                int glowstoneCost = path.powerCost(nextPowerLevel);
+                if (glowstoneCost != UpgradePath.NONE) {
                     lore.add(Component.text(powerLabel + " Upgrade: " + glowstoneCost + " glowstone dust", NamedTextColor.GREEN)
                         .decoration(TextDecoration.ITALIC, false));
                 }
@@ -2917,9 +5707,9 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             
             if (!isInstant && !atMaxDuration) {
                 int nextTimeLevel = newTimeLevel + 1;
-                int[] timeUpgrade = potionTimeUpgrades.get(nextTimeLevel);
-                if (timeUpgrade != null) {
-                    lore.add(Component.text("Duration Upgrade: " + timeUpgrade[0] + " redstone dust", NamedTextColor.YELLOW)
+                int redstoneCost = path.timeCost(nextTimeLevel);
+                if (redstoneCost != UpgradePath.NONE) {
+                    lore.add(Component.text("Duration Upgrade: " + redstoneCost + " redstone dust", NamedTextColor.YELLOW)
                         .decoration(TextDecoration.ITALIC, false));
                 }
             }
@@ -2928,6 +5718,139 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         meta.lore(lore);
     }
     
+    /**
+     * Builds a fresh Master Potion ItemStack for the given effect and levels.
+     * 
+     * This is the single place where a Master Potion is assembled from scratch:
+     * - Stores all NBT data (levels, duration, effect key, marker)
+     * - Sets base potion type to WATER (removes vanilla text)
+     * - Applies color, custom effect, name and lore via updateMasterPotionDisplay()
+     * 
+     * Duration is taken from the potion's time upgrade table, except for
+     * time level 0 (fly/fortune base potions) which uses 3 minutes.
+     * 
+     * Callers should normally use getMasterPotion() which clones a cached
+     * prototype instead of calling this directly.
+     * 
+     * @param effectKey Effect identifier (e.g., "speed", "fly", "fortune")
+     * @param timeLevel Duration upgrade level
+     * @param powerLevel Power upgrade level (amplifier)
+     * @return New potion, or null if the effect or time level is unknown
+     */
+    private ItemStack createMasterPotion(String effectKey, int timeLevel, int powerLevel) {
+        // Get effect type using NamespacedKey (skip for custom fly and fortune potions)
+        PotionEffectType effectType = null;
+        if (!effectKey.equals("fly") && !effectKey.equals("fortune")) {
+            effectType = PotionEffectType.getByKey(NamespacedKey.minecraft(effectKey));
+            if (effectType == null) {
+                return null;
+            }
+        }
+        
+        // Resolve duration (level 0 = 3 minute base for custom potions)
+        int duration;
+        if (timeLevel == 0) {
+            duration = 180;
+        } else {
+            UpgradePath path = getUpgradePath(effectKey);
+            if (!path.hasTimeLevel(timeLevel)) {
+                return null;
+            }
+            duration = path.duration(timeLevel);
+        }
+        
+        ItemStack potion = new ItemStack(Material.POTION);
+        PotionMeta meta = (PotionMeta) potion.getItemMeta();
+        
+        // Store all NBT data
+        meta.getPersistentDataContainer().set(potionTimeLevelKey, PersistentDataType.INTEGER, timeLevel);
+        meta.getPersistentDataContainer().set(potionPowerLevelKey, PersistentDataType.INTEGER, powerLevel);
+        meta.getPersistentDataContainer().set(potionDurationKey, PersistentDataType.INTEGER, duration);
+        meta.getPersistentDataContainer().set(potionEffectTypeKey, PersistentDataType.STRING, effectKey);
+        meta.getPersistentDataContainer().set(masterPotionKey, PersistentDataType.BYTE, (byte) 1);
+        
+        // Set base potion type to water (removes vanilla text)
+        meta.setBasePotionType(PotionType.WATER);
+        
+        // Color, custom effect, display name and lore
+        updateMasterPotionDisplay(meta, effectKey, effectType, timeLevel, powerLevel, duration);
+        
+        potion.setItemMeta(meta);
+        return potion;
+    }
+    
+    /**
+     * Returns a Master Potion for the given effect and levels.
+     * 
+     * OPTIMIZATION: The first request for a given (effect, time, power) builds a
+     * prototype with createMasterPotion() and caches it. Every later request is a
+     * clone() + setAmount() of that prototype, skipping meta creation, lore
+     * building and PDC writes entirely.
+     * 
+     * Invalid combinations are not cached, so they never occupy the map.
+     * 
+     * @param effectKey Effect identifier (e.g., "speed", "fly", "fortune")
+     * @param timeLevel Duration upgrade level
+     * @param powerLevel Power upgrade level (amplifier)
+     * @param amount Stack size of the returned item
+     * @return Independent potion stack, or null if the combination is invalid
+     */
+    private ItemStack getMasterPotion(String effectKey, int timeLevel, int powerLevel, int amount) {
+        ItemStack prototype = masterPotionPrototypes.computeIfAbsent(
+            effectKey + ":" + timeLevel + ":" + powerLevel,
+            key -> createMasterPotion(effectKey, timeLevel, powerLevel));
+        if (prototype == null) {
+            return null;
+        }
+        
+        ItemStack potion = prototype.clone();
+        potion.setAmount(amount);
+        return potion;
+    }
+    
+    /**
+     * Rebuilds all cached item prototypes off the main thread after a reload.
+     * 
+     * Lore contains upgrade costs and max durations, so every cached prototype
+     * goes stale when config.yml changes. Instead of clearing the cache (which
+     * would make the next gives rebuild on the main thread), the same set of
+     * keys is rebuilt asynchronously into a new map and swapped in atomically.
+     * 
+     * Until the swap, gives keep using the old prototypes. If another reload
+     * starts before this one finishes, the generation counter no longer
+     * matches and this (now outdated) result is discarded.
+     */
+    private void rebuildItemPrototypesAsync() {
+        final int generation = prototypeGeneration.incrementAndGet();
+        final List<String> keys = new ArrayList<>(masterPotionPrototypes.keySet());
+        final List<Integer> standTiers = new ArrayList<>(masterStandPrototypes.keySet());
+        
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            try {
+                Map<String, ItemStack> rebuilt = new java.util.concurrent.ConcurrentHashMap<>();
+                for (String key : keys) {
+                    String[] parts = key.split(":");
+                    ItemStack prototype = createMasterPotion(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                    if (prototype != null) {
+                        rebuilt.put(key, prototype);
+                    }
+                }
+                Map<Integer, ItemStack> rebuiltStands = new java.util.concurrent.ConcurrentHashMap<>();
+                for (int tier : standTiers) {
+                    rebuiltStands.put(tier, buildMasterBrewingStandPrototype(tier));
+                }
+                
+                // Only publish if no newer reload has started meanwhile
+                if (prototypeGeneration.get() == generation) {
+                    masterStandPrototypes = rebuiltStands;
+                    masterPotionPrototypes = rebuilt;
+                }
+            } catch (Exception e) {
+                getLogger().warning("Failed to rebuild item prototypes: " + e.getMessage());
+            }
+        });
+    }
+    
     /**
      * Checks if an ItemStack is any type of potion (drinkable, splash, or lingering).
      * 
@@ -2962,11 +5885,12 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      * @return PotionEffectType of the potion, or null if none/unknown
      */
     private PotionEffectType getBasePotionEffect(ItemStack potion) {
-        if (!(potion.getItemMeta() instanceof PotionMeta)) {
+        ItemMeta itemMeta = potion.getItemMeta();
+        if (!(itemMeta instanceof PotionMeta)) {
             return null;
         }
         
-        PotionMeta meta = (PotionMeta) potion.getItemMeta();
+        PotionMeta meta = (PotionMeta) itemMeta;
         
         // Check if already a master potion with stored effect
         if (meta.getPersistentDataContainer().has(potionEffectTypeKey, PersistentDataType.STRING)) {
@@ -2977,12 +5901,43 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             return PotionEffectType.getByKey(org.bukkit.NamespacedKey.minecraft(effectKey));
         }
         
-        // Try to get from base potion type first
+        // Try to get from base potion type first (precomputed table)
         PotionType potionType = meta.getBasePotionType();
-        if (potionType != null && potionType != PotionType.WATER) {
-            // Get the potion type's key and extract effect name
-            String potionKey = potionType.getKey().getKey();
-            
+        BaseInfo info = (potionType != null) ? vanillaPotionInfo.get(potionType) : null;
+        if (info != null) {
+            return info.effectType;
+        }
+        
+        // Fallback: check custom effects (for potions like luck, bad omen, etc.)
+        if (!meta.getCustomEffects().isEmpty()) {
+            // Return the first custom effect's type
+            return meta.getCustomEffects().get(0).getType();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Builds the vanillaPotionInfo lookup table for every PotionType.
+     * 
+     * For each type the effect is derived from the type's key:
+     * 1. Strip the long_ / strong_ prefix
+     * 2. Translate potion names that differ from effect names:
+     *    "leaping" → "jump_boost", "swiftness" → "speed",
+     *    "healing" → "instant_health", "harming" → "instant_damage"
+     * 3. Resolve the PotionEffectType; types without one (water, awkward,
+     *    turtle_master...) are left out
+     * 
+     * Starting durations follow the vanilla conventions used for first upgrades:
+     * long_ variants 480 seconds, instant effects 1 second, everything else 180.
+     */
+    private void buildVanillaPotionInfo() {
+        vanillaPotionInfo.clear();
+        
+        for (PotionType potionType : PotionType.values()) {
+            String potionKey = potionType.getKey().getKey();
+            boolean isLong = potionKey.startsWith("long_");
+            
             // Remove long_ and strong_ prefixes if present
             String effectName = potionKey.replace("long_", "").replace("strong_", "");
             
@@ -2998,18 +5953,13 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             }
             
             PotionEffectType effectType = PotionEffectType.getByKey(org.bukkit.NamespacedKey.minecraft(effectName));
-            if (effectType != null) {
-                return effectType;
+            if (effectType == null) {
+                continue;
             }
+            
+            int duration = isInstantEffect(effectName) ? 1 : (isLong ? 480 : 180);
+            vanillaPotionInfo.put(potionType, new BaseInfo(effectType, duration));
         }
-        
-        // Fallback: check custom effects (for potions like luck, bad omen, etc.)
-        if (!meta.getCustomEffects().isEmpty()) {
-            // Return the first custom effect's type
-            return meta.getCustomEffects().get(0).getType();
-        }
-        
-        return null;
     }
     
     /**
@@ -3232,6 +6182,9 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      * - Infinite duration effects (from beacons, etc.) show "∞" for time
      * - Custom effects like "fly" are handled from the master effects tracking
      * 
+     * OPTIMIZATION: The output is sent as a single component and reused for
+     * the rest of the current second (see effectsRenderCache).
+     * 
      * @param sender The command sender (must be a player)
      * @return true if command was handled
      */
@@ -3242,101 +6195,118 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         }
         
         Player player = (Player) sender;
-        Collection<PotionEffect> activeEffects = player.getActivePotionEffects();
-        
-        // Also check for custom master effects like fly
+        player.sendMessage(getEffectsRender(player));
+        return true;
+    }
+    
+    /**
+     * Gets a player's /effects output, from the cache if it was built this second.
+     * 
+     * @param player The player
+     * @return The complete /effects output
+     */
+    private Component getEffectsRender(Player player) {
         UUID uuid = player.getUniqueId();
-        List<ActiveMasterEffect> masterEffects = activeMasterEffects.get(uuid);
+        long now = System.currentTimeMillis();
+        long second = now / 1000;
+        
+        EffectsRender cached = effectsRenderCache.get(uuid);
+        if (cached != null && cached.second == second) {
+            return cached.component;
+        }
+        
+        Component component = renderEffects(player, now);
+        effectsRenderCache.put(uuid, new EffectsRender(second, component));
+        return component;
+    }
+    
+    /**
+     * Builds a player's /effects output.
+     * 
+     * OPTIMIZATION: Master effects are indexed by their resolved
+     * PotionEffectType first, so matching each vanilla effect to its master
+     * effect is one map lookup instead of a scan with a fortune -> luck
+     * string remap.
+     * 
+     * @param player The player
+     * @param now Current time in milliseconds
+     * @return Header and one line per effect, joined with newlines
+     */
+    private Component renderEffects(Player player, long now) {
+        // Index master effects by vanilla effect type
+        List<ActiveMasterEffect> masterEffects = activeMasterEffects.get(player.getUniqueId());
+        Map<PotionEffectType, ActiveMasterEffect> masterByType = new HashMap<>();
         
         // Build combined list of effects to display
         List<EffectDisplayInfo> displayEffects = new ArrayList<>();
         
+        if (masterEffects != null) {
+            for (ActiveMasterEffect me : masterEffects) {
+                if (me.effectType != null) {
+                    masterByType.put(me.effectType, me);
+                } else if (me.effectTypeKey.equals("fly")) {
+                    // Fly isn't a vanilla potion effect
+                    int seconds = (int) Math.max(0, (me.expiryTime - now) / 1000);
+                    displayEffects.add(new EffectDisplayInfo("Fly", me.amplifier, seconds));
+                }
+            }
+        }
+        
         // Add standard potion effects
-        for (PotionEffect effect : activeEffects) {
-            String effectName = formatEffectName(effect.getType());
-            int amplifier = effect.getAmplifier();
+        for (PotionEffect effect : player.getActivePotionEffects()) {
             int durationTicks = effect.getDuration();
             
-            // Check if this is a Master Effect with a longer actual duration
+            // A Master Effect has a longer actual duration than the vanilla effect shows
             int actualDurationSeconds;
-            if (masterEffects != null) {
-                ActiveMasterEffect masterMatch = null;
-                String effectKey = effect.getType().getKey().getKey();
-                
-                // Check for fortune -> luck mapping
-                for (ActiveMasterEffect me : masterEffects) {
-                    String meKey = me.effectTypeKey;
-                    if (meKey.equals("fortune")) {
-                        meKey = "luck";
-                    }
-                    if (meKey.equals(effectKey)) {
-                        masterMatch = me;
-                        break;
-                    }
-                }
-                
-                if (masterMatch != null) {
-                    // Use master effect's actual remaining time
-                    long remaining = masterMatch.expiryTime - System.currentTimeMillis();
-                    actualDurationSeconds = (int) Math.max(0, remaining / 1000);
-                } else {
-                    // Not a master effect, use vanilla duration
-                    // Handle infinite duration (e.g., from beacons)
-                    if (durationTicks < 0 || durationTicks > 999999) {
-                        actualDurationSeconds = -1; // Mark as infinite
-                    } else {
-                        actualDurationSeconds = durationTicks / 20;
-                    }
-                }
+            ActiveMasterEffect masterMatch = masterByType.get(effect.getType());
+            if (masterMatch != null) {
+                actualDurationSeconds = (int) Math.max(0, (masterMatch.expiryTime - now) / 1000);
+            } else if (durationTicks < 0 || durationTicks > 999999) {
+                // Handle infinite duration (e.g., from beacons)
+                actualDurationSeconds = -1;
             } else {
-                // No master effects, use vanilla duration
-                if (durationTicks < 0 || durationTicks > 999999) {
-                    actualDurationSeconds = -1; // Mark as infinite
-                } else {
-                    actualDurationSeconds = durationTicks / 20;
-                }
+                actualDurationSeconds = durationTicks / 20;
             }
             
-            displayEffects.add(new EffectDisplayInfo(effectName, amplifier, actualDurationSeconds));
-        }
-        
-        // Add fly effect if active (it's not a vanilla potion effect)
-        if (masterEffects != null) {
-            for (ActiveMasterEffect me : masterEffects) {
-                if (me.effectTypeKey.equals("fly")) {
-                    long remaining = me.expiryTime - System.currentTimeMillis();
-                    int seconds = (int) Math.max(0, remaining / 1000);
-                    displayEffects.add(new EffectDisplayInfo("Fly", me.amplifier, seconds));
-                }
-            }
+            displayEffects.add(new EffectDisplayInfo(formatEffectName(effect.getType()), effect.getAmplifier(), actualDurationSeconds));
         }
         
-        // Display header
-        player.sendMessage(Component.text("-------------------", NamedTextColor.GRAY));
-        player.sendMessage(Component.text("Active Effects", NamedTextColor.GOLD, TextDecoration.BOLD));
-        player.sendMessage(Component.text("-------------------", NamedTextColor.GRAY));
+        // Header
+        List<Component> lines = new ArrayList<>(displayEffects.size() + 4);
+        lines.add(Component.text("-------------------", NamedTextColor.GRAY));
+        lines.add(Component.text("Active Effects", NamedTextColor.GOLD, TextDecoration.BOLD));
+        lines.add(Component.text("-------------------", NamedTextColor.GRAY));
         
         if (displayEffects.isEmpty()) {
-            player.sendMessage(Component.text("No active effects", NamedTextColor.GRAY));
+            lines.add(Component.text("No active effects", NamedTextColor.GRAY));
         } else {
             // Sort by effect name for consistent display
             displayEffects.sort((a, b) -> a.name.compareToIgnoreCase(b.name));
             
             for (EffectDisplayInfo info : displayEffects) {
                 String romanLevel = toRoman(info.amplifier + 1);
-                String timeStr;
-                if (info.durationSeconds < 0) {
-                    timeStr = "∞";
-                } else {
-                    timeStr = formatEffectsTime(info.durationSeconds);
-                }
+                String timeStr = (info.durationSeconds < 0) ? "∞" : formatEffectsTime(info.durationSeconds);
                 
-                player.sendMessage(Component.text(info.name + " " + romanLevel, NamedTextColor.AQUA)
+                lines.add(Component.text(info.name + " " + romanLevel, NamedTextColor.AQUA)
                     .append(Component.text(" (" + timeStr + " remaining)", NamedTextColor.GRAY)));
             }
         }
         
-        return true;
+        return Component.join(net.kyori.adventure.text.JoinConfiguration.newlines(), lines);
+    }
+    
+    /**
+     * Drops a player's cached /effects output when any of their potion effects change.
+     * 
+     * Runs at MONITOR so only changes that actually happen are counted.
+     * 
+     * @param event The potion effect event from Bukkit
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPotionEffectChange(org.bukkit.event.entity.EntityPotionEffectEvent event) {
+        if (event.getEntity() instanceof Player) {
+            effectsRenderCache.remove(event.getEntity().getUniqueId());
+        }
     }
     
     /**
@@ -3409,6 +6379,20 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
                 return handleGive(sender, args);
             case "reload":
                 return handleReload(sender);
+            case "stats":
+                return handleStats(sender);
+            case "loot":
+                return handleLoot(sender);
+            case "bulk":
+                return handleBulkToggle(sender);
+            case "plan":
+                return handlePlan(sender, args);
+            case "upgrade":
+                return handleUpgrade(sender, args);
+            case "team":
+                return handleTeamStand(sender, args);
+            case "brew":
+                return handleQuickBrew(sender, args);
             default:
                 sendHelp(sender);
                 return true;
@@ -3435,25 +6419,49 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         if (sender.hasPermission("masterbrewing.use")) {
             sender.sendMessage(Component.text("/masterbrewing", NamedTextColor.YELLOW)
                 .append(Component.text(" - Open a virtual Master Brewing Stand", NamedTextColor.GRAY)));
+            sender.sendMessage(Component.text("/masterbrewing brew <redstone|glowstone> [levels|max]", NamedTextColor.YELLOW)
+                .append(Component.text(" - Upgrade the potion in your hand from your inventory", NamedTextColor.GRAY)));
+        }
+        
+        if (sender.hasPermission("masterbrewing.bulk")) {
+            sender.sendMessage(Component.text("/masterbrewing bulk", NamedTextColor.YELLOW)
+                .append(Component.text(" - Toggle brew-to-exhaustion on the stand you're looking at", NamedTextColor.GRAY)));
         }
         
         sender.sendMessage(Component.text("/masterbrewing help", NamedTextColor.YELLOW)
             .append(Component.text(" - Show this help menu", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/masterbrewing plan <potion> <time_lvl> <power_lvl>", NamedTextColor.YELLOW)
+            .append(Component.text(" - Show materials needed to reach these levels", NamedTextColor.GRAY)));
+        
+        if (!getPermittedTeams(sender).isEmpty()) {
+            sender.sendMessage(Component.text("/masterbrewing team <name>", NamedTextColor.YELLOW)
+                .append(Component.text(" - Open a shared team brewing stand", NamedTextColor.GRAY)));
+        }
         
         if (sender.hasPermission("masterbrewing.give")) {
-            sender.sendMessage(Component.text("/masterbrewing give stand <player>", NamedTextColor.YELLOW)
+            sender.sendMessage(Component.text("/masterbrewing give stand <target> [tier] [amount]", NamedTextColor.YELLOW)
                 .append(Component.text(" - Give a Master Brewing Stand", NamedTextColor.GRAY)));
-            sender.sendMessage(Component.text("/masterbrewing give potion <player> <potion> [time_lvl] [power_lvl]", NamedTextColor.YELLOW)
+            sender.sendMessage(Component.text("/masterbrewing give potion <target> <potion> [time_lvl] [power_lvl] [amount]", NamedTextColor.YELLOW)
                 .append(Component.text(" - Give a Master Potion (defaults: 1,1 or 0,0 for fly)", NamedTextColor.GRAY)));
-            sender.sendMessage(Component.text("/masterbrewing give potion <player> <potion> max", NamedTextColor.YELLOW)
+            sender.sendMessage(Component.text("/masterbrewing give potion <target> <potion> max [amount]", NamedTextColor.YELLOW)
                 .append(Component.text(" - Give max level potion", NamedTextColor.GRAY)));
-            sender.sendMessage(Component.text("/masterbrewing give potion <player> random", NamedTextColor.YELLOW)
-                .append(Component.text(" - Give random potion", NamedTextColor.GRAY)));
+            sender.sendMessage(Component.text("/masterbrewing give potion <target> random [amount]", NamedTextColor.YELLOW)
+                .append(Component.text(" - Give a potion rolled from the loot table", NamedTextColor.GRAY)));
+            sender.sendMessage(Component.text("/masterbrewing loot", NamedTextColor.YELLOW)
+                .append(Component.text(" - Show the random potion loot table", NamedTextColor.GRAY)));
+            sender.sendMessage(Component.text("  <target>: player, @a[distance=..50] or group:<name>", NamedTextColor.GRAY));
+        }
+        
+        if (sender.hasPermission("masterbrewing.upgrade")) {
+            sender.sendMessage(Component.text("/masterbrewing upgrade <player|container> <time_lvl> <power_lvl>", NamedTextColor.YELLOW)
+                .append(Component.text(" - Upgrade every potion in an inventory", NamedTextColor.GRAY)));
         }
         
         if (sender.hasPermission("masterbrewing.admin")) {
             sender.sendMessage(Component.text("/masterbrewing reload", NamedTextColor.YELLOW)
                 .append(Component.text(" - Reload configuration", NamedTextColor.GRAY)));
+            sender.sendMessage(Component.text("/masterbrewing stats", NamedTextColor.YELLOW)
+                .append(Component.text(" - Show virtual brewing statistics", NamedTextColor.GRAY)));
         }
         
         // Display upgrade tables
@@ -3464,10 +6472,11 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         sender.sendMessage(Component.text(" Level │ Redstone │ Duration", NamedTextColor.WHITE, TextDecoration.BOLD));
         sender.sendMessage(Component.text("───────┼──────────┼──────────", NamedTextColor.DARK_GRAY));
         
-        for (int level : timeUpgrades.keySet()) {
-            int[] upgrade = timeUpgrades.get(level);
-            int redstoneCost = upgrade[0];
-            int duration = upgrade[1];
+        UpgradePath defaults = upgradeConfig.defaults;
+        for (int level = 1; level <= defaults.maxTimeLevel; level++) {
+            if (!defaults.hasTimeLevel(level)) continue;
+            int redstoneCost = defaults.timeCost(level);
+            int duration = defaults.duration(level);
             String durationStr = formatDuration(duration);
             
             // Format with proper spacing: Level (right-aligned 5), Redstone (right-aligned 8), Duration (left-aligned 8)
@@ -3489,8 +6498,9 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         sender.sendMessage(Component.text(" Level │ Glowstone │ Potion Level", NamedTextColor.WHITE, TextDecoration.BOLD));
         sender.sendMessage(Component.text("───────┼───────────┼──────────────", NamedTextColor.DARK_GRAY));
         
-        for (int level : powerUpgrades.keySet()) {
-            int glowstoneCost = powerUpgrades.get(level);
+        for (int level = 1; level <= defaults.maxPowerLevel; level++) {
+            if (!defaults.hasPowerLevel(level)) continue;
+            int glowstoneCost = defaults.powerCost(level);
             int displayLevel = level + 1; // Power level 1 = II, 2 = III, etc.
             String romanLevel = toRoman(displayLevel);
             
@@ -3513,10 +6523,13 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      * Handles /masterbrewing give sub-commands.
      * 
      * Dispatches to specific handlers:
-     * - "give stand <player>": Gives Master Brewing Stand item
-     * - "give potion <player> <type> [time] [power]": Gives Master Potion
-     * - "give potion <player> random": Gives random potion with random levels
-     * - "give potion <player> <type> max": Gives max-level potion
+     * - "give stand <target> [tier] [amount]": Gives Master Brewing Stand items
+     * - "give potion <target> <type> [time] [power] [amount]": Gives Master Potions
+     * - "give potion <target> random [amount]": Gives a random potion with random levels
+     * - "give potion <target> <type> max [amount]": Gives max-level potions
+     * 
+     * <target> is a player name, an entity selector (@a, @a[distance=..50], ...)
+     * or group:<name> for every online player in a permission group.
      * 
      * Requires masterbrewing.give permission.
      * 
@@ -3531,9 +6544,10 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         }
         
         if (args.length < 3) {
-            sender.sendMessage(Component.text("Usage: /masterbrewing give stand <player>", NamedTextColor.RED));
-            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <player> <potion> [time_lvl] [power_lvl]", NamedTextColor.RED));
-            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <player> random", NamedTextColor.RED));
+            sender.sendMessage(Component.text("Usage: /masterbrewing give stand <target> [tier] [amount]", NamedTextColor.RED));
+            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <target> <potion> [time_lvl] [power_lvl] [amount]", NamedTextColor.RED));
+            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <target> random [amount]", NamedTextColor.RED));
+            sender.sendMessage(Component.text("<target>: player name, @a / @a[distance=..50] / ..., or group:<name>", NamedTextColor.GRAY));
             return true;
         }
         
@@ -3544,18 +6558,21 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         } else if (subCommand.equals("potion")) {
             return handleGivePotion(sender, args);
         } else {
-            sender.sendMessage(Component.text("Usage: /masterbrewing give stand <player>", NamedTextColor.RED));
-            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <player> <potion> [time_lvl] [power_lvl]", NamedTextColor.RED));
-            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <player> random", NamedTextColor.RED));
+            sender.sendMessage(Component.text("Usage: /masterbrewing give stand <target> [tier] [amount]", NamedTextColor.RED));
+            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <target> <potion> [time_lvl] [power_lvl] [amount]", NamedTextColor.RED));
+            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <target> random [amount]", NamedTextColor.RED));
+            sender.sendMessage(Component.text("<target>: player name, @a / @a[distance=..50] / ..., or group:<name>", NamedTextColor.GRAY));
             return true;
         }
     }
     
     /**
-     * Handles /masterbrewing give stand <player> command.
+     * Handles /masterbrewing give stand <target> [tier] [amount] command.
      * 
-     * Creates and gives a Master Brewing Stand item to the target player.
-     * The item has the master_brewing_stand NBT marker and custom lore.
+     * Creates a Master Brewing Stand item once and gives clones of it to every
+     * target player. The item has the master_brewing_stand NBT marker (holding
+     * the speed tier) and custom lore. Tier defaults to 1 and must be defined
+     * in stand-tiers.
      * 
      * @param sender Command sender
      * @param args Full command arguments
@@ -3563,38 +6580,56 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      */
     private boolean handleGiveStand(CommandSender sender, String[] args) {
         if (args.length < 3) {
-            sender.sendMessage(Component.text("Usage: /masterbrewing give stand <player>", NamedTextColor.RED));
+            sender.sendMessage(Component.text("Usage: /masterbrewing give stand <target> [tier] [amount]", NamedTextColor.RED));
             return true;
         }
         
-        Player target = Bukkit.getPlayer(args[2]);
-        if (target == null) {
-            sender.sendMessage(Component.text("Player not found!", NamedTextColor.RED));
+        List<Player> targets = resolveGiveTargets(sender, args[2]);
+        if (targets == null) {
             return true;
         }
         
-        target.getInventory().addItem(createMasterBrewingStand());
+        int tier = 1;
+        if (args.length >= 4) {
+            try {
+                tier = Integer.parseInt(args[3]);
+            } catch (NumberFormatException e) {
+                tier = -1;
+            }
+            if (!standTierBrewTimes.containsKey(tier)) {
+                sender.sendMessage(Component.text("Unknown stand tier: " + args[3] + " (available: " + standTierBrewTimes.keySet() + ")", NamedTextColor.RED));
+                return true;
+            }
+        }
+        
+        int amount = parseGiveAmount(sender, args, 4);
+        if (amount < 1) {
+            return true;
+        }
         
-        sender.sendMessage(Component.text("Gave Master Brewing Stand to ", NamedTextColor.GREEN)
-            .append(Component.text(target.getName(), NamedTextColor.GOLD)));
-        target.sendMessage(Component.text("You received a Master Brewing Stand!", NamedTextColor.GREEN));
+        Component description = Component.text((amount > 1 ? amount + " " : "") + "Master Brewing Stand" + (amount > 1 ? "s" : "")
+            + " (Tier " + tier + ")", NamedTextColor.GOLD);
+        Component received = Component.text("You received " + (amount > 1 ? amount + " Master Brewing Stands" : "a Master Brewing Stand") + "!", NamedTextColor.GREEN);
         
+        deliverGive(sender, targets, createMasterBrewingStand(tier).asQuantity(amount), description, received);
         return true;
     }
     
     /**
-     * Handles /masterbrewing give potion <player> <type> [time] [power] command.
+     * Handles /masterbrewing give potion <target> <type> [time] [power] [amount] command.
      * 
-     * Creates and gives a Master Potion to the target player with specified parameters.
+     * Creates a Master Potion once and gives clones of it to every target player.
      * 
      * Argument formats:
-     * - give potion <player> <type>              → Default levels (1,1 or 0,0 for fly/fortune)
-     * - give potion <player> <type> <level>      → Same level for both time and power
-     * - give potion <player> <type> <time> <pow> → Specific time and power levels
-     * - give potion <player> <type> max          → Maximum available levels
-     * - give potion <player> random              → Random type with random levels
+     * - give potion <target> <type>                       → Default levels (1,1 or 0,0 for fly/fortune)
+     * - give potion <target> <type> <level>               → Same level for both time and power
+     * - give potion <target> <type> <time> <pow> [amount] → Specific time and power levels
+     * - give potion <target> <type> max [amount]          → Maximum available levels
+     * - give potion <target> random [amount]              → Random type with random levels
      * 
-     * Uses POTION_NAME_TO_EFFECT_KEY map for O(1) potion name validation and lookup.
+     * A random potion is rolled once per command, so every target receives
+     * the same potion. Uses POTION_NAME_TO_EFFECT_KEY map for O(1) potion name
+     * validation and lookup.
      * 
      * @param sender Command sender
      * @param args Full command arguments
@@ -3602,16 +6637,17 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      */
     private boolean handleGivePotion(CommandSender sender, String[] args) {
         if (args.length < 4) {
-            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <player> <potion> [time_lvl] [power_lvl]", NamedTextColor.RED)
+            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <target> <potion> [time_lvl] [power_lvl] [amount]", NamedTextColor.RED)
                 .append(Component.text(" - defaults: 1,1 (or 0,0 for fly)", NamedTextColor.GRAY)));
-            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <player> random", NamedTextColor.RED));
-            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <player> <potion> max", NamedTextColor.RED));
+            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <target> random [amount]", NamedTextColor.RED));
+            sender.sendMessage(Component.text("Usage: /masterbrewing give potion <target> <potion> max [amount]", NamedTextColor.RED));
             return true;
         }
         
-        Player target = Bukkit.getPlayer(args[2]);
-        if (target == null) {
-            sender.sendMessage(Component.text("Player not found!", NamedTextColor.RED));
+        // Offline players get the potion through their mailbox
+        UUID mailboxRecipient = findMailboxRecipient(args[2]);
+        List<Player> targets = (mailboxRecipient != null) ? List.of() : resolveGiveTargets(sender, args[2]);
+        if (targets == null) {
             return true;
         }
         
@@ -3619,12 +6655,16 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         
         // Handle "random" variant
         if (potionName.equals("random")) {
-            return handleGiveRandomPotion(sender, target);
+            int amount = parseGiveAmount(sender, args, 4);
+            if (amount < 1) {
+                return true;
+            }
+            return handleGiveRandomPotion(sender, targets, mailboxRecipient, amount);
         }
         
         // Handle "max" variant
         boolean isMaxVariant = (args.length >= 5 && args[4].equalsIgnoreCase("max"));
-        boolean useDefaults = (args.length <= 4) || isMaxVariant;
+        boolean useDefaults = (args.length <= 4);
         
         // OPTIMIZATION #3: Use map lookup instead of switch statement
         String effectKey = POTION_NAME_TO_EFFECT_KEY.get(potionName);
@@ -3647,6 +6687,7 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         
         int timeLevel;
         int powerLevel;
+        int amount = 1;
         
         // Need to get max levels for this specific potion for the max variant
         int potionMaxTimeLevel = getMaxTimeLevel(effectKey);
@@ -3664,6 +6705,7 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         } else if (isMaxVariant) {
             timeLevel = potionMaxTimeLevel;
             powerLevel = potionMaxPowerLevel;
+            amount = parseGiveAmount(sender, args, 5);
         } else {
             try {
                 // If only one level provided, use it for both time and power
@@ -3671,22 +6713,21 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
                     int level = Integer.parseInt(args[4]);
                     timeLevel = level;
                     powerLevel = level;
-                } else if (args.length >= 6) {
+                } else {
                     timeLevel = Integer.parseInt(args[4]);
                     powerLevel = Integer.parseInt(args[5]);
-                } else {
-                    sender.sendMessage(Component.text("Usage: /masterbrewing give potion <player> <potion> [time_lvl] [power_lvl]", NamedTextColor.RED));
-                    return true;
+                    amount = parseGiveAmount(sender, args, 6);
                 }
             } catch (NumberFormatException e) {
                 sender.sendMessage(Component.text("Levels must be valid numbers!", NamedTextColor.RED));
                 return true;
-            } catch (ArrayIndexOutOfBoundsException e) {
-                sender.sendMessage(Component.text("Usage: /masterbrewing give potion <player> <potion> [time_lvl] [power_lvl]", NamedTextColor.RED));
-                return true;
             }
         }
         
+        if (amount < 1) {
+            return true;
+        }
+        
         // Validate levels (allow 0 for fly and fortune potions)
         boolean isCustomWithZeroLevels = (potionName.equals("fly") || potionName.equals("fortune")) && (timeLevel == 0 || powerLevel == 0);
         if (!isCustomWithZeroLevels && (timeLevel < 1 || powerLevel < 1)) {
@@ -3695,8 +6736,7 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         }
         
         // Use the already-declared potionMaxTimeLevel and potionMaxPowerLevel from above
-        Map<Integer, int[]> potionTimeUpgrades = getTimeUpgrades(effectKey);
-        Map<Integer, Integer> potionPowerUpgrades = getPowerUpgrades(effectKey);
+        UpgradePath path = getUpgradePath(effectKey);
         
         if (timeLevel > potionMaxTimeLevel) {
             sender.sendMessage(Component.text("Time level cannot exceed " + potionMaxTimeLevel + " for " + potionName + "!", NamedTextColor.RED));
@@ -3708,614 +6748,2005 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             return true;
         }
         
-        // Get duration from config for the specified time level
-        int duration;
-        if ((potionName.equals("fly") || potionName.equals("fortune")) && timeLevel == 0) {
-            // Custom potions at level 0 have 3 minute (180 second) duration
-            duration = 180;
-        } else {
-            if (!potionTimeUpgrades.containsKey(timeLevel)) {
+        // Validate time level exists in config (custom potions at level 0 use the 3 minute base duration)
+        if (!((potionName.equals("fly") || potionName.equals("fortune")) && timeLevel == 0)) {
+            if (!path.hasTimeLevel(timeLevel)) {
                 sender.sendMessage(Component.text("Invalid time level: " + timeLevel + "! Valid levels are 1-" + potionMaxTimeLevel, NamedTextColor.RED));
                 return true;
             }
-            duration = potionTimeUpgrades.get(timeLevel)[1];
         }
         
         // Validate power level exists in config (skip for custom potions at level 0)
         if (!((potionName.equals("fly") || potionName.equals("fortune")) && powerLevel == 0)) {
-            if (!potionPowerUpgrades.containsKey(powerLevel)) {
+            if (!path.hasPowerLevel(powerLevel)) {
                 sender.sendMessage(Component.text("Invalid power level: " + powerLevel + "! Valid levels are 1-" + potionMaxPowerLevel, NamedTextColor.RED));
                 return true;
             }
         }
         
-        // Create the master potion
-        ItemStack potion = new ItemStack(Material.POTION);
-        PotionMeta meta = (PotionMeta) potion.getItemMeta();
-        
-        // Store all NBT data
-        meta.getPersistentDataContainer().set(potionTimeLevelKey, PersistentDataType.INTEGER, timeLevel);
-        meta.getPersistentDataContainer().set(potionPowerLevelKey, PersistentDataType.INTEGER, powerLevel);
-        meta.getPersistentDataContainer().set(potionDurationKey, PersistentDataType.INTEGER, duration);
-        meta.getPersistentDataContainer().set(potionEffectTypeKey, PersistentDataType.STRING, effectKey);
-        meta.getPersistentDataContainer().set(masterPotionKey, PersistentDataType.BYTE, (byte) 1);
-        
-        // Set base potion type to water (removes vanilla text)
-        meta.setBasePotionType(PotionType.WATER);
-        
-        // Set the correct color for this effect type
-        if (effectKey.equals("fly")) {
-            meta.setColor(org.bukkit.Color.ORANGE);
-        } else if (effectKey.equals("fortune")) {
-            meta.setColor(org.bukkit.Color.LIME); // Green for luck/fortune
-        } else {
-            meta.setColor(getPotionColor(effectType));
+        return giveMasterPotion(sender, targets, mailboxRecipient, potionName, effectKey, timeLevel, powerLevel, amount, "");
+    }
+    
+    /**
+     * Handles /masterbrewing give potion <target> random [amount] command.
+     * 
+     * Rolls once per command from the loot table (see rollLootPotion()):
+     * a weighted potion entry, then time and power levels within its ranges.
+     * Without a loot-table config every potion is equally likely and levels
+     * range from 1 to that potion's max.
+     * 
+     * Useful for loot crates, random rewards, or testing.
+     * 
+     * @param sender Command sender
+     * @param targets Players to receive the potion
+     * @param mailboxRecipient Offline player to mail the potion to, or null
+     * @param amount Potions per player
+     * @return true if command was handled
+     */
+    private boolean handleGiveRandomPotion(CommandSender sender, List<Player> targets, UUID mailboxRecipient, int amount) {
+        LootRoll roll = rollLootPotion();
+        if (roll == null) {
+            sender.sendMessage(Component.text("The loot table has no valid entries!", NamedTextColor.RED));
+            return true;
         }
         
-        // Add custom effect (handle fortune separately, skip fly)
-        meta.clearCustomEffects();
-        if (effectKey.equals("fortune")) {
-            // Fortune uses LUCK potion effect
-            PotionEffectType luckEffect = PotionEffectType.LUCK;
-            meta.addCustomEffect(new PotionEffect(luckEffect, duration * 20, powerLevel, false, false, false), true);
-        } else if (!effectKey.equals("fly") && effectType != null) {
-            meta.addCustomEffect(new PotionEffect(effectType, duration * 20, powerLevel, false, false, false), true);
+        // Get effect type using NamespacedKey (skip for custom fly and fortune potions)
+        if (!roll.effectKey.equals("fly") && !roll.effectKey.equals("fortune")) {
+            if (PotionEffectType.getByKey(NamespacedKey.minecraft(roll.effectKey)) == null) {
+                sender.sendMessage(Component.text("Failed to load random potion effect type: " + roll.effectKey, NamedTextColor.RED));
+                return true;
+            }
         }
         
-        // Set display name
-        String effectName;
-        if (effectKey.equals("fly")) {
-            effectName = "Fly";
-        } else if (effectKey.equals("fortune")) {
-            effectName = "Fortune";
-        } else {
-            effectName = formatEffectName(effectType);
+        return giveMasterPotion(sender, targets, mailboxRecipient, roll.potion, roll.effectKey, roll.timeLevel, roll.powerLevel, amount, "random ");
+    }
+    
+    /**
+     * Builds one Master Potion and hands it to deliverGive() for every target,
+     * or queues it in an offline player's mailbox.
+     * 
+     * @param sender Command sender
+     * @param targets Players to receive the potion
+     * @param mailboxRecipient Offline player to mail the potion to, or null
+     * @param potionName Potion name as typed (e.g., "speed")
+     * @param effectKey Effect key of the potion
+     * @param timeLevel Time level
+     * @param powerLevel Power level
+     * @param amount Potions per player
+     * @param qualifier Word placed before the potion name in messages ("" or "random ")
+     * @return true (command handled)
+     */
+    private boolean giveMasterPotion(CommandSender sender, List<Player> targets, UUID mailboxRecipient, String potionName,
+                                     String effectKey, int timeLevel, int powerLevel, int amount, String qualifier) {
+        // OPTIMIZATION: Clone the cached prototype instead of building meta, lore and PDC
+        ItemStack potion = getMasterPotion(effectKey, timeLevel, powerLevel, amount);
+        if (potion == null) {
+            sender.sendMessage(Component.text("Failed to create " + qualifier + potionName + " potion!", NamedTextColor.RED));
+            return true;
         }
-        int displayLevel = powerLevel + 1; // Power level 0 = I, 1 = II, etc.
-        String romanLevel = toRoman(displayLevel);
         
-        Component name = Component.text(effectName + " " + romanLevel, NamedTextColor.GOLD, TextDecoration.ITALIC)
-            .decoration(TextDecoration.ITALIC, true);
-        meta.displayName(name);
+        Component description = Component.text(amount > 1 ? amount + " " + qualifier : (qualifier.isEmpty() ? "a " : "a " + qualifier), NamedTextColor.GREEN)
+            .append(Component.text(potionName, NamedTextColor.GOLD))
+            .append(Component.text(" potion" + (amount > 1 ? "s" : "") + " (Time: ", NamedTextColor.GREEN))
+            .append(Component.text(timeLevel + "", NamedTextColor.GOLD))
+            .append(Component.text(", Power: ", NamedTextColor.GREEN))
+            .append(Component.text(powerLevel + "", NamedTextColor.GOLD))
+            .append(Component.text(")", NamedTextColor.GREEN));
+        
+        if (mailboxRecipient != null) {
+            queueMail(mailboxRecipient, Map.of(effectKey + "," + timeLevel + "," + powerLevel, amount));
+            String name = Bukkit.getOfflinePlayer(mailboxRecipient).getName();
+            sender.sendMessage(Component.text("Mailed ", NamedTextColor.GREEN)
+                .append(description)
+                .append(Component.text(" to ", NamedTextColor.GREEN))
+                .append(Component.text(name != null ? name : mailboxRecipient.toString(), NamedTextColor.GOLD))
+                .append(Component.text(" (delivered when they next join)", NamedTextColor.GRAY)));
+            return true;
+        }
         
-        // Set lore
-        List<Component> lore = new ArrayList<>();
-        lore.add(Component.text("Master Potion", NamedTextColor.LIGHT_PURPLE)
-            .decoration(TextDecoration.ITALIC, false));
+        String displayName = potionName.substring(0, 1).toUpperCase() + potionName.substring(1);
+        Component received = Component.text("You received " + (amount > 1 ? amount + " " : "a ") + qualifier + "Master ", NamedTextColor.GREEN)
+            .append(Component.text(displayName, NamedTextColor.GOLD))
+            .append(Component.text(" Potion" + (amount > 1 ? "s" : "") + "!", NamedTextColor.GREEN));
         
-        // Calculate max duration (highest duration value in time upgrades)
-        int maxDuration = 0;
-        for (int[] timeUpgrade : potionTimeUpgrades.values()) {
-            if (timeUpgrade[1] > maxDuration) {
-                maxDuration = timeUpgrade[1];
-            }
-        }
+        deliverGive(sender, targets, potion, description, received);
+        return true;
+    }
+    
+    /**
+     * Resolves the <target> argument of /masterbrewing give to online players.
+     * 
+     * Accepts:
+     * - An entity selector (@a, @p, @r, @s, @a[distance=..50], ...) - non-player
+     *   entities are ignored
+     * - group:<name> - every online player with the group.<name> permission
+     *   (the node permission plugins such as LuckPerms grant to group members)
+     * - A player name or UUID
+     * 
+     * @param sender Command sender (selector origin)
+     * @param spec The target argument
+     * @return Matched players, or null after sending an error message
+     */
+    private List<Player> resolveGiveTargets(CommandSender sender, String spec) {
+        List<Player> targets = new ArrayList<>();
         
-        // Add fly-specific lore
-        if (effectKey.equals("fly")) {
-            // Calculate flight speed
-            float flightSpeed = 0.1f * (1.0f + (powerLevel * 0.2f));
-            flightSpeed = Math.min(flightSpeed, 1.0f);
-            int speedPercent = (int)((flightSpeed / 0.1f) * 100);
-            
-            // Check if at max levels
-            boolean atMaxSpeed = powerLevel >= potionMaxPowerLevel;
-            boolean atMaxDuration = timeLevel >= potionMaxTimeLevel;
-            
-            // Flight speed line
-            if (atMaxSpeed) {
-                lore.add(Component.text("Flight Speed: " + speedPercent + "% (MAX)", NamedTextColor.AQUA)
-                    .decoration(TextDecoration.ITALIC, false));
-            } else {
-                // Calculate max speed
-                float maxFlightSpeed = 0.1f * (1.0f + (potionMaxPowerLevel * 0.2f));
-                maxFlightSpeed = Math.min(maxFlightSpeed, 1.0f);
-                int maxSpeedPercent = (int)((maxFlightSpeed / 0.1f) * 100);
-                lore.add(Component.text("Flight Speed: " + speedPercent + "% (Max: " + maxSpeedPercent + "%)", NamedTextColor.AQUA)
-                    .decoration(TextDecoration.ITALIC, false));
-            }
-            
-            // Duration line
-            if (atMaxDuration) {
-                lore.add(Component.text("Duration: " + formatDuration(duration) + " (MAX)", NamedTextColor.YELLOW)
-                    .decoration(TextDecoration.ITALIC, false));
-            } else {
-                lore.add(Component.text("Duration: " + formatDuration(duration) + " (Max: " + formatDuration(maxDuration) + ")", NamedTextColor.YELLOW)
-                    .decoration(TextDecoration.ITALIC, false));
-            }
-            
-            // Add upgrade cost lines if not at max
-            if (!atMaxSpeed) {
-                int nextPowerLevel = powerLevel + 1;
-                Integer glowstoneCost = potionPowerUpgrades.get(nextPowerLevel);
-                if (glowstoneCost != null) {
-                    lore.add(Component.text("Flight Speed Upgrade: " + glowstoneCost + " glowstone dust", NamedTextColor.GREEN)
-                        .decoration(TextDecoration.ITALIC, false));
-                }
-            }
-            
-            if (!atMaxDuration) {
-                int nextTimeLevel = timeLevel + 1;
-                int[] timeUpgrade = potionTimeUpgrades.get(nextTimeLevel);
-                if (timeUpgrade != null) {
-                    lore.add(Component.text("Duration Upgrade: " + timeUpgrade[0] + " redstone dust", NamedTextColor.YELLOW)
-                        .decoration(TextDecoration.ITALIC, false));
-                }
-            }
-            
-        } else if (effectKey.equals("fortune")) {
-            // Check if at max levels
-            boolean atMaxLuck = powerLevel >= potionMaxPowerLevel;
-            boolean atMaxDuration = timeLevel >= potionMaxTimeLevel;
-            
-            // Luck line
-            if (atMaxLuck) {
-                lore.add(Component.text("Luck: +" + (powerLevel + 1) + " (MAX)", NamedTextColor.GREEN)
-                    .decoration(TextDecoration.ITALIC, false));
-            } else {
-                lore.add(Component.text("Luck: +" + (powerLevel + 1) + " (Max: +" + (potionMaxPowerLevel + 1) + ")", NamedTextColor.GREEN)
-                    .decoration(TextDecoration.ITALIC, false));
-            }
-            
-            // Duration line
-            if (atMaxDuration) {
-                lore.add(Component.text("Duration: " + formatDuration(duration) + " (MAX)", NamedTextColor.YELLOW)
-                    .decoration(TextDecoration.ITALIC, false));
-            } else {
-                lore.add(Component.text("Duration: " + formatDuration(duration) + " (Max: " + formatDuration(maxDuration) + ")", NamedTextColor.YELLOW)
-                    .decoration(TextDecoration.ITALIC, false));
-            }
-            
-            // Add upgrade cost lines if not at max
-            if (!atMaxLuck) {
-                int nextPowerLevel = powerLevel + 1;
-                Integer glowstoneCost = potionPowerUpgrades.get(nextPowerLevel);
-                if (glowstoneCost != null) {
-                    lore.add(Component.text("Luck Upgrade: " + glowstoneCost + " glowstone dust", NamedTextColor.GREEN)
-                        .decoration(TextDecoration.ITALIC, false));
+        if (spec.startsWith("@")) {
+            try {
+                for (org.bukkit.entity.Entity entity : Bukkit.selectEntities(sender, spec)) {
+                    if (entity instanceof Player) {
+                        targets.add((Player) entity);
+                    }
                 }
+            } catch (IllegalArgumentException e) {
+                sender.sendMessage(Component.text("Invalid selector: " + spec, NamedTextColor.RED));
+                return null;
             }
-            
-            if (!atMaxDuration) {
-                int nextTimeLevel = timeLevel + 1;
-                int[] timeUpgrade = potionTimeUpgrades.get(nextTimeLevel);
-                if (timeUpgrade != null) {
-                    lore.add(Component.text("Duration Upgrade: " + timeUpgrade[0] + " redstone dust", NamedTextColor.YELLOW)
-                        .decoration(TextDecoration.ITALIC, false));
+        } else if (spec.regionMatches(true, 0, "group:", 0, 6)) {
+            String permission = "group." + spec.substring(6).toLowerCase();
+            for (Player online : Bukkit.getOnlinePlayers()) {
+                if (online.hasPermission(permission)) {
+                    targets.add(online);
                 }
             }
         } else {
-            // Standard potion lore (for vanilla effects like speed, strength, etc.)
-            boolean atMaxPower = powerLevel >= potionMaxPowerLevel;
-            boolean atMaxDuration = timeLevel >= potionMaxTimeLevel;
-            boolean isInstant = isInstantEffect(effectKey);
-            
-            // Power line
-            String powerLabel = effectName;
-            if (atMaxPower) {
-                lore.add(Component.text(powerLabel + ": +" + (powerLevel + 1) + " (MAX)", NamedTextColor.GREEN)
-                    .decoration(TextDecoration.ITALIC, false));
-            } else {
-                lore.add(Component.text(powerLabel + ": +" + (powerLevel + 1) + " (Max: +" + (potionMaxPowerLevel + 1) + ")", NamedTextColor.GREEN)
-                    .decoration(TextDecoration.ITALIC, false));
-            }
-            
-            // Duration line (skip for instant effects)
-            if (!isInstant) {
-                if (atMaxDuration) {
-                    lore.add(Component.text("Duration: " + formatDuration(duration) + " (MAX)", NamedTextColor.YELLOW)
-                        .decoration(TextDecoration.ITALIC, false));
-                } else {
-                    lore.add(Component.text("Duration: " + formatDuration(duration) + " (Max: " + formatDuration(maxDuration) + ")", NamedTextColor.YELLOW)
-                        .decoration(TextDecoration.ITALIC, false));
-                }
-            } else {
-                // Show "Instant" label for instant effects
-                lore.add(Component.text("Duration: Instant", NamedTextColor.YELLOW)
-                    .decoration(TextDecoration.ITALIC, false));
+            UUID uuid = parseUuid(spec);
+            Player target = (uuid != null) ? Bukkit.getPlayer(uuid) : Bukkit.getPlayer(spec);
+            if (target == null) {
+                sender.sendMessage(Component.text("Player not found!", NamedTextColor.RED));
+                return null;
             }
-            
-            // Add upgrade cost lines if not at max
-            if (!atMaxPower) {
-                int nextPowerLevel = powerLevel + 1;
-                Integer glowstoneCost = potionPowerUpgrades.get(nextPowerLevel);
-                if (glowstoneCost != null) {
-                    lore.add(Component.text(powerLabel + " Upgrade: " + glowstoneCost + " glowstone dust", NamedTextColor.GREEN)
-                        .decoration(TextDecoration.ITALIC, false));
-                }
-            }
-            
-            // Duration upgrade line (skip for instant effects - they can't be upgraded with redstone)
-            if (!isInstant && !atMaxDuration) {
-                int nextTimeLevel = timeLevel + 1;
-                int[] timeUpgrade = potionTimeUpgrades.get(nextTimeLevel);
-                if (timeUpgrade != null) {
-                    lore.add(Component.text("Duration Upgrade: " + timeUpgrade[0] + " redstone dust", NamedTextColor.YELLOW)
-                        .decoration(TextDecoration.ITALIC, false));
+            targets.add(target);
+        }
+        
+        if (targets.isEmpty()) {
+            sender.sendMessage(Component.text("No online players matched " + spec, NamedTextColor.RED));
+            return null;
+        }
+        return targets;
+    }
+    
+    /**
+     * Parses the optional [amount] argument of /masterbrewing give.
+     * 
+     * @param sender Command sender (receives the error message)
+     * @param args Full command arguments
+     * @param index Position of the amount argument
+     * @return The amount (1 when absent), or -1 after sending an error message
+     */
+    private int parseGiveAmount(CommandSender sender, String[] args, int index) {
+        if (args.length <= index) {
+            return 1;
+        }
+        
+        try {
+            int amount = Integer.parseInt(args[index]);
+            if (amount >= 1 && amount <= MAX_GIVE_AMOUNT) {
+                return amount;
+            }
+        } catch (NumberFormatException ignored) {
+            // Fall through to the error below
+        }
+        sender.sendMessage(Component.text("Amount must be a number from 1 to " + MAX_GIVE_AMOUNT + "!", NamedTextColor.RED));
+        return -1;
+    }
+    
+    /**
+     * Delivers a give to its recipients.
+     * 
+     * A single recipient is served immediately. Larger gives run as a batch
+     * job, one recipient per step.
+     * 
+     * OPTIMIZATION: The item is built once by the caller and only cloned per
+     * recipient, and delivery is bounded by batch-tick-budget per tick, so
+     * rewarding hundreds of players never stalls a tick.
+     * 
+     * @param sender Command sender (receives the summary)
+     * @param targets Players to receive the item
+     * @param item The item to give, with the per-player amount already set
+     * @param description Item description for the sender's summary
+     * @param received Message sent to each recipient
+     */
+    private void deliverGive(CommandSender sender, List<Player> targets, ItemStack item, Component description, Component received) {
+        GiveJob job = new GiveJob(sender, targets, item, description, received);
+        
+        if (targets.size() == 1) {
+            stepGive(job);
+            finishGive(job);
+            return;
+        }
+        
+        submitBatchJob(new BatchJob(() -> stepGive(job), () -> finishGive(job)));
+        sender.sendMessage(Component.text("Giving to " + targets.size() + " players...", NamedTextColor.YELLOW));
+    }
+    
+    /**
+     * Gives one recipient of a give batch their copy of the item.
+     * 
+     * Whatever does not fit in the inventory is dropped at the player's feet.
+     * Recipients who went offline since the command are skipped.
+     * 
+     * @param job The batch being processed
+     * @return true while recipients remain
+     */
+    private boolean stepGive(GiveJob job) {
+        if (job.nextIndex >= job.recipients.size()) {
+            return false;
+        }
+        
+        Player player = Bukkit.getPlayer(job.recipients.get(job.nextIndex++));
+        if (player == null) {
+            job.skipped++;
+            return job.nextIndex < job.recipients.size();
+        }
+        
+        for (ItemStack leftover : player.getInventory().addItem(splitIntoStacks(job.item)).values()) {
+            dropAtFeet(player, leftover);
+        }
+        player.sendMessage(job.received);
+        job.delivered++;
+        
+        return job.nextIndex < job.recipients.size();
+    }
+    
+    /**
+     * Splits an item into stacks no larger than its max stack size.
+     * 
+     * addItem() only caps stacks at the inventory's limit (64), so a give of
+     * 10 potions passed as one stack would land as a single stack of 10
+     * unstackable potions. Each returned stack is a fresh copy.
+     * 
+     * @param item The item, with the total amount set
+     * @return Stacks adding up to the item's amount
+     */
+    private ItemStack[] splitIntoStacks(ItemStack item) {
+        int stackSize = Math.max(1, item.getMaxStackSize());
+        int total = item.getAmount();
+        ItemStack[] stacks = new ItemStack[(total + stackSize - 1) / stackSize];
+        for (int i = 0; i < stacks.length; i++) {
+            stacks[i] = item.asQuantity(Math.min(stackSize, total - i * stackSize));
+        }
+        return stacks;
+    }
+    
+    /**
+     * Drops items that did not fit in a player's inventory at their feet.
+     * 
+     * The stack is split by the item's max stack size, so no oversized
+     * stacks end up in the world.
+     * 
+     * @param player The player
+     * @param leftover Items left over from addItem()
+     */
+    private void dropAtFeet(Player player, ItemStack leftover) {
+        int remaining = leftover.getAmount();
+        int stackSize = Math.max(1, leftover.getMaxStackSize());
+        while (remaining > 0) {
+            int drop = Math.min(stackSize, remaining);
+            player.getWorld().dropItemNaturally(player.getLocation(), leftover.asQuantity(drop));
+            remaining -= drop;
+        }
+    }
+    
+    /**
+     * Reports the result of a give to whoever started it.
+     * 
+     * @param job The finished give
+     */
+    private void finishGive(GiveJob job) {
+        Component recipients = (job.recipients.size() == 1 && job.delivered == 1)
+            ? Component.text(job.recipientName, NamedTextColor.GOLD)
+            : Component.text(job.delivered + " player" + (job.delivered == 1 ? "" : "s"), NamedTextColor.GOLD);
+        
+        job.sender.sendMessage(Component.text("Gave ", NamedTextColor.GREEN)
+            .append(job.description)
+            .append(Component.text(" to ", NamedTextColor.GREEN))
+            .append(recipients));
+        if (job.skipped > 0) {
+            job.sender.sendMessage(Component.text(job.skipped + " players went offline before delivery and were skipped.", NamedTextColor.YELLOW));
+        }
+    }
+    
+    // ==================================================================================
+    // MAILBOX - Master Potions queued for offline players
+    // ==================================================================================
+    
+    /**
+     * Resolves a give target that names a player who is not online.
+     * 
+     * Accepts a UUID (so store webhooks can queue for buyers who never joined)
+     * or the name of a player the server has seen before. Uses the cached
+     * profile only - never a blocking web lookup.
+     * 
+     * @param spec The target argument
+     * @return The offline player's UUID, or null if the target is online, a
+     *         selector/group, or unknown
+     */
+    private UUID findMailboxRecipient(String spec) {
+        if (spec.startsWith("@") || spec.regionMatches(true, 0, "group:", 0, 6) || Bukkit.getPlayer(spec) != null) {
+            return null;
+        }
+        
+        UUID uuid = parseUuid(spec);
+        if (uuid != null) {
+            return (Bukkit.getPlayer(uuid) == null) ? uuid : null;
+        }
+        
+        org.bukkit.OfflinePlayer cached = Bukkit.getOfflinePlayerIfCached(spec);
+        return (cached != null) ? cached.getUniqueId() : null;
+    }
+    
+    /**
+     * Parses a string as a UUID.
+     * 
+     * @param text Candidate UUID in its 36-character form
+     * @return The UUID, or null if the text is not one
+     */
+    private static UUID parseUuid(String text) {
+        if (text.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(text);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Gets the mailbox file of a player.
+     * 
+     * @param uuid Player UUID
+     * @return playerdata/mailbox/<uuid>.yml
+     */
+    private File getMailboxFile(UUID uuid) {
+        return new File(getDataFolder(), "playerdata/mailbox/" + uuid + ".yml");
+    }
+    
+    /**
+     * Adds potions to a player's mailbox.
+     * 
+     * Entries are merged by state in the file, so one line per distinct potion
+     * is kept no matter how many times it is given. Runs on the I/O thread, in
+     * order with deliveries, so a give racing a join is never lost.
+     * 
+     * @param uuid Recipient UUID
+     * @param mail Potion state key ("effect,time,power") to amount
+     */
+    private void queueMail(UUID uuid, Map<String, Integer> mail) {
+        Map<String, Integer> snapshot = new LinkedHashMap<>(mail);
+        runOnIoThread(() -> {
+            File mailboxFile = getMailboxFile(uuid);
+            Map<String, Integer> merged = readMailbox(mailboxFile);
+            for (Map.Entry<String, Integer> entry : snapshot.entrySet()) {
+                merged.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+            writeMailbox(mailboxFile, merged);
+        });
+    }
+    
+    /**
+     * Reads a mailbox file.
+     * 
+     * Stored as a "potions" list of "effect,time,power,amount" lines - the
+     * potion state only, not serialized ItemStacks. Malformed lines are logged
+     * and skipped.
+     * 
+     * @param mailboxFile The mailbox file
+     * @return Potion state key ("effect,time,power") to amount, in file order
+     */
+    private Map<String, Integer> readMailbox(File mailboxFile) {
+        Map<String, Integer> mail = new LinkedHashMap<>();
+        if (!mailboxFile.exists()) {
+            return mail;
+        }
+        
+        org.bukkit.configuration.file.YamlConfiguration config = org.bukkit.configuration.file.YamlConfiguration.loadConfiguration(mailboxFile);
+        for (String line : config.getStringList("potions")) {
+            String[] parts = line.split(",");
+            try {
+                if (parts.length != 4) {
+                    throw new NumberFormatException();
+                }
+                int time = Integer.parseInt(parts[1].trim());
+                int power = Integer.parseInt(parts[2].trim());
+                int amount = Integer.parseInt(parts[3].trim());
+                if (amount > 0) {
+                    mail.merge(parts[0].trim() + "," + time + "," + power, amount, Integer::sum);
+                }
+            } catch (NumberFormatException e) {
+                getLogger().warning("Invalid mailbox entry in " + mailboxFile.getName() + ": " + line);
+            }
+        }
+        return mail;
+    }
+    
+    /**
+     * Writes a mailbox file, or deletes it when the mailbox is empty.
+     * 
+     * @param mailboxFile The mailbox file
+     * @param mail Potion state key ("effect,time,power") to amount
+     */
+    private void writeMailbox(File mailboxFile, Map<String, Integer> mail) {
+        if (mail.isEmpty()) {
+            mailboxFile.delete();
+            return;
+        }
+        
+        List<String> lines = new ArrayList<>(mail.size());
+        for (Map.Entry<String, Integer> entry : mail.entrySet()) {
+            lines.add(entry.getKey() + "," + entry.getValue());
+        }
+        
+        org.bukkit.configuration.file.YamlConfiguration config = new org.bukkit.configuration.file.YamlConfiguration();
+        config.set("potions", lines);
+        try {
+            mailboxFile.getParentFile().mkdirs();
+            config.save(mailboxFile);
+        } catch (Exception e) {
+            getLogger().warning("Failed to save mailbox " + mailboxFile.getName() + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Delivers a joining player's mailbox.
+     * 
+     * OPTIMIZATION: The file is read and parsed on the I/O thread. The main
+     * thread only clones cached potion prototypes and makes a single addItem()
+     * call for the whole mailbox.
+     * 
+     * The file is left untouched until delivery: deliverMail() queues the
+     * removal of what it actually gave, so mail is never lost if the player
+     * leaves or the plugin is disabled in between.
+     * 
+     * @param player The player who joined
+     */
+    private void deliverMailbox(Player player) {
+        UUID uuid = player.getUniqueId();
+        if (!mailboxDeliveries.add(uuid)) {
+            return;  // Previous delivery still in flight
+        }
+        runOnIoThread(() -> {
+            Map<String, Integer> mail = readMailbox(getMailboxFile(uuid));
+            if (mail.isEmpty()) {
+                mailboxDeliveries.remove(uuid);
+                return;
+            }
+            try {
+                Bukkit.getScheduler().runTask(this, () -> deliverMail(uuid, mail));
+            } catch (org.bukkit.plugin.IllegalPluginAccessException e) {
+                // Plugin is disabling; the mail stays on disk for the next join
+                mailboxDeliveries.remove(uuid);
+            }
+        });
+    }
+    
+    /**
+     * Gives mailbox potions to their owner (main thread).
+     * 
+     * Whatever does not fit in the inventory is dropped at the player's feet.
+     * Only the potions actually given are removed from the mailbox file. If the
+     * player left before delivery, or a potion's levels are no longer valid
+     * under the current config, that mail simply stays in the file.
+     * 
+     * @param uuid Recipient UUID
+     * @param mail Potion state key ("effect,time,power") to amount
+     */
+    private void deliverMail(UUID uuid, Map<String, Integer> mail) {
+        Player player = Bukkit.getPlayer(uuid);
+        if (player == null) {
+            mailboxDeliveries.remove(uuid);
+            return;
+        }
+        
+        List<ItemStack> items = new ArrayList<>();
+        Map<String, Integer> delivered = new LinkedHashMap<>();
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : mail.entrySet()) {
+            String[] state = entry.getKey().split(",");
+            ItemStack potion = getMasterPotion(state[0], Integer.parseInt(state[1]), Integer.parseInt(state[2]), 1);
+            if (potion == null) {
+                getLogger().warning("Mailbox potion " + entry.getKey() + " for " + player.getName() + " is not valid in the current config; kept in the mailbox");
+                continue;
+            }
+            Collections.addAll(items, splitIntoStacks(potion.asQuantity(entry.getValue())));
+            delivered.put(entry.getKey(), entry.getValue());
+            total += entry.getValue();
+        }
+        
+        removeMail(uuid, delivered);
+        if (items.isEmpty()) {
+            return;
+        }
+        
+        for (ItemStack leftover : player.getInventory().addItem(items.toArray(new ItemStack[0])).values()) {
+            dropAtFeet(player, leftover);
+        }
+        player.sendMessage(Component.text("You received " + total + " Master Potion" + (total == 1 ? "" : "s") + " from your mailbox!", NamedTextColor.GREEN));
+    }
+    
+    /**
+     * Takes delivered potions out of a player's mailbox and ends the delivery.
+     * 
+     * Runs on the I/O thread, after the read in deliverMailbox() and in order
+     * with queueMail(), so mail queued while the delivery was on the main
+     * thread is kept.
+     * 
+     * @param uuid Recipient UUID
+     * @param delivered Potion state key ("effect,time,power") to amount given
+     */
+    private void removeMail(UUID uuid, Map<String, Integer> delivered) {
+        runOnIoThread(() -> {
+            try {
+                if (!delivered.isEmpty()) {
+                    File mailboxFile = getMailboxFile(uuid);
+                    Map<String, Integer> remaining = readMailbox(mailboxFile);
+                    for (Map.Entry<String, Integer> entry : delivered.entrySet()) {
+                        remaining.computeIfPresent(entry.getKey(), (key, amount) -> (amount > entry.getValue()) ? amount - entry.getValue() : null);
+                    }
+                    writeMailbox(mailboxFile, remaining);
+                }
+            } finally {
+                mailboxDeliveries.remove(uuid);
+            }
+        });
+    }
+    
+    /**
+     * Handles /masterbrewing reload command.
+     * 
+     * Reloads configuration from config.yml without server restart:
+     * - Clears existing upgrade tier maps
+     * - Re-parses config.yml
+     * - Rebuilds global and per-potion upgrade paths
+     * - Recalculates max levels
+     * - Rebuilds cached potion/stand prototypes asynchronously
+     * 
+     * Requires masterbrewing.admin permission.
+     * Changes take effect immediately for new brewing operations.
+     * Does NOT affect currently active potion effects on players.
+     * 
+     * @param sender Command sender
+     * @return true if command was handled
+     */
+    private boolean handleReload(CommandSender sender) {
+        if (!sender.hasPermission("masterbrewing.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to reload configuration!", NamedTextColor.RED));
+            return true;
+        }
+        
+        // Parsed off the main thread; the old tables stay in force until the swap
+        reloadUpgradeConfigAsync(sender);
+        sender.sendMessage(Component.text("Reloading MasterBrewing configuration...", NamedTextColor.YELLOW));
+        
+        return true;
+    }
+    
+    /**
+     * Handles /masterbrewing bulk command.
+     * 
+     * Toggles "brew to exhaustion" mode on the Master Brewing Stand the player
+     * is looking at (within 5 blocks). In bulk mode a single brew cycle applies
+     * every upgrade the stand's materials and fuel can pay for.
+     * 
+     * The mode is stored in the block's PDC (bulk_brewing) and travels with the
+     * stand item when it is broken and placed again.
+     * 
+     * Requires masterbrewing.bulk (default: everyone, like placing and using
+     * physical stands) and the right to use the stand: a right-click on it is
+     * simulated with a PlayerInteractEvent, so claim and region plugins that
+     * keep a player out of a container also keep them from toggling it.
+     * 
+     * @param sender Command sender
+     * @return true if command was handled
+     */
+    private boolean handleBulkToggle(CommandSender sender) {
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(Component.text("This command can only be used by players!", NamedTextColor.RED));
+            return true;
+        }
+        
+        Player player = (Player) sender;
+        if (!player.hasPermission("masterbrewing.bulk")) {
+            player.sendMessage(Component.text("You don't have permission to toggle bulk brewing!", NamedTextColor.RED));
+            return true;
+        }
+        
+        Block block = player.getTargetBlockExact(5);
+        if (block == null || !isMasterBrewingStandAt(block)) {
+            player.sendMessage(Component.text("Look at a Master Brewing Stand to toggle bulk brewing!", NamedTextColor.RED));
+            return true;
+        }
+        
+        // Protection check: may this player open this stand? (no item, so our own handler ignores it)
+        org.bukkit.block.BlockFace face = player.getTargetBlockFace(5);
+        PlayerInteractEvent access = new PlayerInteractEvent(player, Action.RIGHT_CLICK_BLOCK, null, block,
+            (face != null) ? face : org.bukkit.block.BlockFace.UP);
+        Bukkit.getPluginManager().callEvent(access);
+        if (access.useInteractedBlock() == org.bukkit.event.Event.Result.DENY) {
+            player.sendMessage(Component.text("You can't change this Master Brewing Stand here!", NamedTextColor.RED));
+            return true;
+        }
+        
+        BrewingStand brewingStand = (BrewingStand) block.getState();
+        boolean enable = !brewingStand.getPersistentDataContainer().has(bulkBrewingKey, PersistentDataType.BYTE);
+        if (enable) {
+            brewingStand.getPersistentDataContainer().set(bulkBrewingKey, PersistentDataType.BYTE, (byte) 1);
+        } else {
+            brewingStand.getPersistentDataContainer().remove(bulkBrewingKey);
+        }
+        brewingStand.update();
+        
+        player.sendMessage(Component.text("Bulk brewing ", NamedTextColor.GREEN)
+            .append(Component.text(enable ? "enabled" : "disabled", NamedTextColor.GOLD))
+            .append(Component.text(" for this Master Brewing Stand.", NamedTextColor.GREEN)));
+        return true;
+    }
+    
+    /**
+     * Handles /masterbrewing stats command.
+     * 
+     * Shows the virtual brewing counters that replaced per-click debug logging:
+     * - Click/drag events seen in virtual stands
+     * - Events coalesced into an already scheduled pass
+     * - Brewing passes actually run
+     * - Upgrade cycles completed
+     * - Rate limiting: passes limited, upgrades finished from the queue,
+     *   stands currently waiting, global tokens left
+     * - Team stands currently loaded
+     * - Upgrade cycles done with /masterbrewing brew
+     * 
+     * Counters reset on server restart. Requires masterbrewing.admin permission.
+     * 
+     * @param sender Command sender
+     * @return true if command was handled
+     */
+    private boolean handleStats(CommandSender sender) {
+        if (!sender.hasPermission("masterbrewing.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to view statistics!", NamedTextColor.RED));
+            return true;
+        }
+        
+        sender.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.GOLD));
+        sender.sendMessage(Component.text("Master Brewing Statistics", NamedTextColor.GOLD, TextDecoration.BOLD));
+        sender.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.GOLD));
+        sendStatLine(sender, "Virtual stand events", virtualBrewEvents);
+        sendStatLine(sender, "Events coalesced", virtualBrewEventsCoalesced);
+        sendStatLine(sender, "Brewing passes", virtualBrewPasses);
+        sendStatLine(sender, "Upgrades completed", virtualBrewUpgrades);
+        sendStatLine(sender, "Passes rate limited", virtualBrewThrottled);
+        sendStatLine(sender, "Upgrades completed from queue", virtualBrewDeferredUpgrades);
+        sendStatLine(sender, "Stands waiting for tokens", throttledVirtualBrews.size());
+        sendStatLine(sender, "Team stands loaded", teamStands.size());
+        sendStatLine(sender, "Quick brew upgrades", quickBrewUpgrades);
+        if (globalBrewRate > 0) {
+            sendStatLine(sender, "Global tokens available", globalBrewBucket.refill(globalBrewRate, globalBrewBurst));
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Sends a single "label: value" line of the stats output.
+     * 
+     * @param sender Command sender
+     * @param label Counter description
+     * @param value Counter value
+     */
+    private void sendStatLine(CommandSender sender, String label, long value) {
+        sender.sendMessage(Component.text(label + ": ", NamedTextColor.YELLOW)
+            .append(Component.text(String.valueOf(value), NamedTextColor.WHITE)));
+    }
+    
+    /**
+     * Handles /masterbrewing loot command.
+     * 
+     * Lists the compiled loot table used by "give potion <target> random" and
+     * rollLootPotion(), with each entry's chance and level ranges.
+     * Requires masterbrewing.give permission.
+     * 
+     * @param sender Command sender
+     * @return true if command was handled
+     */
+    private boolean handleLoot(CommandSender sender) {
+        if (!sender.hasPermission("masterbrewing.give")) {
+            sender.sendMessage(Component.text("You don't have permission to view the loot table!", NamedTextColor.RED));
+            return true;
+        }
+        
+        LootTable table = upgradeConfig.lootTable;
+        sender.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.GOLD));
+        sender.sendMessage(Component.text("Master Potion Loot Table", NamedTextColor.GOLD, TextDecoration.BOLD));
+        sender.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.GOLD));
+        if (table.size() == 0) {
+            sender.sendMessage(Component.text("The loot table has no valid entries.", NamedTextColor.RED));
+            return true;
+        }
+        
+        for (int i = 0; i < table.size(); i++) {
+            int[] range = table.ranges[i];
+            sender.sendMessage(Component.text(String.format("%6.2f%% ", table.chances[i] * 100), NamedTextColor.WHITE)
+                .append(Component.text(table.potions[i], NamedTextColor.GOLD))
+                .append(Component.text(" time " + formatLevelRange(range[0], range[1]) + ", power " + formatLevelRange(range[2], range[3]), NamedTextColor.GRAY)));
+        }
+        return true;
+    }
+    
+    /**
+     * Formats a level range for display ("3" or "1-5").
+     * 
+     * @param min Lowest level
+     * @param max Highest level
+     * @return The range text
+     */
+    private static String formatLevelRange(int min, int max) {
+        return (min == max) ? String.valueOf(min) : min + "-" + max;
+    }
+    
+    /**
+     * Handles /masterbrewing plan <potion> <time> <power> command.
+     * 
+     * Shows the redstone, glowstone, brew cycles and fuel needed to reach the
+     * target levels (each may be "max"). Planning starts from the potion in the
+     * player's main hand if it has the same effect, otherwise from an
+     * unupgraded potion (levels 0, 0).
+     * 
+     * Answered by planUpgradeRoute() in constant time. No permission required.
+     * 
+     * @param sender Command sender
+     * @param args Full command arguments including "plan"
+     * @return true if command was handled
+     */
+    private boolean handlePlan(CommandSender sender, String[] args) {
+        if (args.length < 4) {
+            sender.sendMessage(Component.text("Usage: /masterbrewing plan <potion> <time_lvl> <power_lvl>", NamedTextColor.RED));
+            return true;
+        }
+        
+        String potionName = args[1].toLowerCase();
+        String effectKey = POTION_NAME_TO_EFFECT_KEY.get(potionName);
+        if (effectKey == null) {
+            sender.sendMessage(Component.text("Unknown potion type: " + potionName, NamedTextColor.RED));
+            return true;
+        }
+        
+        UpgradeCostTable table = getCostTable(effectKey);
+        int toTime;
+        int toPower;
+        try {
+            toTime = args[2].equalsIgnoreCase("max") ? table.maxTimeLevel() : Integer.parseInt(args[2]);
+            toPower = args[3].equalsIgnoreCase("max") ? table.maxPowerLevel() : Integer.parseInt(args[3]);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(Component.text("Levels must be valid numbers!", NamedTextColor.RED));
+            return true;
+        }
+        
+        if (toTime < 0 || toTime > table.maxTimeLevel()) {
+            sender.sendMessage(Component.text("Time level must be between 0 and " + table.maxTimeLevel() + " for " + potionName + "!", NamedTextColor.RED));
+            return true;
+        }
+        if (toPower < 0 || toPower > table.maxPowerLevel()) {
+            sender.sendMessage(Component.text("Power level must be between 0 and " + table.maxPowerLevel() + " for " + potionName + "!", NamedTextColor.RED));
+            return true;
+        }
+        
+        // Start from the held potion if it is the same effect
+        int fromTime = 0;
+        int fromPower = 0;
+        if (sender instanceof Player) {
+            MasterPotionState held = readMasterPotionState(((Player) sender).getInventory().getItemInMainHand());
+            if (held != null && held.effectTypeKey.equals(effectKey)) {
+                fromTime = Math.min(held.timeLevel, table.maxTimeLevel());
+                fromPower = Math.min(held.powerLevel, table.maxPowerLevel());
+            }
+        }
+        
+        UpgradeRoute route = planUpgradeRoute(effectKey, fromTime, fromPower, toTime, toPower);
+        if (route == null) {
+            sender.sendMessage(Component.text("Those levels can't be brewed for " + potionName + "!", NamedTextColor.RED));
+            return true;
+        }
+        
+        sender.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.GOLD));
+        sender.sendMessage(Component.text("Upgrade Plan: " + potionName, NamedTextColor.GOLD, TextDecoration.BOLD));
+        sender.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.GOLD));
+        sender.sendMessage(Component.text("Time level: ", NamedTextColor.YELLOW)
+            .append(Component.text(fromTime + " → " + Math.max(fromTime, toTime), NamedTextColor.WHITE)));
+        sender.sendMessage(Component.text("Power level: ", NamedTextColor.YELLOW)
+            .append(Component.text(fromPower + " → " + Math.max(fromPower, toPower), NamedTextColor.WHITE)));
+        sendStatLine(sender, "Redstone", route.redstone);
+        sendStatLine(sender, "Glowstone", route.glowstone);
+        sendStatLine(sender, "Brew cycles", route.brewCycles);
+        sender.sendMessage(Component.text("Fuel: ", NamedTextColor.YELLOW)
+            .append(Component.text(route.fuelCharges + " charges (" + route.blazePowder + " blaze powder)", NamedTextColor.WHITE)));
+        
+        return true;
+    }
+    
+    /**
+     * Handles /masterbrewing brew <redstone|glowstone> [levels|max] command.
+     * 
+     * Upgrades the Master Potion in the player's main hand straight from
+     * their inventory - no GUI, no Inventory object, no click processing.
+     * 
+     * OPTIMIZATION: One pass over the storage contents counts the material
+     * and blaze powder, planUpgrades() (the same rules and costs as the
+     * brewing stands) works out every level affordable at once, and the
+     * result is written back with a single meta write on the potion and a
+     * single setStorageContents() call.
+     * 
+     * Fuel works like a stand's: one charge per level, one blaze powder gives
+     * 20 charges, and leftover charges are kept in the player's PDC
+     * (quickBrewFuelKey) for the next quick brew.
+     * 
+     * Shares the per-player and global token buckets with instant virtual
+     * brewing, so it can't be used to get around virtual-brew limits. Not
+     * available when virtual-brew-time is set (it would skip the brew time).
+     * Requires masterbrewing.use permission.
+     * 
+     * @param sender Command sender
+     * @param args Full command arguments including "brew"
+     * @return true if command was handled
+     */
+    private boolean handleQuickBrew(CommandSender sender, String[] args) {
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(Component.text("This command can only be used by players!", NamedTextColor.RED));
+            return true;
+        }
+        
+        Player player = (Player) sender;
+        if (!player.hasPermission("masterbrewing.use")) {
+            player.sendMessage(Component.text("You don't have permission to use Master Brewing!", NamedTextColor.RED));
+            return true;
+        }
+        
+        if (virtualBrewTimeTicks > 0) {
+            player.sendMessage(Component.text("Quick brewing is disabled on this server. Use /masterbrewing to open a stand.", NamedTextColor.RED));
+            return true;
+        }
+        
+        if (args.length < 2 || (!args[1].equalsIgnoreCase("redstone") && !args[1].equalsIgnoreCase("glowstone"))) {
+            player.sendMessage(Component.text("Usage: /masterbrewing brew <redstone|glowstone> [levels|max]", NamedTextColor.RED));
+            return true;
+        }
+        boolean isRedstone = args[1].equalsIgnoreCase("redstone");
+        Material materialType = isRedstone ? Material.REDSTONE : Material.GLOWSTONE_DUST;
+        
+        int requested = 1;
+        if (args.length >= 3) {
+            try {
+                requested = args[2].equalsIgnoreCase("max") ? Integer.MAX_VALUE : Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                requested = 0;
+            }
+            if (requested < 1) {
+                player.sendMessage(Component.text("Levels must be a positive number or max!", NamedTextColor.RED));
+                return true;
+            }
+        }
+        
+        org.bukkit.inventory.PlayerInventory inventory = player.getInventory();
+        ItemStack[] contents = inventory.getStorageContents();
+        int handSlot = inventory.getHeldItemSlot();
+        ItemStack potion = contents[handSlot];
+        
+        MasterPotionState state = readMasterPotionState(potion);
+        if (state == null) {
+            player.sendMessage(Component.text("Hold a potion in your main hand to brew it!", NamedTextColor.RED));
+            return true;
+        }
+        
+        int nextCost = getNextUpgradeCost(state, isRedstone, !isRedstone);
+        if (nextCost <= 0) {
+            player.sendMessage(Component.text("This potion can't be upgraded any further with " + args[1].toLowerCase() + "!", NamedTextColor.RED));
+            return true;
+        }
+        
+        // Count material and blaze powder in one pass
+        int materialAvailable = 0;
+        int blazeAvailable = 0;
+        for (int i = 0; i < contents.length; i++) {
+            ItemStack item = contents[i];
+            if (item == null || i == handSlot) continue;
+            if (item.getType() == materialType) {
+                materialAvailable += item.getAmount();
+            } else if (item.getType() == Material.BLAZE_POWDER) {
+                blazeAvailable += item.getAmount();
+            }
+        }
+        
+        if (materialAvailable < nextCost) {
+            player.sendMessage(Component.text("You need " + nextCost + " " + (isRedstone ? "redstone" : "glowstone dust") + " for the next level!", NamedTextColor.RED));
+            return true;
+        }
+        
+        org.bukkit.persistence.PersistentDataContainer playerData = player.getPersistentDataContainer();
+        int fuel = playerData.getOrDefault(quickBrewFuelKey, PersistentDataType.INTEGER, 0);
+        if (fuel <= 0 && blazeAvailable <= 0) {
+            player.sendMessage(Component.text("You need blaze powder to fuel the brew!", NamedTextColor.RED));
+            return true;
+        }
+        
+        UUID playerUUID = player.getUniqueId();
+        int allowance = getVirtualBrewAllowance(playerUUID);
+        if (allowance <= 0) {
+            player.sendMessage(Component.text("You're brewing too fast - try again in a moment.", NamedTextColor.RED));
+            return true;
+        }
+        
+        UpgradePlan plan = planUpgrades(new MasterPotionState[] { state }, materialAvailable, isRedstone,
+            fuel, blazeAvailable, Math.min(requested, allowance));
+        takeVirtualBrewTokens(playerUUID, plan.levels);
+        quickBrewUpgrades += plan.levels;
+        
+        // Write the potion, then take materials from the other slots
+        applyMasterPotionState(potion, state);
+        int materialLeft = plan.materialUsed;
+        int blazeLeft = plan.blazePowderUsed;
+        for (int i = 0; i < contents.length && (materialLeft > 0 || blazeLeft > 0); i++) {
+            ItemStack item = contents[i];
+            if (item == null || i == handSlot) continue;
+            if (item.getType() == materialType && materialLeft > 0) {
+                int take = Math.min(materialLeft, item.getAmount());
+                materialLeft -= take;
+                contents[i] = (take == item.getAmount()) ? null : item.asQuantity(item.getAmount() - take);
+            } else if (item.getType() == Material.BLAZE_POWDER && blazeLeft > 0) {
+                int take = Math.min(blazeLeft, item.getAmount());
+                blazeLeft -= take;
+                contents[i] = (take == item.getAmount()) ? null : item.asQuantity(item.getAmount() - take);
+            }
+        }
+        inventory.setStorageContents(contents);
+        
+        if (plan.fuelRemaining > 0) {
+            playerData.set(quickBrewFuelKey, PersistentDataType.INTEGER, plan.fuelRemaining);
+        } else {
+            playerData.remove(quickBrewFuelKey);
+        }
+        
+        player.sendMessage(Component.text("Brewed ", NamedTextColor.GREEN)
+            .append(Component.text(plan.levels + (plan.levels == 1 ? " level" : " levels"), NamedTextColor.GOLD))
+            .append(Component.text(" using " + plan.materialUsed + " " + (isRedstone ? "redstone" : "glowstone dust")
+                + " and " + plan.blazePowderUsed + " blaze powder (fuel left: " + plan.fuelRemaining + ")", NamedTextColor.GRAY)));
+        if (plan.levels < requested && requested != Integer.MAX_VALUE) {
+            player.sendMessage(Component.text("Stopped early: not enough materials, fuel or brewing allowance for more.", NamedTextColor.YELLOW));
+        }
+        return true;
+    }
+    
+    /**
+     * Handles /masterbrewing upgrade <player|container> <time> <power> command.
+     * 
+     * Raises every potion in a player's inventory, or in the container the
+     * sender is looking at (within 5 blocks), to at least the given levels.
+     * Levels may be "max" and are capped at each potion's own maximum; potions
+     * already at or above the target are left alone. No materials are used.
+     * 
+     * OPTIMIZATION: Runs as a batch job (see runBatchTick):
+     * - Each potion is decoded once (readMasterPotionState)
+     * - Identical potions (isSimilar) are grouped, and the upgraded item is
+     *   rendered once per group and cloned into every slot of the group
+     * - Work is spread over ticks under the batch-tick-budget
+     * 
+     * Slots whose item changed while the batch was running are skipped.
+     * Requires masterbrewing.upgrade permission.
+     * 
+     * @param sender Command sender
+     * @param args Full command arguments including "upgrade"
+     * @return true if command was handled
+     */
+    private boolean handleUpgrade(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("masterbrewing.upgrade")) {
+            sender.sendMessage(Component.text("You don't have permission to batch upgrade potions!", NamedTextColor.RED));
+            return true;
+        }
+        
+        if (args.length < 4) {
+            sender.sendMessage(Component.text("Usage: /masterbrewing upgrade <player|container> <time_lvl> <power_lvl>", NamedTextColor.RED));
+            return true;
+        }
+        
+        int targetTime;
+        int targetPower;
+        try {
+            targetTime = args[2].equalsIgnoreCase("max") ? Integer.MAX_VALUE : Integer.parseInt(args[2]);
+            targetPower = args[3].equalsIgnoreCase("max") ? Integer.MAX_VALUE : Integer.parseInt(args[3]);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(Component.text("Levels must be valid numbers!", NamedTextColor.RED));
+            return true;
+        }
+        if (targetTime < 0 || targetPower < 0) {
+            sender.sendMessage(Component.text("Levels must be 0 or greater!", NamedTextColor.RED));
+            return true;
+        }
+        
+        org.bukkit.inventory.Inventory inventory;
+        Player owner = null;
+        if (args[1].equalsIgnoreCase("container")) {
+            if (!(sender instanceof Player)) {
+                sender.sendMessage(Component.text("Only players can target a container!", NamedTextColor.RED));
+                return true;
+            }
+            Block block = ((Player) sender).getTargetBlockExact(5);
+            if (block == null || !(block.getState() instanceof org.bukkit.block.Container)) {
+                sender.sendMessage(Component.text("Look at a container to upgrade its potions!", NamedTextColor.RED));
+                return true;
+            }
+            inventory = ((org.bukkit.block.Container) block.getState()).getInventory();
+        } else {
+            owner = Bukkit.getPlayer(args[1]);
+            if (owner == null) {
+                sender.sendMessage(Component.text("Player not found!", NamedTextColor.RED));
+                return true;
+            }
+            inventory = owner.getInventory();
+        }
+        
+        InventoryUpgradeJob job = new InventoryUpgradeJob(inventory, owner, sender, targetTime, targetPower);
+        submitBatchJob(new BatchJob(() -> stepInventoryUpgrade(job), () -> finishInventoryUpgrade(job)));
+        
+        sender.sendMessage(Component.text("Upgrading potions in " + job.contents.length + " slots...", NamedTextColor.YELLOW));
+        return true;
+    }
+    
+    /**
+     * Performs one step of an inventory upgrade batch.
+     * 
+     * Phase 1 (one slot per step): decode the potion, work out its target
+     * state and add it to the matching group.
+     * Phase 2 (one slot per step): render the group's template on first use,
+     * then replace the slot with a clone of it if the slot is unchanged.
+     * 
+     * @param job The batch being processed
+     * @return true while work remains
+     */
+    private boolean stepInventoryUpgrade(InventoryUpgradeJob job) {
+        // Stop early if the owning player left (their inventory is no longer live)
+        if (job.owner != null && !job.owner.isOnline()) {
+            return false;
+        }
+        
+        // ===== PHASE 1: Decode and group =====
+        if (job.decodeIndex < job.contents.length) {
+            int slot = job.decodeIndex++;
+            ItemStack item = job.contents[slot];
+            MasterPotionState state = readMasterPotionState(item);
+            UpgradeCostTable table = (state != null) ? getCostTable(state.effectTypeKey) : null;
+            if (table == null) {
+                return true;
+            }
+            
+            int time = Math.max(state.timeLevel, Math.min(job.targetTime, table.maxTimeLevel()));
+            int power = Math.max(state.powerLevel, Math.min(job.targetPower, table.maxPowerLevel()));
+            if (time == state.timeLevel && power == state.powerLevel) {
+                return true;  // Already at or above the target
+            }
+            
+            String key = item.getType() + ":" + state.effectTypeKey + ":" + state.timeLevel + ":" + state.powerLevel
+                + ":" + state.duration + ":" + time + ":" + power;
+            List<UpgradeGroup> bucket = job.buckets.computeIfAbsent(key, k -> new ArrayList<>());
+            UpgradeGroup group = null;
+            for (UpgradeGroup candidate : bucket) {
+                if (candidate.source.isSimilar(item)) {
+                    group = candidate;
+                    break;
                 }
             }
+            if (group == null) {
+                int duration = (time > state.timeLevel) ? getUpgradePath(state.effectTypeKey).duration(time) : state.duration;
+                group = new UpgradeGroup(new MasterPotionState(state.effectTypeKey, time, power, duration), item.clone());
+                bucket.add(group);
+                job.groups.add(group);
+            }
+            group.slots.add(slot);
+            job.sources[slot] = item.clone();
+            return true;
         }
         
-        meta.lore(lore);
-        
-        potion.setItemMeta(meta);
+        // ===== PHASE 2: Write upgraded items =====
+        if (job.groupIterator == null) {
+            job.groupIterator = job.groups.iterator();
+        }
+        while (job.currentGroup == null || job.groupSlotIndex >= job.currentGroup.slots.size()) {
+            if (!job.groupIterator.hasNext()) {
+                return false;
+            }
+            job.currentGroup = job.groupIterator.next();
+            job.groupSlotIndex = 0;
+        }
         
-        target.getInventory().addItem(potion);
+        UpgradeGroup group = job.currentGroup;
+        int slot = group.slots.get(job.groupSlotIndex++);
+        ItemStack source = job.sources[slot];
         
-        sender.sendMessage(Component.text("Gave ", NamedTextColor.GREEN)
-            .append(Component.text(target.getName(), NamedTextColor.GOLD))
-            .append(Component.text(" a ", NamedTextColor.GREEN))
-            .append(Component.text(potionName, NamedTextColor.GOLD))
-            .append(Component.text(" potion (Time: ", NamedTextColor.GREEN))
-            .append(Component.text(timeLevel + "", NamedTextColor.GOLD))
-            .append(Component.text(", Power: ", NamedTextColor.GREEN))
-            .append(Component.text(powerLevel + "", NamedTextColor.GOLD))
-            .append(Component.text(")", NamedTextColor.GREEN)));
+        // Render the group's item once, from its first member
+        if (group.template == null) {
+            group.template = source.clone();
+            group.template.setAmount(1);
+            applyMasterPotionState(group.template, group.target);
+        }
         
-        target.sendMessage(Component.text("You received a Master ", NamedTextColor.GREEN)
-            .append(Component.text(potionName.substring(0, 1).toUpperCase() + potionName.substring(1), NamedTextColor.GOLD))
-            .append(Component.text(" Potion!", NamedTextColor.GREEN)));
+        ItemStack current = job.inventory.getItem(slot);
+        if (current == null || !current.isSimilar(source)) {
+            job.skipped++;  // Moved or changed since the batch started
+            return true;
+        }
         
+        ItemStack upgraded = group.template.clone();
+        upgraded.setAmount(current.getAmount());
+        job.inventory.setItem(slot, upgraded);
+        job.upgraded += upgraded.getAmount();
         return true;
     }
     
     /**
-     * Handles /masterbrewing give potion <player> random command.
+     * Reports the result of an inventory upgrade batch to whoever started it.
+     * 
+     * @param job The finished batch
+     */
+    private void finishInventoryUpgrade(InventoryUpgradeJob job) {
+        if (job.owner != null && !job.owner.isOnline()) {
+            job.sender.sendMessage(Component.text("Batch upgrade stopped: " + job.owner.getName() + " went offline.", NamedTextColor.RED));
+            return;
+        }
+        
+        job.sender.sendMessage(Component.text("Upgraded ", NamedTextColor.GREEN)
+            .append(Component.text(job.upgraded + " potions", NamedTextColor.GOLD))
+            .append(Component.text(" (" + job.groups.size() + " distinct)", NamedTextColor.GRAY)));
+        if (job.skipped > 0) {
+            job.sender.sendMessage(Component.text(job.skipped + " slots changed during the batch and were skipped.", NamedTextColor.YELLOW));
+        }
+    }
+    
+    /**
+     * Opens a player's virtual Master Brewing Stand.
      * 
-     * Creates a potion with:
-     * - Random effect type from POTION_NAME_TO_EFFECT_KEY keyset
-     * - Random time level from 1 to maxTimeLevel (potion-specific max)
-     * - Random power level from 1 to maxPowerLevel (potion-specific max)
+     * Players allowed a single stand get it directly. Players with
+     * masterbrewing.stands.<n> (n > 1) get the stand selector instead.
      * 
-     * Useful for loot crates, random rewards, or testing.
-     * Uses per-potion max levels so each type stays within its valid range.
+     * The stand limit is resolved here once per open and handed to the
+     * selector, so paging and clicks never rescan permissions. If the limit
+     * was lowered, stands above it that still hold items (stored records on
+     * the I/O thread, plus resident stands) are listed too, as withdraw-only -
+     * a player with one stand left gets the selector while any remain.
      * 
-     * @param sender Command sender
-     * @param target Player to receive the potion
-     * @return true if command was handled
+     * @param player The player to open the virtual brewing stand for
      */
-    private boolean handleGiveRandomPotion(CommandSender sender, Player target) {
-        // Get random potion name from all available potions
-        List<String> potionNames = new ArrayList<>(POTION_NAME_TO_EFFECT_KEY.keySet());
-        String potionName = potionNames.get(new Random().nextInt(potionNames.size()));
-        String effectKey = POTION_NAME_TO_EFFECT_KEY.get(potionName);
-        
-        // Get per-potion upgrade paths
-        int potionMaxTimeLevel = getMaxTimeLevel(effectKey);
-        int potionMaxPowerLevel = getMaxPowerLevel(effectKey);
-        Map<Integer, int[]> potionTimeUpgrades = getTimeUpgrades(effectKey);
-        Map<Integer, Integer> potionPowerUpgrades = getPowerUpgrades(effectKey);
+    private void openVirtualBrewingStand(Player player) {
+        UUID playerUUID = player.getUniqueId();
+        int limit = getVirtualStandLimit(player);
         
-        // Get random time and power levels based on this potion's max levels
-        int timeLevel = 1 + new Random().nextInt(potionMaxTimeLevel);
-        int powerLevel = 1 + new Random().nextInt(potionMaxPowerLevel);
+        Set<Integer> above = new TreeSet<>();
+        for (VirtualStand stand : virtualStandCache.getOrDefault(playerUUID, Collections.emptyMap()).values()) {
+            // An emptied stand's record is deleted on its next save
+            if (stand.index > limit && (stand.fuel > 0 || !stand.inventory.isEmpty())) {
+                above.add(stand.index);
+            }
+        }
         
-        // Get effect type using NamespacedKey (skip for custom fly and fortune potions)
-        PotionEffectType effectType = null;
-        if (!effectKey.equals("fly") && !effectKey.equals("fortune")) {
-            effectType = PotionEffectType.getByKey(NamespacedKey.minecraft(effectKey));
-            if (effectType == null) {
-                sender.sendMessage(Component.text("Failed to load random potion effect type: " + effectKey, NamedTextColor.RED));
-                return true;
+        runOnIoThread(() -> {
+            Set<Integer> stored = listStoredStands(playerUUID);
+            
+            Bukkit.getScheduler().runTask(this, () -> {
+                Player online = Bukkit.getPlayer(playerUUID);
+                if (online == null) {
+                    return;
+                }
+                
+                for (Integer index : stored) {
+                    if (index > limit) {
+                        above.add(index);
+                    }
+                }
+                if (limit > 1 || !above.isEmpty()) {
+                    int[] stands = new int[limit + above.size()];
+                    for (int i = 0; i < limit; i++) {
+                        stands[i] = i + 1;
+                    }
+                    int next = limit;
+                    for (Integer index : above) {
+                        stands[next++] = index;
+                    }
+                    openStandSelector(online, limit, stands);
+                } else {
+                    openVirtualStand(online, 1, false);
+                }
+            });
+        });
+    }
+    
+    /**
+     * Lists the stand numbers a player has records for (I/O thread).
+     * 
+     * Only the file names in playerdata/stands/{uuid}/ are read.
+     * 
+     * @param playerUUID The player
+     * @return Stand numbers with a stored record
+     */
+    private Set<Integer> listStoredStands(UUID playerUUID) {
+        Set<Integer> stored = new HashSet<>();
+        String[] names = new File(getDataFolder(), "playerdata/stands/" + playerUUID.toString()).list();
+        if (names == null) {
+            return stored;
+        }
+        for (String name : names) {
+            if (!name.endsWith(".yml")) {
+                continue;
+            }
+            try {
+                stored.add(Integer.parseInt(name.substring(0, name.length() - ".yml".length())));
+            } catch (NumberFormatException e) {
+                // Not a stand record - ignore
+            }
+        }
+        return stored;
+    }
+    
+    /**
+     * Gets how many virtual stands a player may use.
+     * 
+     * The highest n of any granted masterbrewing.stands.<n> permission,
+     * capped at MAX_VIRTUAL_STANDS. Defaults to 1.
+     * 
+     * @param player The player
+     * @return Number of stands (at least 1)
+     */
+    private int getVirtualStandLimit(Player player) {
+        int limit = 1;
+        for (org.bukkit.permissions.PermissionAttachmentInfo info : player.getEffectivePermissions()) {
+            String permission = info.getPermission();
+            if (!info.getValue() || !permission.startsWith("masterbrewing.stands.")) {
+                continue;
+            }
+            try {
+                int n = Integer.parseInt(permission.substring("masterbrewing.stands.".length()));
+                limit = Math.max(limit, Math.min(n, MAX_VIRTUAL_STANDS));
+            } catch (NumberFormatException e) {
+                // Not a stand count (e.g. a wildcard) - ignore
             }
         }
+        return limit;
+    }
+    
+    /**
+     * Opens one virtual Master Brewing Stand GUI for a player.
+     * 
+     * Virtual brewing stands provide the same functionality as physical stands
+     * without requiring a block to be placed. Useful for:
+     * - Players in areas where they can't place blocks
+     * - Convenience brewing while traveling
+     * - Testing and admin purposes
+     * 
+     * Process:
+     * 1. If the stand is resident, open it immediately
+     * 2. Otherwise show a loading message and read only this stand's record on the I/O thread
+     * 3. Next main-thread tick: build the inventory, cache it, open the GUI
+     * 4. Update fuel display after 1 tick
+     * 
+     * The main thread never touches the disk here. Contents persist across
+     * sessions - the stand stays in memory while the player is online and is
+     * saved off-thread on close, quit and autosave.
+     * 
+     * A stand above the player's current limit is opened withdraw-only: its
+     * items can be taken out but nothing can be put in, and it doesn't brew
+     * (see onWithdrawOnlyStandClick).
+     * 
+     * @param player The player to open the virtual brewing stand for
+     * @param index Stand number (1-based)
+     * @param withdrawOnly true if the stand is above the player's stand limit
+     */
+    private void openVirtualStand(Player player, int index, boolean withdrawOnly) {
+        UUID playerUUID = player.getUniqueId();
+        
+        VirtualStand stand = getResidentStand(playerUUID, index);
+        if (stand != null) {
+            stand.withdrawOnly = withdrawOnly;
+            showVirtualStand(player, stand);
+            return;
+        }
+        
+        // Loading indicator (also shown again if they retry while loading)
+        player.sendActionBar(Component.text("Loading your Master Brewing Stand...", NamedTextColor.GRAY));
+        if (!virtualStandsLoading.add(playerUUID)) {
+            return;
+        }
+        
+        runOnIoThread(() -> {
+            // Read and deserialize off the main thread
+            Object[] data = loadPlayerBrewingData(playerUUID, index);
+            
+            Bukkit.getScheduler().runTask(this, () -> {
+                virtualStandsLoading.remove(playerUUID);
+                
+                // Player may have quit while the file was being read
+                Player online = Bukkit.getPlayer(playerUUID);
+                if (online == null) {
+                    return;
+                }
+                
+                VirtualStand loaded = getResidentStand(playerUUID, index);
+                if (loaded == null) {
+                    loaded = createVirtualStand(playerUUID, index, (ItemStack[]) data[0], (Integer) data[1]);
+                    // Migrated stands are written to their own record on the next save
+                    loaded.legacy = (Boolean) data[2];
+                    loaded.dirty = loaded.legacy;
+                    loaded.resumeBrewTicks = (Integer) data[3];
+                    virtualStandCache.computeIfAbsent(playerUUID, id -> new HashMap<>()).put(index, loaded);
+                }
+                loaded.withdrawOnly = withdrawOnly;
+                showVirtualStand(online, loaded);
+            });
+        });
+    }
+    
+    /**
+     * Gets a resident virtual stand.
+     * 
+     * @param playerUUID The stand owner
+     * @param index Stand number (1-based)
+     * @return The stand, or null if it is not loaded
+     */
+    private VirtualStand getResidentStand(UUID playerUUID, int index) {
+        Map<Integer, VirtualStand> stands = virtualStandCache.get(playerUUID);
+        return (stands != null) ? stands.get(index) : null;
+    }
+    
+    /**
+     * Opens a resident virtual stand's GUI and tracks it as open.
+     * 
+     * @param player The viewer (the owner, or a team member)
+     * @param stand The resident stand
+     */
+    private void showVirtualStand(Player player, VirtualStand stand) {
+        // Open first: closing a previously open stand untracks that one
+        player.openInventory(stand.inventory);
+        
+        // Track this virtual brewing stand by player UUID
+        virtualBrewingStands.put(player.getUniqueId(), stand);
+        
+        // Resume timed brewing for stands loaded with brewable contents
+        if (virtualBrewTimeTicks > 0 && !stand.withdrawOnly) {
+            startTimedBrew(stand.owner, stand);
+        }
         
-        // Get duration from this potion's config
-        int duration = potionTimeUpgrades.get(timeLevel)[1];
+        // Update fuel display after a tick (needs inventory to be open first)
+        Bukkit.getScheduler().runTaskLater(this, () -> {
+            updateFuelDisplay(player);
+        }, 1L);
+    }
+    
+    /**
+     * Builds a virtual stand from loaded data (main thread).
+     * 
+     * @param owner The stand owner
+     * @param index Stand number (1-based)
+     * @param savedContents Up to 5 items loaded from disk (may contain nulls)
+     * @param fuelLevel Stored fuel charges
+     * @return New stand (not yet cached)
+     */
+    private VirtualStand createVirtualStand(UUID owner, int index, ItemStack[] savedContents, int fuelLevel) {
+        String title = (index > 1) ? "Master Brewing Stand #" + index : "Master Brewing Stand";
+        org.bukkit.inventory.Inventory brewingInv = Bukkit.createInventory(null, InventoryType.BREWING, 
+            Component.text(title, NamedTextColor.GOLD, TextDecoration.BOLD));
         
-        // Calculate max duration for lore
-        int maxDuration = 0;
-        for (int[] timeUpgrade : potionTimeUpgrades.values()) {
-            if (timeUpgrade[1] > maxDuration) {
-                maxDuration = timeUpgrade[1];
+        // Restore saved contents
+        for (int i = 0; i < savedContents.length && i < brewingInv.getSize(); i++) {
+            if (savedContents[i] != null) {
+                brewingInv.setItem(i, savedContents[i]);
             }
         }
         
-        // Create the master potion
-        ItemStack potion = new ItemStack(Material.POTION);
-        PotionMeta meta = (PotionMeta) potion.getItemMeta();
+        return new VirtualStand(owner, index, null, brewingInv, fuelLevel);
+    }
+    
+    /**
+     * Persists a virtual stand off the main thread if it is dirty or brewing.
+     * 
+     * The contents are snapshotted (cloned) on the main thread, then written on
+     * the I/O thread. Because that thread is FIFO, a later save or load of the
+     * same stand always sees this write completed first.
+     * 
+     * A stand with a timed brew running is always written, together with the
+     * ticks left of that brew, so autosave and shutdown keep its progress.
+     * 
+     * @param stand The stand to save
+     */
+    private void persistVirtualStand(VirtualStand stand) {
+        if (!stand.dirty && stand.activeJob == null) {
+            return;
+        }
         
-        // Store all NBT data
-        meta.getPersistentDataContainer().set(potionTimeLevelKey, PersistentDataType.INTEGER, timeLevel);
-        meta.getPersistentDataContainer().set(potionPowerLevelKey, PersistentDataType.INTEGER, powerLevel);
-        meta.getPersistentDataContainer().set(potionDurationKey, PersistentDataType.INTEGER, duration);
-        meta.getPersistentDataContainer().set(potionEffectTypeKey, PersistentDataType.STRING, effectKey);
-        meta.getPersistentDataContainer().set(masterPotionKey, PersistentDataType.BYTE, (byte) 1);
+        ItemStack[] contents = new ItemStack[stand.inventory.getSize()];
+        for (int i = 0; i < contents.length; i++) {
+            ItemStack item = stand.inventory.getItem(i);
+            if (item != null) {
+                contents[i] = item.clone();
+            }
+        }
+        UUID owner = stand.owner;
+        int index = stand.index;
+        int fuelLevel = stand.fuel;
+        int brewTicksLeft = (stand.activeJob != null)
+            ? (int) Math.max(1, stand.activeJob.dueTick - virtualBrewClock) : stand.resumeBrewTicks;
+        boolean clearLegacy = stand.legacy;
+        stand.dirty = false;
+        stand.legacy = false;
+        
+        if (stand.team != null) {
+            File teamFile = getTeamStandFile(stand.team);
+            String team = stand.team;
+            runOnIoThread(() -> {
+                writeStandRecord(teamFile, contents, fuelLevel, brewTicksLeft, "team stand " + team);
+                updateBrewingIndex("team/" + team, brewTicksLeft > 0);
+            });
+            return;
+        }
+        runOnIoThread(() -> {
+            savePlayerBrewingData(owner, index, contents, fuelLevel, brewTicksLeft, clearLegacy);
+            updateBrewingIndex(owner + "/" + index, brewTicksLeft > 0);
+        });
+    }
+    
+    /**
+     * Gets the brewing stand index file.
+     * 
+     * @return playerdata/brewing-stands.yml
+     */
+    private File getBrewingIndexFile() {
+        return new File(getDataFolder(), "playerdata/brewing-stands.yml");
+    }
+    
+    /**
+     * Gets the set of stands saved mid-brew, reading it on first use (I/O thread).
+     * 
+     * @return The live index
+     */
+    private Set<String> getBrewingIndex() {
+        if (brewingStandIndex == null) {
+            brewingStandIndex = new LinkedHashSet<>();
+            File indexFile = getBrewingIndexFile();
+            if (indexFile.exists()) {
+                brewingStandIndex.addAll(org.bukkit.configuration.file.YamlConfiguration.loadConfiguration(indexFile).getStringList("brewing"));
+            }
+        }
+        return brewingStandIndex;
+    }
+    
+    /**
+     * Adds a stand to or removes it from the brewing index (I/O thread).
+     * 
+     * The file is only rewritten when membership changes, so saving a stand
+     * that keeps brewing (autosave) costs no extra write.
+     * 
+     * @param key "{uuid}/{n}" or "team/{name}"
+     * @param brewing true if the stand was just saved with a brew in progress
+     */
+    private void updateBrewingIndex(String key, boolean brewing) {
+        Set<String> index = getBrewingIndex();
+        if (!(brewing ? index.add(key) : index.remove(key))) {
+            return;
+        }
         
-        // Set base potion type to water (removes vanilla text)
-        meta.setBasePotionType(PotionType.WATER);
+        File indexFile = getBrewingIndexFile();
+        if (index.isEmpty()) {
+            indexFile.delete();
+            return;
+        }
+        org.bukkit.configuration.file.YamlConfiguration config = new org.bukkit.configuration.file.YamlConfiguration();
+        config.set("brewing", new ArrayList<>(index));
+        try {
+            indexFile.getParentFile().mkdirs();
+            config.save(indexFile);
+        } catch (Exception e) {
+            getLogger().warning("Failed to save brewing stand index: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Reloads every stand that was saved mid-brew and restarts its timed brew.
+     * 
+     * Without this a brew interrupted by a restart would stay frozen until its
+     * owner (or a team member) next opened the stand. Only the stands listed in
+     * the brewing index are read, on the I/O thread; entries whose record no
+     * longer has a brew in progress are dropped from the index.
+     */
+    private void resumeInterruptedBrews() {
+        runOnIoThread(() -> {
+            Map<String, Object[]> interrupted = new LinkedHashMap<>();
+            for (String key : new ArrayList<>(getBrewingIndex())) {
+                String[] parts = key.split("/");
+                Object[] data = null;
+                if (parts.length == 2 && parts[0].equals("team") && TEAM_NAME_PATTERN.matcher(parts[1]).matches()) {
+                    data = readStandRecord(getTeamStandFile(parts[1]), "team stand " + parts[1]);
+                } else if (parts.length == 2 && parseUuid(parts[0]) != null && parts[1].matches("[0-9]{1,3}")) {
+                    data = readStandRecord(new File(getDataFolder(), "playerdata/stands/" + parts[0] + "/" + parts[1] + ".yml"),
+                        "brewing stand " + parts[1] + " for " + parts[0]);
+                }
+                
+                if (data != null && (Integer) data[2] > 0) {
+                    interrupted.put(key, data);
+                } else {
+                    updateBrewingIndex(key, false);
+                }
+            }
+            if (interrupted.isEmpty()) {
+                return;
+            }
+            
+            try {
+                Bukkit.getScheduler().runTask(this, () -> {
+                    for (Map.Entry<String, Object[]> entry : interrupted.entrySet()) {
+                        resumeInterruptedBrew(entry.getKey(), entry.getValue());
+                    }
+                });
+            } catch (org.bukkit.plugin.IllegalPluginAccessException e) {
+                // Disabled before the read finished; the index is kept for the next start
+            }
+        });
+    }
+    
+    /**
+     * Makes one interrupted stand resident and restarts its brew (main thread).
+     * 
+     * A stand someone already opened in the meantime is left alone - its own
+     * load carried the same progress. A stand that can no longer brew is
+     * saved without the progress and unloaded again.
+     * 
+     * @param key "{uuid}/{n}" or "team/{name}"
+     * @param data Record read by readStandRecord()
+     */
+    private void resumeInterruptedBrew(String key, Object[] data) {
+        if (virtualBrewTimeTicks <= 0) {
+            return;  // Instant mode now: the stand brews when it is next opened
+        }
         
-        // Set the correct color for this effect type
-        if (effectKey.equals("fly")) {
-            meta.setColor(org.bukkit.Color.ORANGE);
-        } else if (effectKey.equals("fortune")) {
-            meta.setColor(org.bukkit.Color.LIME);
+        String[] parts = key.split("/");
+        VirtualStand stand;
+        if (parts[0].equals("team")) {
+            if (teamStands.containsKey(parts[1])) {
+                return;
+            }
+            stand = createTeamStand(parts[1], (ItemStack[]) data[0], (Integer) data[1]);
+            teamStands.put(parts[1], stand);
         } else {
-            meta.setColor(getPotionColor(effectType));
+            UUID owner = parseUuid(parts[0]);
+            int index = Integer.parseInt(parts[1]);
+            if (getResidentStand(owner, index) != null) {
+                return;
+            }
+            stand = createVirtualStand(owner, index, (ItemStack[]) data[0], (Integer) data[1]);
+            virtualStandCache.computeIfAbsent(owner, id -> new HashMap<>()).put(index, stand);
+        }
+        stand.resumeBrewTicks = (Integer) data[2];
+        startTimedBrew(stand.owner, stand);
+        if (stand.activeJob != null) {
+            return;
+        }
+        
+        // Contents can't brew any more - clear the progress and unload
+        stand.resumeBrewTicks = 0;
+        stand.dirty = true;
+        if (stand.team != null) {
+            releaseTeamStand(stand, null);
+        } else if (Bukkit.getPlayer(stand.owner) == null) {
+            persistVirtualStand(stand);
+            Map<Integer, VirtualStand> stands = virtualStandCache.get(stand.owner);
+            stands.remove(stand.index);
+            if (stands.isEmpty()) {
+                virtualStandCache.remove(stand.owner);
+            }
+        }
+    }
+    
+    // ==================================================================================
+    // TEAM STANDS - Shared virtual stands, one Inventory for all viewers
+    // ==================================================================================
+    
+    /**
+     * Handles /masterbrewing team <name> - opens a shared team stand.
+     * 
+     * Requires masterbrewing.team.<name>. Names are lowercase letters,
+     * digits, '_' and '-' (max 32).
+     * 
+     * @param sender Command sender
+     * @param args Full command arguments including "team"
+     * @return true if command was handled
+     */
+    private boolean handleTeamStand(CommandSender sender, String[] args) {
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(Component.text("This command can only be used by players!", NamedTextColor.RED));
+            return true;
+        }
+        
+        Player player = (Player) sender;
+        if (args.length < 2) {
+            player.sendMessage(Component.text("Usage: /masterbrewing team <name>", NamedTextColor.RED));
+            return true;
+        }
+        
+        String team = args[1].toLowerCase();
+        if (!TEAM_NAME_PATTERN.matcher(team).matches()) {
+            player.sendMessage(Component.text("Team names may only contain a-z, 0-9, _ and - (max 32 characters).", NamedTextColor.RED));
+            return true;
+        }
+        if (!player.hasPermission("masterbrewing.team." + team)) {
+            player.sendMessage(Component.text("You don't have access to the " + team + " team stand!", NamedTextColor.RED));
+            return true;
         }
         
-        // Add custom effect (handle fortune, skip fly)
-        meta.clearCustomEffects();
-        if (effectKey.equals("fortune")) {
-            PotionEffectType luckEffect = PotionEffectType.LUCK;
-            meta.addCustomEffect(new PotionEffect(luckEffect, duration * 20, powerLevel, false, false, false), true);
-        } else if (!effectKey.equals("fly")) {
-            meta.addCustomEffect(new PotionEffect(effectType, duration * 20, powerLevel, false, false, false), true);
+        openTeamStand(player, team);
+        return true;
+    }
+    
+    /**
+     * Opens a team stand, loading it once for everyone who asked while it was loading.
+     * 
+     * @param player The viewer
+     * @param team Validated team name
+     */
+    private void openTeamStand(Player player, String team) {
+        VirtualStand stand = teamStands.get(team);
+        if (stand != null) {
+            showVirtualStand(player, stand);
+            return;
         }
         
-        // Set display name
-        String effectName;
-        if (effectKey.equals("fly")) {
-            effectName = "Fly";
-        } else if (effectKey.equals("fortune")) {
-            effectName = "Fortune";
-        } else {
-            effectName = formatEffectName(effectType);
+        player.sendActionBar(Component.text("Loading the " + team + " team stand...", NamedTextColor.GRAY));
+        Set<UUID> waiting = teamStandsLoading.get(team);
+        if (waiting != null) {
+            waiting.add(player.getUniqueId());
+            return;
         }
-        int displayLevel = powerLevel + 1; // Power level 1 = II, 2 = III, etc.
-        String romanLevel = toRoman(displayLevel);
-        
-        Component name = Component.text(effectName + " " + romanLevel, NamedTextColor.GOLD, TextDecoration.ITALIC)
-            .decoration(TextDecoration.ITALIC, true);
-        meta.displayName(name);
-        
-        // Set lore
-        List<Component> lore = new ArrayList<>();
-        lore.add(Component.text("Master Potion", NamedTextColor.LIGHT_PURPLE)
-            .decoration(TextDecoration.ITALIC, false));
+        waiting = new LinkedHashSet<>();
+        waiting.add(player.getUniqueId());
+        teamStandsLoading.put(team, waiting);
         
-        // Add fly-specific lore
-        if (effectKey.equals("fly")) {
-            // Calculate flight speed
-            float flightSpeed = 0.1f * (1.0f + (powerLevel * 0.2f));
-            flightSpeed = Math.min(flightSpeed, 1.0f);
-            int speedPercent = (int)((flightSpeed / 0.1f) * 100);
-            
-            // Check if at max levels
-            boolean atMaxSpeed = powerLevel >= potionMaxPowerLevel;
-            boolean atMaxDuration = timeLevel >= potionMaxTimeLevel;
-            
-            // Flight speed line
-            if (atMaxSpeed) {
-                lore.add(Component.text("Flight Speed: " + speedPercent + "% (MAX)", NamedTextColor.AQUA)
-                    .decoration(TextDecoration.ITALIC, false));
-            } else {
-                // Calculate max speed
-                float maxFlightSpeed = 0.1f * (1.0f + (potionMaxPowerLevel * 0.2f));
-                maxFlightSpeed = Math.min(maxFlightSpeed, 1.0f);
-                int maxSpeedPercent = (int)((maxFlightSpeed / 0.1f) * 100);
-                lore.add(Component.text("Flight Speed: " + speedPercent + "% (Max: " + maxSpeedPercent + "%)", NamedTextColor.AQUA)
-                    .decoration(TextDecoration.ITALIC, false));
-            }
-            
-            // Duration line
-            if (atMaxDuration) {
-                lore.add(Component.text("Duration: " + formatDuration(duration) + " (MAX)", NamedTextColor.YELLOW)
-                    .decoration(TextDecoration.ITALIC, false));
-            } else {
-                lore.add(Component.text("Duration: " + formatDuration(duration) + " (Max: " + formatDuration(maxDuration) + ")", NamedTextColor.YELLOW)
-                    .decoration(TextDecoration.ITALIC, false));
-            }
+        File teamFile = getTeamStandFile(team);
+        runOnIoThread(() -> {
+            // Read and deserialize off the main thread
+            Object[] data = readStandRecord(teamFile, "team stand " + team);
             
-            // Add upgrade cost lines if not at max
-            if (!atMaxSpeed) {
-                int nextPowerLevel = powerLevel + 1;
-                Integer glowstoneCost = potionPowerUpgrades.get(nextPowerLevel);
-                if (glowstoneCost != null) {
-                    lore.add(Component.text("Flight Speed Upgrade: " + glowstoneCost + " glowstone dust", NamedTextColor.GREEN)
-                        .decoration(TextDecoration.ITALIC, false));
+            Bukkit.getScheduler().runTask(this, () -> {
+                Set<UUID> viewers = teamStandsLoading.remove(team);
+                
+                VirtualStand loaded = teamStands.get(team);
+                if (loaded == null) {
+                    loaded = createTeamStand(team, (ItemStack[]) data[0], (Integer) data[1]);
+                    loaded.resumeBrewTicks = (Integer) data[2];
+                    teamStands.put(team, loaded);
                 }
-            }
-            
-            if (!atMaxDuration) {
-                int nextTimeLevel = timeLevel + 1;
-                int[] timeUpgrade = potionTimeUpgrades.get(nextTimeLevel);
-                if (timeUpgrade != null) {
-                    lore.add(Component.text("Duration Upgrade: " + timeUpgrade[0] + " redstone dust", NamedTextColor.YELLOW)
-                        .decoration(TextDecoration.ITALIC, false));
+                for (UUID viewerUUID : viewers) {
+                    Player viewer = Bukkit.getPlayer(viewerUUID);
+                    if (viewer != null) {
+                        showVirtualStand(viewer, loaded);
+                    }
                 }
+                
+                // Everyone who asked has left again
+                releaseTeamStand(loaded, null);
+            });
+        });
+    }
+    
+    /**
+     * Builds a team stand from loaded data (main thread).
+     * 
+     * The owner is a fixed UUID derived from the team name, so the stand gets
+     * its own rate limit bucket shared by all of its viewers.
+     * 
+     * @param team Team name
+     * @param savedContents Up to 5 items loaded from disk (may contain nulls)
+     * @param fuelLevel Stored fuel charges
+     * @return New stand (not yet cached)
+     */
+    private VirtualStand createTeamStand(String team, ItemStack[] savedContents, int fuelLevel) {
+        org.bukkit.inventory.Inventory brewingInv = Bukkit.createInventory(null, InventoryType.BREWING, 
+            Component.text("Team Stand: " + team, NamedTextColor.GOLD, TextDecoration.BOLD));
+        
+        // Restore saved contents
+        for (int i = 0; i < savedContents.length && i < brewingInv.getSize(); i++) {
+            if (savedContents[i] != null) {
+                brewingInv.setItem(i, savedContents[i]);
             }
-            
-        } else if (effectKey.equals("fortune")) {
-            // Check if at max levels
-            boolean atMaxLuck = powerLevel >= potionMaxPowerLevel;
-            boolean atMaxDuration = timeLevel >= potionMaxTimeLevel;
-            
-            // Luck line
-            if (atMaxLuck) {
-                lore.add(Component.text("Luck: +" + (powerLevel + 1) + " (MAX)", NamedTextColor.GREEN)
-                    .decoration(TextDecoration.ITALIC, false));
-            } else {
-                lore.add(Component.text("Luck: +" + (powerLevel + 1) + " (Max: +" + (potionMaxPowerLevel + 1) + ")", NamedTextColor.GREEN)
-                    .decoration(TextDecoration.ITALIC, false));
-            }
-            
-            // Duration line
-            if (atMaxDuration) {
-                lore.add(Component.text("Duration: " + formatDuration(duration) + " (MAX)", NamedTextColor.YELLOW)
-                    .decoration(TextDecoration.ITALIC, false));
-            } else {
-                lore.add(Component.text("Duration: " + formatDuration(duration) + " (Max: " + formatDuration(maxDuration) + ")", NamedTextColor.YELLOW)
-                    .decoration(TextDecoration.ITALIC, false));
-            }
-            
-            // Add upgrade cost lines if not at max
-            if (!atMaxLuck) {
-                int nextPowerLevel = powerLevel + 1;
-                Integer glowstoneCost = potionPowerUpgrades.get(nextPowerLevel);
-                if (glowstoneCost != null) {
-                    lore.add(Component.text("Luck Upgrade: " + glowstoneCost + " glowstone dust", NamedTextColor.GREEN)
-                        .decoration(TextDecoration.ITALIC, false));
-                }
+        }
+        
+        UUID owner = UUID.nameUUIDFromBytes(("team:" + team).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        return new VirtualStand(owner, 0, team, brewingInv, fuelLevel);
+    }
+    
+    /**
+     * Persists and evicts a team stand once nobody is viewing it.
+     * 
+     * All changes made while it was open are written in one save here (plus
+     * autosave), rather than once per viewer closing it. A stand with a timed
+     * brew running stays resident; completeBrewJob() releases it afterwards.
+     * 
+     * @param stand The team stand
+     * @param leaving UUID of a viewer that is leaving but may still be listed as a viewer, or null
+     */
+    private void releaseTeamStand(VirtualStand stand, UUID leaving) {
+        for (org.bukkit.entity.HumanEntity viewer : stand.inventory.getViewers()) {
+            if (!viewer.getUniqueId().equals(leaving)) {
+                return;
             }
-            
-            if (!atMaxDuration) {
-                int nextTimeLevel = timeLevel + 1;
-                int[] timeUpgrade = potionTimeUpgrades.get(nextTimeLevel);
-                if (timeUpgrade != null) {
-                    lore.add(Component.text("Duration Upgrade: " + timeUpgrade[0] + " redstone dust", NamedTextColor.YELLOW)
-                        .decoration(TextDecoration.ITALIC, false));
+        }
+        
+        persistVirtualStand(stand);
+        if (stand.activeJob == null && isResidentStand(stand)) {
+            teamStands.remove(stand.team);
+            playerBrewBuckets.remove(stand.owner);
+        }
+    }
+    
+    /**
+     * Gets the record file of a team stand.
+     * 
+     * @param team Team name
+     * @return plugins/MasterBrewing/teamstands/{team}.yml
+     */
+    private File getTeamStandFile(String team) {
+        return new File(getDataFolder(), "teamstands/" + team + ".yml");
+    }
+    
+    /**
+     * Lists the team names a sender has masterbrewing.team.<name> for.
+     * 
+     * @param sender Command sender
+     * @return Team names (empty for console)
+     */
+    private List<String> getPermittedTeams(CommandSender sender) {
+        List<String> teams = new ArrayList<>();
+        if (!(sender instanceof Player)) {
+            return teams;
+        }
+        for (org.bukkit.permissions.PermissionAttachmentInfo info : ((Player) sender).getEffectivePermissions()) {
+            String permission = info.getPermission();
+            if (info.getValue() && permission.startsWith("masterbrewing.team.")) {
+                String team = permission.substring("masterbrewing.team.".length());
+                if (TEAM_NAME_PATTERN.matcher(team).matches()) {
+                    teams.add(team);
                 }
             }
-        } else {
-            // Standard potion lore (for vanilla effects like speed, strength, etc.)
-            boolean atMaxPower = powerLevel >= potionMaxPowerLevel;
-            boolean atMaxDuration = timeLevel >= potionMaxTimeLevel;
-            boolean isInstant = isInstantEffect(effectKey);
+        }
+        return teams;
+    }
+    
+    // ==================================================================================
+    // STAND SELECTOR - Paged chest GUI for players with several virtual stands
+    // ==================================================================================
+    
+    /**
+     * Opens the stand selector at the given page.
+     * 
+     * A 54-slot chest: rows 1-5 hold one brewing stand icon per stand,
+     * row 6 holds previous/next page arrows. Icons only reflect what is
+     * already resident - no stand records are read to build the page.
+     * 
+     * The limit and stand list are kept for as long as the selector is open,
+     * so page arrows and clicks don't resolve permissions again.
+     * 
+     * @param player The player
+     * @param limit The player's stand limit (stands above it are withdraw-only)
+     * @param stands Stand numbers to list, in order
+     */
+    private void openStandSelector(Player player, int limit, int[] stands) {
+        org.bukkit.inventory.Inventory selector = Bukkit.createInventory(null, 54, 
+            Component.text("Master Brewing Stands", NamedTextColor.GOLD, TextDecoration.BOLD));
+        renderStandSelector(player, selector, 0, limit, stands);
+        
+        player.openInventory(selector);
+        openStandSelectors.put(player.getUniqueId(), selector);
+        standSelectorPages.put(player.getUniqueId(), 0);
+        standSelectorLimits.put(player.getUniqueId(), limit);
+        standSelectorStands.put(player.getUniqueId(), stands);
+    }
+    
+    /**
+     * Fills the selector inventory with one page of stand icons.
+     * 
+     * @param player The player whose stands are listed
+     * @param selector The selector inventory
+     * @param page 0-based page
+     * @param limit The player's stand limit
+     * @param stands Stand numbers to list, in order
+     */
+    private void renderStandSelector(Player player, org.bukkit.inventory.Inventory selector, int page, int limit, int[] stands) {
+        Map<Integer, VirtualStand> resident = virtualStandCache.getOrDefault(player.getUniqueId(), Collections.emptyMap());
+        
+        ItemStack[] contents = new ItemStack[54];
+        int first = page * STANDS_PER_PAGE;
+        for (int slot = 0; slot < STANDS_PER_PAGE && first + slot < stands.length; slot++) {
+            int index = stands[first + slot];
+            VirtualStand stand = resident.get(index);
             
-            // Power line
-            String powerLabel = effectName;
-            if (atMaxPower) {
-                lore.add(Component.text(powerLabel + ": +" + (powerLevel + 1) + " (MAX)", NamedTextColor.GREEN)
-                    .decoration(TextDecoration.ITALIC, false));
-            } else {
-                lore.add(Component.text(powerLabel + ": +" + (powerLevel + 1) + " (Max: +" + (potionMaxPowerLevel + 1) + ")", NamedTextColor.GREEN)
-                    .decoration(TextDecoration.ITALIC, false));
-            }
+            ItemStack icon = new ItemStack(Material.BREWING_STAND);
+            ItemMeta meta = icon.getItemMeta();
+            meta.displayName(Component.text("Stand #" + index, NamedTextColor.GOLD)
+                .decoration(TextDecoration.ITALIC, false));
             
-            // Duration line (skip for instant effects)
-            if (!isInstant) {
-                if (atMaxDuration) {
-                    lore.add(Component.text("Duration: " + formatDuration(duration) + " (MAX)", NamedTextColor.YELLOW)
-                        .decoration(TextDecoration.ITALIC, false));
-                } else {
-                    lore.add(Component.text("Duration: " + formatDuration(duration) + " (Max: " + formatDuration(maxDuration) + ")", NamedTextColor.YELLOW)
-                        .decoration(TextDecoration.ITALIC, false));
-                }
+            List<Component> lore = new ArrayList<>();
+            if (index > limit) {
+                lore.add(Component.text("Withdraw only", NamedTextColor.RED));
+                lore.add(Component.text("Above your stand limit - take your items out", NamedTextColor.GRAY));
+            } else if (stand == null) {
+                lore.add(Component.text("Click to open", NamedTextColor.GRAY));
+            } else if (stand.activeJob != null) {
+                lore.add(Component.text("Brewing...", NamedTextColor.GREEN));
+                lore.add(Component.text("Fuel: " + stand.fuel, NamedTextColor.GRAY));
             } else {
-                // Show "Instant" label for instant effects
-                lore.add(Component.text("Duration: Instant", NamedTextColor.YELLOW)
-                    .decoration(TextDecoration.ITALIC, false));
-            }
-            
-            // Add upgrade cost lines if not at max
-            if (!atMaxPower) {
-                int nextPowerLevel = powerLevel + 1;
-                Integer glowstoneCost = potionPowerUpgrades.get(nextPowerLevel);
-                if (glowstoneCost != null) {
-                    lore.add(Component.text(powerLabel + " Upgrade: " + glowstoneCost + " glowstone dust", NamedTextColor.GREEN)
-                        .decoration(TextDecoration.ITALIC, false));
-                }
-            }
-            
-            // Duration upgrade line (skip for instant effects - they can't be upgraded with redstone)
-            if (!isInstant && !atMaxDuration) {
-                int nextTimeLevel = timeLevel + 1;
-                int[] timeUpgrade = potionTimeUpgrades.get(nextTimeLevel);
-                if (timeUpgrade != null) {
-                    lore.add(Component.text("Duration Upgrade: " + timeUpgrade[0] + " redstone dust", NamedTextColor.YELLOW)
-                        .decoration(TextDecoration.ITALIC, false));
-                }
+                lore.add(Component.text("Idle", NamedTextColor.YELLOW));
+                lore.add(Component.text("Fuel: " + stand.fuel, NamedTextColor.GRAY));
             }
+            meta.lore(lore);
+            icon.setItemMeta(meta);
+            contents[slot] = icon;
         }
         
-        meta.lore(lore);
-        
-        potion.setItemMeta(meta);
-        
-        target.getInventory().addItem(potion);
-        
-        sender.sendMessage(Component.text("Gave ", NamedTextColor.GREEN)
-            .append(Component.text(target.getName(), NamedTextColor.GOLD))
-            .append(Component.text(" a random ", NamedTextColor.GREEN))
-            .append(Component.text(potionName, NamedTextColor.GOLD))
-            .append(Component.text(" potion (Time: ", NamedTextColor.GREEN))
-            .append(Component.text(timeLevel + "", NamedTextColor.GOLD))
-            .append(Component.text(", Power: ", NamedTextColor.GREEN))
-            .append(Component.text(powerLevel + "", NamedTextColor.GOLD))
-            .append(Component.text(")", NamedTextColor.GREEN)));
-        
-        target.sendMessage(Component.text("You received a random Master ", NamedTextColor.GREEN)
-            .append(Component.text(potionName.substring(0, 1).toUpperCase() + potionName.substring(1), NamedTextColor.GOLD))
-            .append(Component.text(" Potion!", NamedTextColor.GREEN)));
+        if (page > 0) {
+            contents[45] = createSelectorButton("Previous Page");
+        }
+        if ((page + 1) * STANDS_PER_PAGE < stands.length) {
+            contents[53] = createSelectorButton("Next Page");
+        }
         
-        return true;
+        selector.setContents(contents);
     }
     
     /**
-     * Handles /masterbrewing reload command.
+     * Creates a page button for the stand selector.
      * 
-     * Reloads configuration from config.yml without server restart:
-     * - Clears existing upgrade tier maps
-     * - Re-parses config.yml
-     * - Rebuilds global and per-potion upgrade paths
-     * - Recalculates max levels
+     * @param label Button text
+     * @return Arrow item named with the label
+     */
+    private ItemStack createSelectorButton(String label) {
+        ItemStack button = new ItemStack(Material.ARROW);
+        ItemMeta meta = button.getItemMeta();
+        meta.displayName(Component.text(label, NamedTextColor.YELLOW).decoration(TextDecoration.ITALIC, false));
+        button.setItemMeta(meta);
+        return button;
+    }
+    
+    /**
+     * Handles clicks in the stand selector.
      * 
-     * Requires masterbrewing.admin permission.
-     * Changes take effect immediately for new brewing operations.
-     * Does NOT affect currently active potion effects on players.
+     * Every click is cancelled so icons can't be taken. Clicking a stand opens
+     * it on the next tick (opening an inventory inside a click event is unsafe);
+     * the arrows re-render the same inventory with another page.
      * 
-     * @param sender Command sender
-     * @return true if command was handled
+     * @param event The inventory click event from Bukkit
      */
-    private boolean handleReload(CommandSender sender) {
-        if (!sender.hasPermission("masterbrewing.admin")) {
-            sender.sendMessage(Component.text("You don't have permission to reload configuration!", NamedTextColor.RED));
-            return true;
+    @EventHandler(priority = EventPriority.LOW)
+    public void onStandSelectorClick(InventoryClickEvent event) {
+        if (!(event.getWhoClicked() instanceof Player)) {
+            return;
         }
         
-        reloadConfig();
-        loadUpgradeTiers();
+        Player player = (Player) event.getWhoClicked();
+        UUID playerUUID = player.getUniqueId();
+        org.bukkit.inventory.Inventory selector = openStandSelectors.get(playerUUID);
+        if (selector == null || event.getView().getTopInventory() != selector) {
+            return;
+        }
         
-        sender.sendMessage(Component.text("MasterBrewing configuration reloaded!", NamedTextColor.GREEN));
+        event.setCancelled(true);
         
-        return true;
+        int slot = event.getRawSlot();
+        if (slot < 0 || slot >= selector.getSize()) {
+            return;
+        }
+        
+        int page = standSelectorPages.getOrDefault(playerUUID, 0);
+        int limit = standSelectorLimits.getOrDefault(playerUUID, 1);
+        int[] stands = standSelectorStands.get(playerUUID);
+        
+        if (slot == 45 && page > 0) {
+            standSelectorPages.put(playerUUID, page - 1);
+            renderStandSelector(player, selector, page - 1, limit, stands);
+        } else if (slot == 53 && (page + 1) * STANDS_PER_PAGE < stands.length) {
+            standSelectorPages.put(playerUUID, page + 1);
+            renderStandSelector(player, selector, page + 1, limit, stands);
+        } else if (slot < STANDS_PER_PAGE) {
+            int position = page * STANDS_PER_PAGE + slot;
+            if (position >= stands.length) {
+                return;
+            }
+            int index = stands[position];
+            Bukkit.getScheduler().runTask(this, () -> {
+                if (player.isOnline()) {
+                    openVirtualStand(player, index, index > limit);
+                }
+            });
+        }
     }
     
     /**
-     * Opens a virtual Master Brewing Stand GUI for a player.
-     * 
-     * Virtual brewing stands provide the same functionality as physical stands
-     * without requiring a block to be placed. Useful for:
-     * - Players in areas where they can't place blocks
-     * - Convenience brewing while traveling
-     * - Testing and admin purposes
+     * Cancels drags in the stand selector.
      * 
-     * Process:
-     * 1. Create a brewing inventory with custom title
-     * 2. Load any saved contents from player's data file
-     * 3. Load saved fuel level
-     * 4. Track this inventory in virtualBrewingStands map
-     * 5. Open the GUI for the player
-     * 6. Update fuel display after 1 tick
+     * @param event The inventory drag event from Bukkit
+     */
+    @EventHandler(priority = EventPriority.LOW)
+    public void onStandSelectorDrag(org.bukkit.event.inventory.InventoryDragEvent event) {
+        org.bukkit.inventory.Inventory selector = openStandSelectors.get(event.getWhoClicked().getUniqueId());
+        if (selector != null && event.getView().getTopInventory() == selector) {
+            event.setCancelled(true);
+        }
+    }
+    
+    /**
+     * Keeps a withdraw-only stand (above the owner's stand limit) from taking items.
      * 
-     * Contents persist across sessions - items placed in virtual stand
-     * are saved to disk when closed and restored when opened again.
+     * Picking up, dropping and shift-clicking items out of the stand are
+     * allowed; placing, swapping and hotbar keys on stand slots, and
+     * shift-clicking into the stand, are cancelled.
      * 
-     * @param player The player to open the virtual brewing stand for
+     * @param event The inventory click event from Bukkit
      */
-    private void openVirtualBrewingStand(Player player) {
-        org.bukkit.inventory.Inventory brewingInv = Bukkit.createInventory(null, InventoryType.BREWING, 
-            Component.text("Master Brewing Stand", NamedTextColor.GOLD, TextDecoration.BOLD));
-        
-        UUID playerUUID = player.getUniqueId();
+    @EventHandler(priority = EventPriority.LOW)
+    public void onWithdrawOnlyStandClick(InventoryClickEvent event) {
+        VirtualStand stand = virtualBrewingStands.get(event.getWhoClicked().getUniqueId());
+        if (stand == null || !stand.withdrawOnly || event.getView().getTopInventory() != stand.inventory) {
+            return;
+        }
         
-        // Load player's data from their individual file
-        Object[] data = loadPlayerBrewingData(playerUUID);
-        ItemStack[] savedContents = (ItemStack[]) data[0];
-        int fuelLevel = (Integer) data[1];
+        org.bukkit.event.inventory.InventoryAction action = event.getAction();
+        if (event.getRawSlot() >= 0 && event.getRawSlot() < stand.inventory.getSize()) {
+            switch (action) {
+                case PICKUP_ALL:
+                case PICKUP_HALF:
+                case PICKUP_ONE:
+                case PICKUP_SOME:
+                case MOVE_TO_OTHER_INVENTORY:
+                case DROP_ALL_SLOT:
+                case DROP_ONE_SLOT:
+                case COLLECT_TO_CURSOR:
+                case NOTHING:
+                    return;
+                default:
+                    event.setCancelled(true);
+            }
+        } else if (action == org.bukkit.event.inventory.InventoryAction.MOVE_TO_OTHER_INVENTORY) {
+            event.setCancelled(true);
+        }
+    }
+    
+    /**
+     * Cancels drags that would put items into a withdraw-only stand.
+     * 
+     * @param event The inventory drag event from Bukkit
+     */
+    @EventHandler(priority = EventPriority.LOW)
+    public void onWithdrawOnlyStandDrag(org.bukkit.event.inventory.InventoryDragEvent event) {
+        VirtualStand stand = virtualBrewingStands.get(event.getWhoClicked().getUniqueId());
+        if (stand == null || !stand.withdrawOnly || event.getView().getTopInventory() != stand.inventory) {
+            return;
+        }
         
-        // Restore saved contents
-        for (int i = 0; i < savedContents.length && i < brewingInv.getSize(); i++) {
-            if (savedContents[i] != null) {
-                brewingInv.setItem(i, savedContents[i].clone());
+        for (int slot : event.getRawSlots()) {
+            if (slot < stand.inventory.getSize()) {
+                event.setCancelled(true);
+                return;
             }
         }
-        
-        // Store fuel level in memory for this session
-        if (fuelLevel > 0) {
-            virtualBrewingFuel.put(playerUUID, fuelLevel);
+    }
+    
+    /**
+     * Runs a playerdata I/O task on the ordered I/O thread.
+     * 
+     * During onDisable the executor has already been drained and shut down, so
+     * the task runs inline instead - shutdown saves must complete before the
+     * server stops.
+     * 
+     * @param task File I/O work to run
+     */
+    private void runOnIoThread(Runnable task) {
+        if (ioExecutor == null || ioExecutor.isShutdown()) {
+            task.run();
+            return;
+        }
+        try {
+            ioExecutor.execute(task);
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            task.run();
         }
-        
-        // Track this virtual brewing stand by player UUID
-        virtualBrewingStands.put(playerUUID, brewingInv);
-        
-        player.openInventory(brewingInv);
-        
-        // Update fuel display after a tick (needs inventory to be open first)
-        Bukkit.getScheduler().runTaskLater(this, () -> {
-            updateFuelDisplay(player);
-        }, 1L);
     }
     
     /**
@@ -4335,27 +8766,23 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
         if (player.getOpenInventory() == null) return;
         if (player.getOpenInventory().getTopInventory().getType() != InventoryType.BREWING) return;
         
-        UUID playerUUID = player.getUniqueId();
-        int fuelLevel = virtualBrewingFuel.getOrDefault(playerUUID, 0);
+        VirtualStand stand = virtualBrewingStands.get(player.getUniqueId());
+        if (stand == null) return;
         
         // FUEL_TIME property displays the fuel bar (0-20)
-        player.getOpenInventory().setProperty(org.bukkit.inventory.InventoryView.Property.FUEL_TIME, fuelLevel);
+        player.getOpenInventory().setProperty(org.bukkit.inventory.InventoryView.Property.FUEL_TIME, stand.fuel);
     }
     
     /**
-     * Handles inventory close events to save and clean up virtual brewing stands.
+     * Handles inventory close events for virtual brewing stands.
      * 
      * When a player closes their virtual brewing stand GUI:
-     * 1. Verify it's actually a virtual brewing stand (in our tracking map)
-     * 2. Save all inventory contents to player's data file
-     * 3. Save current fuel level
-     * 4. Remove from virtualBrewingStands tracking map
-     * 5. Remove from virtualBrewingFuel tracking map
+     * 1. Remove it from the virtualBrewingStands tracking map
+     * 2. If it changed, snapshot the contents on the main thread and write
+     *    them on the I/O thread (persistVirtualStand)
      * 
-     * This ensures:
-     * - Players don't lose items when closing the GUI
-     * - Fuel level persists between sessions
-     * - Memory is freed when stand is no longer in use
+     * Contents and fuel stay resident in virtualStandCache, so reopening is
+     * instant and the main thread never waits on serialization or disk I/O.
      * 
      * @param event The inventory close event from Bukkit
      */
@@ -4365,39 +8792,27 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             return;
         }
         
-        Player player = (Player) event.getPlayer();
-        UUID playerUUID = player.getUniqueId();
-        
-        // Check if this player has a virtual brewing stand open
-        if (!virtualBrewingStands.containsKey(playerUUID)) {
-            return;
-        }
-        
-        org.bukkit.inventory.Inventory closedInv = event.getView().getTopInventory();
-        
-        // Verify it's the same inventory type (brewing)
-        if (closedInv.getType() != InventoryType.BREWING) {
-            return;
-        }
+        UUID playerUUID = event.getPlayer().getUniqueId();
         
-        // Save the current contents
-        ItemStack[] contents = new ItemStack[closedInv.getSize()];
-        for (int i = 0; i < closedInv.getSize(); i++) {
-            ItemStack item = closedInv.getItem(i);
-            if (item != null) {
-                contents[i] = item.clone();
+        // Only untrack if the closed inventory is this player's virtual stand
+        VirtualStand openStand = virtualBrewingStands.get(playerUUID);
+        if (openStand != null && event.getView().getTopInventory() == openStand.inventory) {
+            virtualBrewingStands.remove(playerUUID);
+            if (openStand.team != null) {
+                // Shared: saved once the last viewer has left
+                releaseTeamStand(openStand, playerUUID);
+            } else {
+                persistVirtualStand(openStand);
             }
         }
         
-        // Get fuel level from memory
-        int fuelLevel = virtualBrewingFuel.getOrDefault(playerUUID, 0);
-        
-        // Save only THIS player's data to their individual file
-        savePlayerBrewingData(playerUUID, contents, fuelLevel);
-        
-        // Clean up in-memory tracking
-        virtualBrewingStands.remove(playerUUID);
-        virtualBrewingFuel.remove(playerUUID);
+        org.bukkit.inventory.Inventory selector = openStandSelectors.get(playerUUID);
+        if (selector != null && event.getView().getTopInventory() == selector) {
+            openStandSelectors.remove(playerUUID);
+            standSelectorPages.remove(playerUUID);
+            standSelectorLimits.remove(playerUUID);
+            standSelectorStands.remove(playerUUID);
+        }
     }
     
     /**
@@ -4405,7 +8820,8 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      * 
      * This method processes brewing when items are placed in valid configuration:
      * 1. Verify click is in a virtual brewing stand (in our tracking map)
-     * 2. Schedule a delayed task (2 ticks) to let the click complete
+     * 2. Schedule a delayed task (2 ticks) to let the click complete,
+     *    unless one is already pending for this player (see scheduleVirtualBrew)
      * 3. Call processVirtualBrewing to check for and apply upgrades
      * 4. Update fuel display
      * 
@@ -4432,26 +8848,7 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             return;
         }
         
-        getLogger().info("[VirtualBrew] Click detected in virtual brewing stand for " + player.getName());
-        
-        // Schedule brewing check after the click is processed
-        Bukkit.getScheduler().runTaskLater(this, () -> {
-            // Get the player's currently open inventory
-            if (player.getOpenInventory() == null) {
-                getLogger().info("[VirtualBrew] No open inventory");
-                return;
-            }
-            org.bukkit.inventory.Inventory topInv = player.getOpenInventory().getTopInventory();
-            if (topInv == null || topInv.getType() != InventoryType.BREWING) {
-                getLogger().info("[VirtualBrew] Not a brewing inventory");
-                return;
-            }
-            
-            processVirtualBrewing(topInv, playerUUID);
-            
-            // Always update fuel display after any click
-            updateFuelDisplay(player);
-        }, 2L);
+        scheduleVirtualBrew(player);
     }
     
     /**
@@ -4476,35 +8873,81 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
             return;
         }
         
-        // Schedule brewing check after the drag is processed
+        scheduleVirtualBrew(player);
+    }
+    
+    /**
+     * Schedules one virtual brewing pass for the stand a player has open, coalescing bursts.
+     * 
+     * The pass runs 2 ticks later so the click/drag has completed and the
+     * inventory shows its final state. If a pass is already pending for this
+     * stand, the event is only counted - the pending pass will see its result.
+     * 
+     * @param player The player interacting with their virtual brewing stand
+     */
+    private void scheduleVirtualBrew(Player player) {
+        virtualBrewEvents++;
+        
+        VirtualStand stand = virtualBrewingStands.get(player.getUniqueId());
+        if (stand == null) return;
+        
+        // Any click/drag may have moved items in or out of the stand
+        stand.dirty = true;
+        
+        if (!pendingVirtualBrews.add(stand)) {
+            virtualBrewEventsCoalesced++;
+            return;
+        }
+        
         Bukkit.getScheduler().runTaskLater(this, () -> {
-            if (player.getOpenInventory() == null) return;
-            org.bukkit.inventory.Inventory topInv = player.getOpenInventory().getTopInventory();
-            if (topInv == null || topInv.getType() != InventoryType.BREWING) return;
+            pendingVirtualBrews.remove(stand);
             
-            processVirtualBrewing(topInv, playerUUID);
+            // Stand is evicted on quit - nothing to do then
+            if (!isResidentStand(stand)) return;
             
-            // Always update fuel display after any drag
-            updateFuelDisplay(player);
+            // Withdraw-only stands (above the owner's limit) don't brew
+            if (stand.withdrawOnly) {
+                setStandProperty(stand, org.bukkit.inventory.InventoryView.Property.FUEL_TIME, stand.fuel);
+                return;
+            }
+            
+            // Also updates the fuel display
+            processVirtualBrewing(stand);
         }, 2L);
     }
     
+    /**
+     * Checks whether a stand is still the resident copy for its owner and number.
+     * 
+     * @param stand The stand
+     * @return true if it has not been evicted
+     */
+    private boolean isResidentStand(VirtualStand stand) {
+        if (stand.team != null) {
+            return teamStands.get(stand.team) == stand;
+        }
+        return getResidentStand(stand.owner, stand.index) == stand;
+    }
+    
     /**
      * Processes brewing upgrades in a virtual Master Brewing Stand.
      * 
-     * This method loops continuously attempting upgrades until no more are possible.
+     * Performs every upgrade the materials present can pay for in one pass.
      * This allows batch processing when multiple upgrades worth of materials are present.
      * 
-     * For each upgrade iteration:
-     * 1. Check ingredient slot (3) for redstone or glowstone
-     * 2. Check fuel slot (4) for blaze powder if fuel is empty
-     * 3. Find all potions (slots 0-2) that can be upgraded
-     * 4. Calculate material cost from first valid potion
-     * 5. Verify enough materials present
-     * 6. Consume fuel (1 charge per upgrade, blaze powder = 20 charges)
-     * 7. Consume ingredient materials
-     * 8. Apply upgrade to all valid potions
-     * 9. Repeat until out of materials, fuel, or max level reached
+     * OPTIMIZATION: Instead of looping one level at a time (re-reading slots,
+     * rescanning potions and sending a slot update per step), the reachable
+     * target is computed up front:
+     * 1. Read all five slots once
+     * 2. Decode each potion (slots 0-2) once into a MasterPotionState
+     * 3. planUpgrades() works out how many levels the ingredient count,
+     *    stored fuel and blaze powder allow (1 charge per level, blaze powder = 20 charges)
+     * 4. Apply the final state to each potion with a single meta write
+     * 5. Deduct ingredient and blaze powder, store remaining fuel
+     * 6. Push all slots back with one setContents() call
+     * 
+     * When virtual-brew-time is set, nothing is applied here; instead one cycle
+     * is queued on the shared brew scheduler (see startTimedBrew).
      * 
      * Brewing slot layout:
      * - Slot 0: Left potion bottle
@@ -4513,88 +8956,339 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      * - Slot 3: Ingredient (redstone/glowstone)
      * - Slot 4: Fuel (blaze powder)
      * 
-     * @param inv The virtual brewing stand inventory
-     * @param playerUUID UUID of the player using the stand (for fuel tracking)
+     * @param stand The player's resident virtual brewing stand
      */
-    private void processVirtualBrewing(org.bukkit.inventory.Inventory inv, UUID playerUUID) {
-        int totalUpgrades = 0;
-        
-        // Loop until we can't upgrade anymore
-        while (true) {
-            ItemStack ingredient = inv.getItem(3);
-            if (ingredient == null) break;
-            
-            Material ingredientType = ingredient.getType();
-            boolean isRedstone = ingredientType == Material.REDSTONE;
-            boolean isGlowstone = ingredientType == Material.GLOWSTONE_DUST;
-            if (!isRedstone && !isGlowstone) break;
-            
-            // Check fuel
-            ItemStack fuel = inv.getItem(4);
-            int currentFuel = virtualBrewingFuel.getOrDefault(playerUUID, 0);
-            boolean hasBlazePowder = (fuel != null && fuel.getType() == Material.BLAZE_POWDER);
-            if (currentFuel <= 0 && !hasBlazePowder) break;
-            
-            // Find potions that can be upgraded and get cost
-            int materialCost = -1;
-            List<Integer> potionSlots = new ArrayList<>();
+    private void processVirtualBrewing(VirtualStand stand) {
+        UUID playerUUID = stand.owner;
+        virtualBrewPasses++;
+        if (virtualBrewTimeTicks > 0) {
+            // Timed mode: queue one cycle on the shared brew scheduler
+            startTimedBrew(playerUUID, stand);
+        } else {
+            // Instant mode: apply as many upgrades as the rate limit allows
+            int allowance = getVirtualBrewAllowance(playerUUID);
+            int levels = (allowance > 0) ? brewVirtualContents(stand, allowance, false) : 0;
+            if (levels > 0) {
+                takeVirtualBrewTokens(playerUUID, levels);
+                virtualBrewUpgrades += levels;
+            }
             
-            for (int slot = 0; slot < 3; slot++) {
-                ItemStack potion = inv.getItem(slot);
-                int cost = getUpgradeCost(potion, isRedstone, isGlowstone);
-                if (cost > 0) {
-                    potionSlots.add(slot);
-                    if (materialCost < 0) {
-                        materialCost = cost;
-                    }
+            // Anything held back is finished on a later tick
+            if (levels == allowance && brewVirtualContents(stand, 1, true) > 0) {
+                if (throttledVirtualBrews.add(stand)) {
+                    virtualBrewThrottled++;
                 }
             }
+        }
+        
+        // Update fuel display for everyone viewing the stand
+        setStandProperty(stand, org.bukkit.inventory.InventoryView.Property.FUEL_TIME, stand.fuel);
+    }
+    
+    /**
+     * Gets how many upgrade cycles a player may brew right now.
+     * 
+     * The smaller of the player's and the global bucket, after refilling both.
+     * Integer.MAX_VALUE when neither limit is configured.
+     * 
+     * @param playerUUID The stand owner
+     * @return Upgrade cycles allowed now
+     */
+    private int getVirtualBrewAllowance(UUID playerUUID) {
+        int allowance = Integer.MAX_VALUE;
+        if (playerBrewRate > 0) {
+            TokenBucket bucket = playerBrewBuckets.computeIfAbsent(playerUUID, id -> new TokenBucket(playerBrewBurst));
+            allowance = bucket.refill(playerBrewRate, playerBrewBurst);
+        }
+        if (globalBrewRate > 0) {
+            allowance = Math.min(allowance, globalBrewBucket.refill(globalBrewRate, globalBrewBurst));
+        }
+        return allowance;
+    }
+    
+    /**
+     * Takes tokens for completed upgrade cycles from the player's and the global bucket.
+     * 
+     * @param playerUUID The stand owner
+     * @param levels Upgrade cycles performed
+     */
+    private void takeVirtualBrewTokens(UUID playerUUID, int levels) {
+        if (playerBrewRate > 0) {
+            TokenBucket bucket = playerBrewBuckets.get(playerUUID);
+            if (bucket != null) {
+                bucket.tokens -= levels;
+            }
+        }
+        if (globalBrewRate > 0) {
+            globalBrewBucket.tokens -= levels;
+        }
+    }
+    
+    /**
+     * Retries virtual stands whose upgrades were held back by the rate limit.
+     * 
+     * Each waiting stand gets one pass in arrival order. A stand that is still
+     * limited is queued again at the back. Stops early once the global bucket
+     * is empty, leaving the rest in order for the next retry.
+     */
+    private void drainThrottledVirtualBrews() {
+        if (throttledVirtualBrews.isEmpty()) {
+            return;
+        }
+        
+        List<VirtualStand> waiting = new ArrayList<>(throttledVirtualBrews);
+        for (VirtualStand stand : waiting) {
+            if (globalBrewRate > 0 && globalBrewBucket.refill(globalBrewRate, globalBrewBurst) <= 0) {
+                break;
+            }
+            throttledVirtualBrews.remove(stand);
             
-            if (potionSlots.isEmpty() || materialCost < 0) break;
-            if (ingredient.getAmount() < materialCost) break;
+            // Stand was evicted (owner quit) - nothing to finish
+            if (!isResidentStand(stand)) continue;
             
-            // Consume fuel if needed
-            if (currentFuel <= 0) {
-                fuel.setAmount(fuel.getAmount() - 1);
-                if (fuel.getAmount() <= 0) {
-                    inv.setItem(4, null);
-                    fuel = null;
-                } else {
-                    inv.setItem(4, fuel);
-                }
-                currentFuel = 20;
+            long before = virtualBrewUpgrades;
+            processVirtualBrewing(stand);
+            virtualBrewDeferredUpgrades += virtualBrewUpgrades - before;
+        }
+    }
+    
+    /**
+     * Applies all affordable upgrades to a virtual brewing stand.
+     * 
+     * @param stand The virtual stand (inventory and fuel are updated, marked dirty on change)
+     * @param maxLevels Maximum number of cycles to apply
+     * @param simulate true to only count affordable cycles without changing anything
+     * @return Number of upgrade cycles performed (or possible, when simulating)
+     */
+    private int brewVirtualContents(VirtualStand stand, int maxLevels, boolean simulate) {
+        org.bukkit.inventory.Inventory inv = stand.inventory;
+        ItemStack[] contents = inv.getContents();
+        
+        ItemStack ingredient = contents[3];
+        if (ingredient == null) return 0;
+        
+        Material ingredientType = ingredient.getType();
+        boolean isRedstone = ingredientType == Material.REDSTONE;
+        boolean isGlowstone = ingredientType == Material.GLOWSTONE_DUST;
+        if (!isRedstone && !isGlowstone) return 0;
+        
+        // Check fuel
+        ItemStack fuel = contents[4];
+        int currentFuel = stand.fuel;
+        int blazePowder = (fuel != null && fuel.getType() == Material.BLAZE_POWDER) ? fuel.getAmount() : 0;
+        if (currentFuel <= 0 && blazePowder <= 0) return 0;
+        
+        // Decode each potion once
+        MasterPotionState[] states = new MasterPotionState[3];
+        for (int slot = 0; slot < 3; slot++) {
+            states[slot] = readMasterPotionState(contents[slot]);
+        }
+        
+        UpgradePlan plan = planUpgrades(states, ingredient.getAmount(), isRedstone,
+            currentFuel, blazePowder, maxLevels);
+        if (plan.levels == 0 || simulate) return plan.levels;
+        
+        // Write final potion states (one meta write per potion)
+        for (int slot = 0; slot < 3; slot++) {
+            if (states[slot] != null && states[slot].levelsGained > 0) {
+                applyMasterPotionState(contents[slot], states[slot]);
             }
-            currentFuel--;
-            virtualBrewingFuel.put(playerUUID, currentFuel);
-            
-            // Consume ingredient
-            ingredient.setAmount(ingredient.getAmount() - materialCost);
-            if (ingredient.getAmount() <= 0) {
-                inv.setItem(3, null);
+        }
+        
+        // Consume ingredient
+        int ingredientLeft = ingredient.getAmount() - plan.materialUsed;
+        if (ingredientLeft <= 0) {
+            contents[3] = null;
+        } else {
+            ingredient.setAmount(ingredientLeft);
+        }
+        
+        // Consume blaze powder used to refill fuel
+        if (plan.blazePowderUsed > 0) {
+            int fuelLeft = fuel.getAmount() - plan.blazePowderUsed;
+            if (fuelLeft <= 0) {
+                contents[4] = null;
             } else {
-                inv.setItem(3, ingredient);
+                fuel.setAmount(fuelLeft);
             }
+        }
+        stand.fuel = plan.fuelRemaining;
+        stand.dirty = true;
+        
+        // Single inventory update
+        inv.setContents(contents);
+        return plan.levels;
+    }
+    
+    /**
+     * Starts one timed brewing cycle for a virtual stand if it is idle and can brew.
+     * 
+     * The job is pushed onto virtualBrewQueue with dueTick = now + virtual-brew-time.
+     * A stand loaded with an interrupted brew (resumeBrewTicks) continues that
+     * brew with the ticks it had left instead. Nothing is consumed yet -
+     * completeBrewJob() re-validates and applies the cycle when it comes due.
+     * 
+     * @param owner UUID of the stand owner
+     * @param stand The stand to brew
+     */
+    private void startTimedBrew(UUID owner, VirtualStand stand) {
+        if (stand.activeJob != null || virtualBrewTimeTicks <= 0) {
+            return;
+        }
+        if (brewVirtualContents(stand, 1, true) == 0) {
+            return;
+        }
+        
+        // Resume a brew interrupted by a restart (capped if virtual-brew-time was lowered)
+        int ticks = virtualBrewTimeTicks;
+        if (stand.resumeBrewTicks > 0) {
+            ticks = Math.min(stand.resumeBrewTicks, virtualBrewTimeTicks);
+            stand.resumeBrewTicks = 0;
+        }
+        
+        // startTick is set back by the ticks already brewed so the progress arrow continues
+        long dueTick = virtualBrewClock + ticks;
+        BrewJob job = new BrewJob(owner, stand, dueTick - virtualBrewTimeTicks, dueTick);
+        stand.activeJob = job;
+        virtualBrewQueue.add(job);
+        setStandProperty(stand, org.bukkit.inventory.InventoryView.Property.BREW_TIME,
+            (int) ((long) ticks * VANILLA_BREW_TIME / virtualBrewTimeTicks));
+    }
+    
+    /**
+     * Starts the single repeating task that drives all timed virtual brews.
+     * 
+     * Every tick:
+     * 1. Advance virtualBrewClock
+     * 2. Poll and complete only the jobs whose dueTick has been reached
+     * 
+     * Every BREW_PROGRESS_INTERVAL_TICKS ticks the BREW_TIME property is pushed
+     * to players who currently have a brewing virtual stand open. That loop is
+     * bounded by open GUIs, not by the number of queued brews.
+     */
+    private void startVirtualBrewScheduler() {
+        Bukkit.getScheduler().runTaskTimer(this, () -> {
+            virtualBrewClock++;
             
-            // Upgrade all potions using the shared helper
-            for (int slot : potionSlots) {
-                ItemStack potion = inv.getItem(slot);
-                if (potion != null) {
-                    upgradeMasterPotion(potion, isRedstone, isGlowstone);
-                    inv.setItem(slot, potion);
-                }
+            BrewJob next;
+            while ((next = virtualBrewQueue.peek()) != null && next.dueTick <= virtualBrewClock) {
+                virtualBrewQueue.poll();
+                // Skip jobs that were superseded or whose stand was evicted
+                if (next.stand.activeJob != next) continue;
+                completeBrewJob(next);
+            }
+            
+            if (virtualBrewClock % RATE_LIMIT_RETRY_TICKS == 0) {
+                drainThrottledVirtualBrews();
             }
             
-            totalUpgrades++;
+            if (virtualBrewClock % BREW_PROGRESS_INTERVAL_TICKS == 0) {
+                // Per viewer, so a team stand with several viewers is updated once each
+                for (Map.Entry<UUID, VirtualStand> entry : virtualBrewingStands.entrySet()) {
+                    BrewJob job = entry.getValue().activeJob;
+                    if (job == null) continue;
+                    Player viewer = Bukkit.getPlayer(entry.getKey());
+                    if (viewer == null) continue;
+                    
+                    long remaining = job.dueTick - virtualBrewClock;
+                    long total = job.dueTick - job.startTick;
+                    viewer.getOpenInventory().setProperty(org.bukkit.inventory.InventoryView.Property.BREW_TIME,
+                        (int) (remaining * VANILLA_BREW_TIME / total));
+                }
+            }
+        }, 1L, 1L);
+    }
+    
+    /**
+     * Completes a due timed brew: applies one cycle and queues the next.
+     * 
+     * If the contents changed during the brew so that no cycle is affordable
+     * any more, nothing is consumed. Stands of offline owners (and team stands
+     * nobody is viewing) are persisted and evicted once they have nothing left to brew.
+     * 
+     * @param job The due job (must be its stand's activeJob)
+     */
+    private void completeBrewJob(BrewJob job) {
+        VirtualStand stand = job.stand;
+        stand.activeJob = null;
+        virtualBrewUpgrades += brewVirtualContents(stand, 1, false);
+        setStandProperty(stand, org.bukkit.inventory.InventoryView.Property.BREW_TIME, 0);
+        setStandProperty(stand, org.bukkit.inventory.InventoryView.Property.FUEL_TIME, stand.fuel);
+        
+        // Keep going while materials and fuel last
+        startTimedBrew(job.owner, stand);
+        
+        if (stand.team != null) {
+            releaseTeamStand(stand, null);
+        } else if (stand.activeJob == null && isResidentStand(stand) && Bukkit.getPlayer(job.owner) == null) {
+            // Offline and finished - write back and free the memory
+            persistVirtualStand(stand);
+            Map<Integer, VirtualStand> stands = virtualStandCache.get(job.owner);
+            stands.remove(stand.index);
+            if (stands.isEmpty()) {
+                virtualStandCache.remove(job.owner);
+            }
         }
-        
-        if (totalUpgrades > 0) {
-            getLogger().info("[VirtualBrew] Completed " + totalUpgrades + " upgrade(s)");
+    }
+    
+    /**
+     * Sets a window property (BREW_TIME or FUEL_TIME) for everyone viewing a virtual stand.
+     * 
+     * @param stand The virtual stand
+     * @param property The property to set
+     * @param value BREW_TIME: remaining time scaled to 0-400 (0 hides the arrow); FUEL_TIME: 0-20
+     */
+    private void setStandProperty(VirtualStand stand, org.bukkit.inventory.InventoryView.Property property, int value) {
+        for (org.bukkit.entity.HumanEntity viewer : stand.inventory.getViewers()) {
+            viewer.getOpenInventory().setProperty(property, value);
+        }
+    }
+    
+    /**
+     * Queues a batch job and starts the batch runner if it is idle.
+     * 
+     * @param job The job to run
+     */
+    private void submitBatchJob(BatchJob job) {
+        batchQueue.add(job);
+        if (batchTask == null) {
+            batchTask = Bukkit.getScheduler().runTaskTimer(this, this::runBatchTick, 1L, 1L);
         }
+    }
+    
+    /**
+     * Runs batch job steps until this tick's time budget is spent.
+     * 
+     * OPTIMIZATION: Work is bounded by time, not by item count, so a batch
+     * over thousands of potions costs at most batch-tick-budget milliseconds
+     * per tick no matter how large it is. At least one step runs per tick, so
+     * every batch makes progress. The task cancels itself once the queue is
+     * empty and is restarted by the next submitBatchJob().
+     */
+    private void runBatchTick() {
+        long deadline = System.nanoTime() + batchTickBudgetNanos;
         
-        // Update fuel display
-        Player player = Bukkit.getPlayer(playerUUID);
-        if (player != null) {
-            updateFuelDisplay(player);
+        do {
+            BatchJob job = batchQueue.peek();
+            if (job == null) break;
+            
+            boolean more;
+            try {
+                more = job.step.getAsBoolean();
+            } catch (Exception e) {
+                getLogger().warning("Batch operation failed: " + e.getMessage());
+                more = false;
+            }
+            
+            if (!more) {
+                batchQueue.poll();
+                job.onComplete.run();
+            }
+        } while (System.nanoTime() < deadline);
+        
+        if (batchQueue.isEmpty() && batchTask != null) {
+            batchTask.cancel();
+            batchTask = null;
         }
     }
     
@@ -4602,6 +9296,125 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
     // TAB COMPLETION - Provides command argument suggestions
     // ==================================================================================
     
+    /**
+     * Sorted suggestions answering prefix queries by binary search.
+     * 
+     * Immutable once built, so it can be read from any thread and swapped
+     * atomically through a volatile field.
+     */
+    static final class CompletionIndex {
+        /** Lowercased suggestions, sorted */
+        private final String[] keys;
+        
+        /** Suggestions as shown, in the same order as keys */
+        private final String[] values;
+        
+        /**
+         * Builds an index over the given suggestions.
+         * 
+         * @param suggestions Suggestions (matched case-insensitively)
+         */
+        CompletionIndex(Collection<String> suggestions) {
+            values = suggestions.toArray(new String[0]);
+            Arrays.sort(values, Comparator.comparing(v -> v.toLowerCase(Locale.ROOT)));
+            keys = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                keys[i] = values[i].toLowerCase(Locale.ROOT);
+            }
+        }
+        
+        /**
+         * Adds every suggestion starting with the prefix (ignoring case) to out.
+         * 
+         * @param prefix Text typed so far
+         * @param out List to add matches to
+         */
+        void complete(String prefix, List<String> out) {
+            String key = prefix.toLowerCase(Locale.ROOT);
+            
+            // First entry >= key; all matches follow it contiguously
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < keys.length && keys[i].startsWith(key); i++) {
+                out.add(values[i]);
+            }
+        }
+    }
+    
+    /** Online player names for completion. Rebuilt on join and quit. */
+    private volatile CompletionIndex playerNameCompletions = new CompletionIndex(List.of());
+    
+    /**
+     * Level range indexes, built on first use.
+     * Key: (to << 2) | (from << 1) | (withMax ? 1 : 0)
+     */
+    private final Map<Long, CompletionIndex> levelCompletions = new java.util.concurrent.ConcurrentHashMap<>();
+    
+    /**
+     * Builds the subcommand permission table for SUBCOMMAND_PERMISSIONS.
+     * 
+     * @return Subcommand -> permission needed to be suggested (null = everyone)
+     */
+    private static Map<String, String> createSubcommandPermissions() {
+        Map<String, String> map = new HashMap<>();
+        map.put("help", null);
+        map.put("plan", null);
+        map.put("team", null);
+        map.put("bulk", "masterbrewing.bulk");
+        map.put("brew", "masterbrewing.use");
+        map.put("give", "masterbrewing.give");
+        map.put("loot", "masterbrewing.give");
+        map.put("upgrade", "masterbrewing.upgrade");
+        map.put("reload", "masterbrewing.admin");
+        map.put("stats", "masterbrewing.admin");
+        return Collections.unmodifiableMap(map);
+    }
+    
+    /**
+     * Rebuilds the online player name index.
+     * 
+     * @param leaving UUID of a player that is quitting (still listed as online), or null
+     */
+    private void rebuildPlayerNameCompletions(UUID leaving) {
+        List<String> names = new ArrayList<>();
+        for (Player online : Bukkit.getOnlinePlayers()) {
+            if (!online.getUniqueId().equals(leaving)) {
+                names.add(online.getName());
+            }
+        }
+        playerNameCompletions = new CompletionIndex(names);
+    }
+    
+    /**
+     * Gets the index of level suggestions from..to, optionally with "max".
+     * 
+     * @param from First level (0 or 1)
+     * @param to Last level (inclusive)
+     * @param withMax true to also suggest "max"
+     * @return The shared index for that range
+     */
+    private CompletionIndex getLevelCompletions(int from, int to, boolean withMax) {
+        long key = ((long) Math.max(to, -1) << 2) | ((long) from << 1) | (withMax ? 1L : 0L);
+        return levelCompletions.computeIfAbsent(key, k -> {
+            List<String> levels = new ArrayList<>();
+            if (withMax) {
+                levels.add("max");
+            }
+            for (int i = from; i <= to; i++) {
+                levels.add(String.valueOf(i));
+            }
+            return new CompletionIndex(levels);
+        });
+    }
+    
     /**
      * Provides tab completion suggestions for /masterbrewing commands.
      * 
@@ -4623,6 +9436,13 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      * Suggestions are filtered to only show options starting with current input.
      * Permission checks ensure players only see commands they can use.
      * 
+     * OPTIMIZATION: Every fixed list is a sorted CompletionIndex built ahead of
+     * time - potion names and subcommands at class load, stand tiers on
+     * (re)load, player names on join/quit, level ranges on first use. Each
+     * keystroke is a binary search plus a copy of the matches; nothing is
+     * streamed, lowercased or filtered per entry. Level suggestions stop at the
+     * chosen potion's own max time/power level.
+     * 
      * @param sender Command sender
      * @param command Command being completed
      * @param alias Alias used
@@ -4631,50 +9451,96 @@ public class MasterBrewing extends JavaPlugin implements Listener, TabCompleter
      */
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        List<String> completions = new ArrayList<>();
+        
         // /effects has no arguments to complete
-        if (command.getName().equalsIgnoreCase("effects")) {
-            return new ArrayList<>();
+        if (command.getName().equalsIgnoreCase("effects") || args.length == 0) {
+            return completions;
         }
         
-        List<String> completions = new ArrayList<>();
+        String prefix = args[args.length - 1];
+        String subCommand = args[0].toLowerCase();
         
         if (args.length == 1) {
-            completions.add("help");
-            
-            if (sender.hasPermission("masterbrewing.give")) {
-                completions.add("give");
+            List<String> matches = new ArrayList<>();
+            SUBCOMMAND_COMPLETIONS.complete(prefix, matches);
+            for (String match : matches) {
+                String permission = SUBCOMMAND_PERMISSIONS.get(match);
+                boolean allowed = match.equals("team")
+                    ? !getPermittedTeams(sender).isEmpty()
+                    : permission == null || sender.hasPermission(permission);
+                if (allowed) {
+                    completions.add(match);
+                }
+            }
+        } else if (subCommand.equals("plan")) {
+            if (args.length == 2) {
+                POTION_NAME_COMPLETIONS.complete(prefix, completions);
+            } else if (args.length <= 4) {
+                // Level suggestions up to this potion's brewable max
+                UpgradeCostTable table = getCostTable(POTION_NAME_TO_EFFECT_KEY.get(args[1].toLowerCase()));
+                if (table != null) {
+                    int max = (args.length == 3) ? table.maxTimeLevel() : table.maxPowerLevel();
+                    getLevelCompletions(0, max, true).complete(prefix, completions);
+                }
+            }
+        } else if (subCommand.equals("brew")) {
+            if (args.length == 2) {
+                BREW_MATERIAL_COMPLETIONS.complete(prefix, completions);
+            } else if (args.length == 3 && sender instanceof Player) {
+                // Levels the held potion can still gain on that axis
+                MasterPotionState held = readMasterPotionState(((Player) sender).getInventory().getItemInMainHand());
+                if (held != null) {
+                    int remaining = args[1].equalsIgnoreCase("redstone")
+                        ? getMaxTimeLevel(held.effectTypeKey) - held.timeLevel
+                        : getMaxPowerLevel(held.effectTypeKey) - held.powerLevel;
+                    if (remaining > 0) {
+                        getLevelCompletions(1, remaining, true).complete(prefix, completions);
+                    }
+                }
+            }
+        } else if (subCommand.equals("team")) {
+            if (args.length == 2) {
+                new CompletionIndex(getPermittedTeams(sender)).complete(prefix, completions);
+            }
+        } else if (subCommand.equals("upgrade")) {
+            if (args.length == 2) {
+                if ("container".startsWith(prefix.toLowerCase())) {
+                    completions.add("container");
+                }
+                playerNameCompletions.complete(prefix, completions);
+            } else if (args.length <= 4) {
+                // Applies to every potion, so up to the global max
+                UpgradePath defaults = upgradeConfig.defaults;
+                int max = (args.length == 3) ? defaults.maxTimeLevel : defaults.maxPowerLevel;
+                getLevelCompletions(0, max, true).complete(prefix, completions);
             }
+        } else if (subCommand.equals("give")) {
+            boolean potion = args[1].equalsIgnoreCase("potion");
+            String effectKey = (args.length > 4) ? POTION_NAME_TO_EFFECT_KEY.get(args[3].toLowerCase()) : null;
             
-            if (sender.hasPermission("masterbrewing.admin")) {
-                completions.add("reload");
-            }
-        } else if (args.length == 2 && args[0].equalsIgnoreCase("give")) {
-            completions.add("stand");
-            completions.add("potion");
-        } else if (args.length == 3 && args[0].equalsIgnoreCase("give")) {
-            // Player name for both stand and potion
-            return Bukkit.getOnlinePlayers().stream()
-                .map(Player::getName)
-                .collect(Collectors.toList());
-        } else if (args.length == 4 && args[0].equalsIgnoreCase("give") && args[1].equalsIgnoreCase("potion")) {
-            // OPTIMIZATION #3: Use map keys instead of hard-coded list
-            completions.add("random");
-            completions.addAll(POTION_NAME_TO_EFFECT_KEY.keySet());
-        } else if (args.length == 5 && args[0].equalsIgnoreCase("give") && args[1].equalsIgnoreCase("potion")) {
-            // Time level suggestions based on config + max
-            completions.add("max");
-            for (int i = 1; i <= maxTimeLevel; i++) {
-                completions.add(String.valueOf(i));
-            }
-        } else if (args.length == 6 && args[0].equalsIgnoreCase("give") && args[1].equalsIgnoreCase("potion")) {
-            // Power level suggestions based on config
-            for (int i = 1; i <= maxPowerLevel; i++) {
-                completions.add(String.valueOf(i));
-            }
-        }
-        
-        return completions.stream()
-            .filter(s -> s.toLowerCase().startsWith(args[args.length - 1].toLowerCase()))
-            .collect(Collectors.toList());
-    }
-}
\ No newline at end of file
+            if (args.length == 2) {
+                GIVE_TYPE_COMPLETIONS.complete(prefix, completions);
+            } else if (args.length == 3) {
+                // Selectors, group: and player names for both stand and potion
+                GIVE_TARGET_COMPLETIONS.complete(prefix, completions);
+                playerNameCompletions.complete(prefix, completions);
+            } else if (args.length == 4 && args[1].equalsIgnoreCase("stand")) {
+                // Stand tier suggestions based on config
+                standTierCompletions.complete(prefix, completions);
+            } else if (args.length == 4 && potion) {
+                GIVE_POTION_COMPLETIONS.complete(prefix, completions);
+            } else if (args.length == 5 && potion) {
+                // Time levels for the chosen potion (global max for random/unknown) + max
+                int max = (effectKey != null) ? getMaxTimeLevel(effectKey) : upgradeConfig.defaults.maxTimeLevel;
+                getLevelCompletions(1, max, true).complete(prefix, completions);
+            } else if (args.length == 6 && potion) {
+                // Power levels for the chosen potion
+                int max = (effectKey != null) ? getMaxPowerLevel(effectKey) : upgradeConfig.defaults.maxPowerLevel;
+                getLevelCompletions(1, max, false).complete(prefix, completions);
+            }
+        }
+        
+        return completions;
+    }
+}